@@ -1,6 +1,7 @@
 package org.dicr.radius.attribute;
 
 import java.io.*;
+import java.nio.*;
 
 import org.dicr.radius.dictionary.*;
 import org.dicr.radius.exc.*;
@@ -105,6 +106,26 @@ public abstract class RadiusAttribute implements Serializable {
      */
 	public abstract void decodeValue(byte[] data, String secret, RequestAuthenticator requestAuthenticator) throws CodecException;
 
+	/**
+     * Decode attribute value from buffer.
+     * <P>
+     * Value data is remaining bytes of buffer (from position to limit). Default implementation copy value data to array
+     * and call {@link #decodeValue(byte[], String, RequestAuthenticator)}. Attributes, which can read value directly
+     * from buffer, override it to avoid copy.
+     * </P>
+     * 
+     * @param data buffer with value data
+     * @param secret shared secret
+     * @param requestAuthenticator authenticator
+     * @throws CodecException if value data is incorrect
+     */
+	public void decodeValue(ByteBuffer data, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
+		if (data == null) throw new IllegalArgumentException("null data");
+		byte[] value = new byte[data.remaining()];
+		data.get(value);
+		this.decodeValue(value, secret, requestAuthenticator);
+	}
+
 	/**
      * Encode attribute value
      * 
@@ -1,5 +1,7 @@
 package org.dicr.radius.attribute.types;
 
+import java.nio.*;
+
 import org.dicr.radius.attribute.*;
 import org.dicr.radius.dictionary.*;
 import org.dicr.radius.exc.*;
@@ -125,6 +127,21 @@ public class IntegerAttribute extends RadiusAttribute {
 		this.setValue(ByteUtils.unsigned(ByteUtils.toInteger(data, 0, IntegerAttribute.VALUE_LENGTH)));
 	}
 
+	/**
+	 * Decode value directly from buffer
+	 * 
+	 * @param data value data
+	 * @param secret shared secret
+	 * @param requestAuthenticator authenticator
+	 */
+	@Override
+	public void decodeValue(ByteBuffer data, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
+		if (data == null) throw new IllegalArgumentException("null data");
+		if (data.remaining() != IntegerAttribute.VALUE_LENGTH) throw new CodecException("incorrect data.length: "
+		        + data.remaining());
+		this.setValue(data.getInt());
+	}
+
 	/**
 	 * Encode value
 	 * 
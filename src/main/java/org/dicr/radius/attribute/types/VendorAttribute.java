@@ -155,23 +155,43 @@ public class VendorAttribute extends RadiusAttribute {
 	@Override
 	public void decodeValue(byte[] data, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
 		if (data == null) throw new IllegalArgumentException("null data");
-		ByteBuffer buf = ByteBuffer.wrap(data);
-		int vendor = buf.getInt();
-		if (vendor < 0 || vendor > AttributeType.VENDOR_MAX) throw new CodecException("incorrect vendor id: " + vendor);
-		this.setVendorId(vendor);
+		this.decodeValue(ByteBuffer.wrap(data), secret, requestAuthenticator);
+	}
+
+	/**
+	 * Decode value directly from buffer. Values of included attributes are decoded from the same buffer.
+	 * 
+	 * @param buf value data
+	 * @param secret value secret
+	 * @param requestAuthenticator authenticator
+	 */
+	@Override
+	public void decodeValue(ByteBuffer buf, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null data");
+		final int limit = buf.limit();
 		try {
+			int vendor = buf.getInt();
+			if (vendor < 0 || vendor > AttributeType.VENDOR_MAX) throw new CodecException("incorrect vendor id: "
+			        + vendor);
+			this.setVendorId(vendor);
 			while (buf.remaining() > 0) {
 				AttributeType type = new AttributeType(vendor, ByteUtils.unsigned(buf.get()));
 				RadiusAttribute attribute = AttributesFactory.createAttribute(type);
 				int length = ByteUtils.unsigned(buf.get());
-				if (length < 0) throw new CodecException("incorrect attribute length: " + length);
-				byte attrdata[] = new byte[length - RFCCodec.ATTRIBUTE_HEADER_LENGTH];
-				buf.get(attrdata);
-				attribute.decodeValue(attrdata, secret, requestAuthenticator);
+				if (length < RFCCodec.ATTRIBUTE_HEADER_LENGTH) throw new CodecException("incorrect attribute length: "
+				        + length);
+				int end = buf.position() + length - RFCCodec.ATTRIBUTE_HEADER_LENGTH;
+				if (end > limit) throw new CodecException("unexpected end of data");
+				buf.limit(end);
+				attribute.decodeValue(buf, secret, requestAuthenticator);
+				buf.limit(limit);
+				buf.position(end);
 				this.attributes.add(attribute);
 			}
 		} catch (BufferUnderflowException ex) {
 			throw new CodecException("unexpected end of data");
+		} finally {
+			buf.limit(limit);
 		}
 	}
 
@@ -44,6 +44,47 @@ public interface ClientRequest {
      */
 	public long getTimeStamp();
 
+	/**
+     * Return deadline.
+     * <P>
+     * After deadline client (NAS) does not wait for response anymore, so request may be dropped without handling.
+     * </P>
+     * 
+     * @return time, when client stop waiting for response, or 0 if not limited
+     */
+	public long getDeadline();
+
+	/**
+     * Return scheduling weight of client.
+     * <P>
+     * Fair queues give backlogged clients share of handling, proportional to weight.
+     * </P>
+     * 
+     * @return weight of client, 1 by default
+     */
+	public int getWeight();
+
+	/**
+     * Return time of receive
+     * 
+     * @return value of {@link System#nanoTime()}, when request datagram was received
+     */
+	public long getReceiveTime();
+
+	/**
+     * Return time of enqueue
+     * 
+     * @return value of {@link System#nanoTime()}, when request was put to queue of server, or 0
+     */
+	public long getEnqueueTime();
+
+	/**
+     * Set time of enqueue. Called by server for latency statistics.
+     * 
+     * @param time value of {@link System#nanoTime()}, when request was put to queue of server
+     */
+	public void setEnqueueTime(long time);
+
 	/**
      * Send response back to the client
      * 
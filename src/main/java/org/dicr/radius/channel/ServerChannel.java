@@ -48,4 +48,13 @@ public interface ServerChannel {
      * @return true if running
      */
 	public boolean isRunning();
+
+	/**
+     * Notify channel, that request is dropped by server without response (queue overflow, expired deadline,
+     * overload, handler error or no response). Must be called for every request, which is not answered, so channel
+     * count it and release state of request, such as reservation in duplicates cache.
+     * 
+     * @param request dropped request
+     */
+	public void requestDropped(ClientRequest request);
 }
@@ -3,6 +3,8 @@
  */
 package org.dicr.radius.channel;
 
+import java.util.*;
+
 /**
  * Server Channel Listener.
  * <P>
@@ -19,4 +21,11 @@ public interface ServerChannelListener {
      * @param request received request.
      */
 	public void requestReceived(ClientRequest request);
+
+	/**
+	 * Called by server channel when several client requests received at once.
+	 * 
+	 * @param requests received requests, in order of receiving. List is valid during call only.
+	 */
+	public void requestsReceived(List<ClientRequest> requests);
 }
@@ -0,0 +1,55 @@
+/**
+ * ServerLoad.java 18.10.2026
+ */
+package org.dicr.radius.channel;
+
+/**
+ * Load of server.
+ * <P>
+ * Indicators of load are reported by server channel to monitoring clients, for example in response to Status-Server
+ * request (RFC 5997). Methods are called by reactor threads of channel, so they must be fast and must not block.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface ServerLoad {
+	/**
+	 * Return queue depth
+	 * 
+	 * @return number of requests, waiting in queues of server
+	 */
+	public int getQueueDepth();
+
+	/**
+	 * Return in-flight requests
+	 * 
+	 * @return number of requests in queues and in handlers
+	 */
+	public int getInFlightRequests();
+
+	/**
+	 * Return concurrency limit
+	 * 
+	 * @return current limit of in-flight requests or 0 if not limited
+	 */
+	public int getConcurrencyLimit();
+
+	/**
+	 * Return shed rate
+	 * 
+	 * @return number of requests per second, rejected or dropped by overload
+	 */
+	public double getShedRate();
+
+	/**
+	 * Return stall time.
+	 * <P>
+	 * Server is stalled when requests wait in queues, but no request was taken or completed by handlers.
+	 * </P>
+	 * 
+	 * @return time in milliseconds, while requests are waiting without progress of handlers, or 0 if server is not
+	 *         stalled
+	 */
+	public long getStallTime();
+}
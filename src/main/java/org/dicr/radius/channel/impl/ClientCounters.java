@@ -0,0 +1,157 @@
+/**
+ * ClientCounters.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Counters of RADIUS server for one client (NAS).
+ * <P>
+ * Counters follow RADIUS Authentication and Accounting Server MIB (RFC 4669, RFC 4671). Each counter is striped: it has
+ * separate cell for each group of threads, and cells of different stripes are placed in different cache lines. So
+ * reactors and handler threads increment counters of the same client with low contention. Value of counter is sum
+ * of its cells. Number of stripes is limited to 8, so counters of client take at most 1 Kb.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class ClientCounters {
+	/** Number of longs between stripes, multiple of cache line */
+	private static final int STRIDE = 16;
+
+	/** Number of stripes, power of 2, limited to keep counters of client within 1 Kb */
+	private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()
+	        * 2 - 1));
+
+	/** Cells of counters */
+	private final AtomicLongArray cells = new AtomicLongArray(ClientCounters.STRIPES * ClientCounters.STRIDE);
+
+	/**
+	 * Constructor
+	 */
+	public ClientCounters() {
+		super();
+	}
+
+	/**
+	 * Return offset of stripe of current thread
+	 * 
+	 * @return offset of stripe
+	 */
+	private static int stripe() {
+		return ((int) Thread.currentThread().getId() & (ClientCounters.STRIPES - 1)) * ClientCounters.STRIDE;
+	}
+
+	/**
+	 * Increment counter
+	 * 
+	 * @param counter counter to increment
+	 */
+	public void increment(final Counter counter) {
+		this.cells.incrementAndGet(ClientCounters.stripe() + counter.ordinal());
+	}
+
+	/**
+	 * Return value of counter
+	 * 
+	 * @param counter counter
+	 * @return current value
+	 */
+	public long get(final Counter counter) {
+		long value = 0;
+		for (int i = counter.ordinal(); i < this.cells.length(); i += ClientCounters.STRIDE)
+			value += this.cells.get(i);
+		return value;
+	}
+
+	/**
+	 * Return snapshot of all counters.
+	 * <P>
+	 * Counters are read without locks, while traffic is handled, so each value is exact, but values of different counters
+	 * may be taken at slightly different moments.
+	 * </P>
+	 * 
+	 * @return values of counters by ordinal of {@link Counter}
+	 */
+	public long[] snapshot() {
+		final Counter[] counters = Counter.values();
+		final long[] values = new long[counters.length];
+		for (final Counter counter : counters)
+			values[counter.ordinal()] = this.get(counter);
+		return values;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (final Counter counter : Counter.values()) {
+			if (sb.length() > 0) sb.append(", ");
+			sb.append(counter.getName()).append('=').append(this.get(counter));
+		}
+		return sb.toString();
+	}
+
+	/*******************************************************************************************************************
+	 * Counter of server
+	 ******************************************************************************************************************/
+	public static enum Counter {
+		/** Received requests (radiusAuthServTotalAccessRequests, radiusAccServTotalRequests) */
+		REQUESTS("requests"),
+
+		/** Retransmitted requests (radiusAuthServTotalDupAccessRequests, radiusAccServTotalDupRequests) */
+		DUPLICATES("duplicates"),
+
+		/** Malformed requests (radiusAuthServTotalMalformedAccessRequests, radiusAccServTotalMalformedRequests) */
+		MALFORMED("malformed"),
+
+		/** Requests with bad authenticator (radiusAuthServTotalBadAuthenticators, radiusAccServTotalBadAuthenticators) */
+		BAD_AUTHENTICATORS("badAuthenticators"),
+
+		/** Requests of unknown type (radiusAuthServTotalUnknownTypes, radiusAccServTotalUnknownTypes) */
+		UNKNOWN_TYPES("unknownTypes"),
+
+		/** Requests, dropped without response (radiusAuthServTotalPacketsDropped, radiusAccServTotalPacketsDropped) */
+		DROPS("drops"),
+
+		/** Sent Access-Accept (radiusAuthServTotalAccessAccepts) */
+		ACCEPTS("accepts"),
+
+		/** Sent Access-Reject (radiusAuthServTotalAccessRejects) */
+		REJECTS("rejects"),
+
+		/** Sent Access-Challenge (radiusAuthServTotalAccessChallenges) */
+		CHALLENGES("challenges"),
+
+		/** Sent Accounting-Response (radiusAccServTotalResponses) */
+		ACCOUNTING_RESPONSES("accountingResponses"),
+
+		/** Sent responses to Status-Server (RFC 5997) */
+		STATUS_RESPONSES("statusResponses");
+
+		/** Name of counter in reports */
+		private final String name;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param counterName name of counter in reports
+		 */
+		private Counter(final String counterName) {
+			this.name = counterName;
+		}
+
+		/**
+		 * Return name
+		 * 
+		 * @return name of counter in reports
+		 */
+		public String getName() {
+			return this.name;
+		}
+	}
+}
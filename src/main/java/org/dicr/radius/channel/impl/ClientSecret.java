@@ -0,0 +1,262 @@
+/**
+ * ClientSecret.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+/**
+ * Configuration of clients (NAS).
+ * <P>
+ * Entry configure shared secret and requests rate limit of clients with addresses in <CODE>prefix</CODE>. Rate limit
+ * is applied to each client address separately, so one client can not exhaust limit of other clients of network
+ * prefix. Entry rate limit is applied to all clients of entry together, so clients can not bypass it by many source
+ * addresses. Server channel copy entry when configured, so changes of entry after configuration are not visible to
+ * channel.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class ClientSecret {
+	/** Prefix of client addresses */
+	private String prefix = null;
+
+	/** Shared secret */
+	private String secret = null;
+
+	/** Rate limit, requests per second */
+	private double rate = 0;
+
+	/** Burst of requests */
+	private int burst = 0;
+
+	/** Rate limit of all clients of entry, requests per second */
+	private double entryRate = 0;
+
+	/** Burst of requests from all clients of entry */
+	private int entryBurst = 0;
+
+	/** Timeout of client requests */
+	private long timeout = 0;
+
+	/** Scheduling weight */
+	private int weight = 1;
+
+	/**
+	 * Constructor
+	 */
+	public ClientSecret() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param addressPrefix host name, address or network prefix (<CODE>address/length</CODE>) of clients
+	 * @param sharedSecret shared secret
+	 */
+	public ClientSecret(final String addressPrefix, final String sharedSecret) {
+		super();
+		this.setPrefix(addressPrefix);
+		this.setSecret(sharedSecret);
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param entry entry to copy
+	 */
+	public ClientSecret(final ClientSecret entry) {
+		super();
+		if (entry == null) throw new IllegalArgumentException("null entry");
+		this.prefix = entry.prefix;
+		this.secret = entry.secret;
+		this.rate = entry.rate;
+		this.burst = entry.burst;
+		this.entryRate = entry.entryRate;
+		this.entryBurst = entry.entryBurst;
+		this.timeout = entry.timeout;
+		this.weight = entry.weight;
+	}
+
+	/**
+	 * Set prefix
+	 *
+	 * @param addressPrefix host name, address or network prefix (<CODE>address/length</CODE>) of clients
+	 */
+	public void setPrefix(final String addressPrefix) {
+		if (addressPrefix == null || addressPrefix.isEmpty()) throw new IllegalArgumentException("empty prefix");
+		this.prefix = addressPrefix;
+	}
+
+	/**
+	 * Return prefix
+	 *
+	 * @return prefix of client addresses
+	 */
+	public String getPrefix() {
+		return this.prefix;
+	}
+
+	/**
+	 * Set secret
+	 *
+	 * @param sharedSecret shared secret
+	 */
+	public void setSecret(final String sharedSecret) {
+		if (sharedSecret == null || sharedSecret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		this.secret = sharedSecret;
+	}
+
+	/**
+	 * Return secret
+	 *
+	 * @return shared secret
+	 */
+	public String getSecret() {
+		return this.secret;
+	}
+
+	/**
+	 * Set rate limit.
+	 * <P>
+	 * Requests, exceeding rate, are dropped before decoding. Default is 0, which mean channel default rate.
+	 * </P>
+	 *
+	 * @param requestsRate maximum average rate of requests from each client address per second
+	 */
+	public void setRate(final double requestsRate) {
+		if (requestsRate < 0) throw new IllegalArgumentException("rate: " + requestsRate);
+		this.rate = requestsRate;
+	}
+
+	/**
+	 * Return rate limit
+	 *
+	 * @return maximum rate of requests per second, 0 if channel default is used
+	 */
+	public double getRate() {
+		return this.rate;
+	}
+
+	/**
+	 * Set burst
+	 * <P>
+	 * Number of requests, which client can send at once over rate limit. Default is 0, which mean channel default burst.
+	 * </P>
+	 *
+	 * @param requestsBurst maximum burst of requests
+	 */
+	public void setBurst(final int requestsBurst) {
+		if (requestsBurst < 0) throw new IllegalArgumentException("burst: " + requestsBurst);
+		this.burst = requestsBurst;
+	}
+
+	/**
+	 * Return burst
+	 *
+	 * @return maximum burst of requests, 0 if channel default is used
+	 */
+	public int getBurst() {
+		return this.burst;
+	}
+
+	/**
+	 * Set entry rate limit.
+	 * <P>
+	 * Limit of requests from all clients of entry together, checked after rate limit of client address. Default is 0,
+	 * which mean entry is not limited.
+	 * </P>
+	 *
+	 * @param requestsRate maximum average rate of requests from all clients of entry per second
+	 */
+	public void setEntryRate(final double requestsRate) {
+		if (requestsRate < 0) throw new IllegalArgumentException("entryRate: " + requestsRate);
+		this.entryRate = requestsRate;
+	}
+
+	/**
+	 * Return entry rate limit
+	 *
+	 * @return maximum rate of requests from all clients of entry per second, 0 if unlimited
+	 */
+	public double getEntryRate() {
+		return this.entryRate;
+	}
+
+	/**
+	 * Set entry burst
+	 * <P>
+	 * Number of requests, which all clients of entry can send at once over entry rate limit. Default is 0, which mean
+	 * burst of client address.
+	 * </P>
+	 *
+	 * @param requestsBurst maximum burst of requests from all clients of entry
+	 */
+	public void setEntryBurst(final int requestsBurst) {
+		if (requestsBurst < 0) throw new IllegalArgumentException("entryBurst: " + requestsBurst);
+		this.entryBurst = requestsBurst;
+	}
+
+	/**
+	 * Return entry burst
+	 *
+	 * @return maximum burst of requests from all clients of entry, 0 if burst of client address is used
+	 */
+	public int getEntryBurst() {
+		return this.entryBurst;
+	}
+
+	/**
+	 * Set request timeout
+	 * <P>
+	 * Time, while client wait for response, including retransmissions. Requests, not handled within timeout, are dropped
+	 * from server queue. Default is 0, which mean channel default timeout.
+	 * </P>
+	 * 
+	 * @param millis timeout of requests in milliseconds
+	 */
+	public void setTimeout(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("timeout: " + millis);
+		this.timeout = millis;
+	}
+
+	/**
+	 * Return request timeout
+	 * 
+	 * @return timeout of requests in milliseconds, 0 if channel default is used
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Set scheduling weight
+	 * <P>
+	 * Used by {@link org.dicr.radius.server.impl.FairRequestsQueue}: when clients are backlogged, each client address
+	 * get share of handler threads, proportional to its weight. Default is 1.
+	 * </P>
+	 * 
+	 * @param requestsWeight number of requests, handled in each round of scheduling
+	 */
+	public void setWeight(final int requestsWeight) {
+		if (requestsWeight < 1) throw new IllegalArgumentException("weight: " + requestsWeight);
+		this.weight = requestsWeight;
+	}
+
+	/**
+	 * Return scheduling weight
+	 * 
+	 * @return number of requests, handled in each round of scheduling
+	 */
+	public int getWeight() {
+		return this.weight;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.prefix;
+	}
+}
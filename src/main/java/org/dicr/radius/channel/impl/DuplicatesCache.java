@@ -0,0 +1,415 @@
+/**
+ * DuplicatesCache.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+import java.net.*;
+import java.nio.*;
+import java.util.*;
+
+import org.dicr.radius.packet.*;
+
+/**
+ * Duplicate requests response cache (RFC 5080).
+ * <P>
+ * Cache store encoded responses by client address, port, packet id and request authenticator. When client retransmit
+ * request, the cached response is sent again without handling request. Retransmission of request, which is still
+ * handled, is detected by reserved entry without response.
+ * </P>
+ * <P>
+ * Cache is limited by <CODE>maxEntries</CODE>. Entries are expired after <CODE>timeout</CODE> milliseconds since
+ * request was received (see {@link #getExpirations()}). To detect all retransmissions <CODE>maxEntries</CODE> must be
+ * not less than requests rate multiplied by <CODE>timeout</CODE>, otherwise entries are evicted before expiration (see
+ * {@link #getEvictions()}).
+ * </P>
+ * <P>
+ * Cache is divided to segments by hash of key. Each segment has own lock, order of entries and part of
+ * <CODE>maxEntries</CODE>, so reactors and handler threads, which lookup and store responses of different requests,
+ * do not wait for each other.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class DuplicatesCache {
+	/** Result of lookup for request which is still handled */
+	public static final byte[] IN_PROGRESS = new byte[0];
+
+	/** Maximum number of segments, power of 2 */
+	private static final int MAX_SEGMENTS = Math.min(64, Integer.highestOneBit(Runtime.getRuntime()
+	        .availableProcessors() * 4));
+
+	/** Segments */
+	private final Segment[] segments;
+
+	/** Mask of segment index */
+	private final int mask;
+
+	/** Maximum number of entries */
+	private final int maxEntries;
+
+	/** Entry timeout */
+	private final long timeout;
+
+	/**
+	 * Constructor
+	 *
+	 * @param max maximum number of cached responses
+	 * @param millis timeout of cached response in milliseconds
+	 */
+	public DuplicatesCache(final int max, final long millis) {
+		if (max < 1) throw new IllegalArgumentException("maxEntries: " + max);
+		if (millis < 1) throw new IllegalArgumentException("timeout: " + millis);
+		this.maxEntries = max;
+		this.timeout = millis;
+		final int count = Math.min(DuplicatesCache.MAX_SEGMENTS, Integer.highestOneBit(max));
+		this.segments = new Segment[count];
+		for (int i = 0; i < count; i++)
+			this.segments[i] = new Segment(max / count + (i < max % count ? 1 : 0));
+		this.mask = count - 1;
+	}
+
+	/**
+	 * Return maximum number of entries
+	 *
+	 * @return maximum number of cached responses
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Return timeout
+	 *
+	 * @return timeout of cached responses in milliseconds
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Return segment of key
+	 *
+	 * @param key request key
+	 * @return segment
+	 */
+	private Segment segment(final Key key) {
+		final int hash = key.hashCode();
+		return this.segments[(hash ^ hash >>> 16) & this.mask];
+	}
+
+	/**
+	 * Check request in cache.
+	 * <P>
+	 * If request is not found, the entry without response is reserved for it, so next retransmissions are detected as
+	 * requests in progress.
+	 * </P>
+	 *
+	 * @param key request key
+	 * @return cached response if request is already answered, {@link #IN_PROGRESS} if request is still handled or null
+	 *         if it is new request.
+	 */
+	public byte[] lookup(final Key key) {
+		if (key == null) throw new IllegalArgumentException("null key");
+		final Segment segment = this.segment(key);
+		synchronized (segment) {
+			final long time = System.currentTimeMillis();
+			segment.expire(time);
+			final Entry entry = segment.get(key);
+			if (entry == null) {
+				segment.misses++;
+				segment.put(key, new Entry(time + this.timeout));
+				return null;
+			}
+			if (entry.response == null) {
+				segment.inProgress++;
+				return DuplicatesCache.IN_PROGRESS;
+			}
+			segment.hits++;
+			return entry.response;
+		}
+	}
+
+	/**
+	 * Store response for request
+	 *
+	 * @param key request key
+	 * @param response encoded response
+	 */
+	public void store(final Key key, final byte[] response) {
+		if (key == null) throw new IllegalArgumentException("null key");
+		if (response == null) throw new IllegalArgumentException("null response");
+		final Segment segment = this.segment(key);
+		synchronized (segment) {
+			Entry entry = segment.get(key);
+			if (entry == null) {
+				entry = new Entry(System.currentTimeMillis() + this.timeout);
+				segment.put(key, entry);
+			}
+			entry.response = response;
+		}
+	}
+
+	/**
+	 * Remove request from cache
+	 *
+	 * @param key request key
+	 */
+	public void remove(final Key key) {
+		if (key == null) throw new IllegalArgumentException("null key");
+		final Segment segment = this.segment(key);
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+
+	/**
+	 * Remove reserved entry of request, which is not answered.
+	 * <P>
+	 * Must be called when request is dropped without response, so retransmissions of client are handled as new request
+	 * instead of being ignored until entry is expired. Entry with stored response is not removed.
+	 * </P>
+	 *
+	 * @param key request key
+	 */
+	public void cancel(final Key key) {
+		if (key == null) throw new IllegalArgumentException("null key");
+		final Segment segment = this.segment(key);
+		synchronized (segment) {
+			final Entry entry = segment.get(key);
+			if (entry != null && entry.response == null) segment.remove(key);
+		}
+	}
+
+	/**
+	 * Return current size
+	 *
+	 * @return number of entries in cache
+	 */
+	public int getSize() {
+		int size = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Return hits
+	 *
+	 * @return number of retransmissions answered from cache
+	 */
+	public long getHits() {
+		long count = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				count += segment.hits;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return retransmissions of requests in progress
+	 *
+	 * @return number of retransmissions received while request is handled
+	 */
+	public long getInProgress() {
+		long count = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				count += segment.inProgress;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return misses
+	 *
+	 * @return number of requests not found in cache
+	 */
+	public long getMisses() {
+		long count = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				count += segment.misses;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return evictions. Growing value means, that cache is too small for rate of requests and timeout.
+	 *
+	 * @return number of entries removed by size limit before expiration
+	 */
+	public long getEvictions() {
+		long count = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				count += segment.evictions;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return expirations
+	 *
+	 * @return number of entries removed by timeout
+	 */
+	public long getExpirations() {
+		long count = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				count += segment.expirations;
+			}
+		}
+		return count;
+	}
+
+	/*******************************************************************************************************************
+	 * Segment of cache, entries in order of creation. Guarded by own monitor.
+	 ******************************************************************************************************************/
+	private static final class Segment extends LinkedHashMap<Key, DuplicatesCache.Entry> {
+		/** Serial ID */
+		private static final long serialVersionUID = 1L;
+
+		/** Maximum number of entries of segment */
+		private final int maxEntries;
+
+		/** Hits count */
+		protected long hits = 0;
+
+		/** Retransmissions of requests in progress */
+		protected long inProgress = 0;
+
+		/** Misses count */
+		protected long misses = 0;
+
+		/** Count of entries, removed by size limit */
+		protected long evictions = 0;
+
+		/** Count of entries, removed by timeout */
+		protected long expirations = 0;
+
+		/**
+		 * Constructor
+		 *
+		 * @param max maximum number of entries of segment
+		 */
+		protected Segment(final int max) {
+			super();
+			this.maxEntries = max;
+		}
+
+		/**
+		 * Remove expired entries from the head of segment.
+		 *
+		 * @param time current time
+		 */
+		protected void expire(final long time) {
+			final Iterator<DuplicatesCache.Entry> iterator = this.values().iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().expires > time) break;
+				iterator.remove();
+				this.expirations++;
+			}
+		}
+
+		/**
+		 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+		 */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, DuplicatesCache.Entry> eldest) {
+			if (this.size() <= this.maxEntries) return false;
+			this.evictions++;
+			return true;
+		}
+	}
+
+	/*******************************************************************************************************************
+	 * Cache entry
+	 ******************************************************************************************************************/
+	private static final class Entry {
+		/** Expiration time */
+		protected final long expires;
+
+		/** Encoded response or null if request is in progress */
+		protected byte[] response = null;
+
+		/**
+		 * Constructor
+		 *
+		 * @param expirationTime expiration time
+		 */
+		protected Entry(final long expirationTime) {
+			this.expires = expirationTime;
+		}
+	}
+
+	/*******************************************************************************************************************
+	 * Request key
+	 ******************************************************************************************************************/
+	public static final class Key {
+		/** Client address */
+		private final InetSocketAddress address;
+
+		/** Packet id */
+		private final int id;
+
+		/** Request authenticator */
+		private final byte[] authenticator = new byte[RequestAuthenticator.LENGTH];
+
+		/** Hash code */
+		private final int hash;
+
+		/**
+		 * Constructor
+		 *
+		 * @param clientAddress client address
+		 * @param packet received packet data, starting from buffer position. Buffer is not changed.
+		 */
+		public Key(final InetSocketAddress clientAddress, final ByteBuffer packet) {
+			if (clientAddress == null) throw new IllegalArgumentException("null address");
+			if (packet == null) throw new IllegalArgumentException("null packet");
+			this.address = clientAddress;
+			final int start = packet.position();
+			this.id = packet.get(start + 1) & 0x0FF;
+			for (int i = 0; i < this.authenticator.length; i++)
+				this.authenticator[i] = packet.get(start + 4 + i);
+			this.hash = (31 * this.address.hashCode() + this.id) * 31 + Arrays.hashCode(this.authenticator);
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			final Key other = (Key) obj;
+			return this.hash == other.hash && this.id == other.id && this.address.equals(other.address)
+			        && Arrays.equals(this.authenticator, other.authenticator);
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return this.address + "/" + this.id;
+		}
+	}
+}
@@ -273,8 +273,9 @@ public class NIOClientChannel implements ClientChannel {
 						// read packet
 						rcvBuf.clear();
 						final SocketAddress rcvAddress = ((DatagramChannel) key.channel()).receive(rcvBuf);
+						rcvBuf.flip();
 						// decode packet
-						response = this.getCodec().decodeResponse(rcvBuf.array(), request, this.secret);
+						response = this.getCodec().decodeResponse(rcvBuf, request, this.secret);
 						NIOClientChannel.log.trace("received response " + response + " from server " + rcvAddress);
 						break;
 					}
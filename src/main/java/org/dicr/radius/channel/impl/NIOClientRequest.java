@@ -24,32 +24,59 @@ public class NIOClientRequest implements ClientRequest {
 	/** Created time */
 	private final long timestamp = System.currentTimeMillis();
 
-	/** Shared secre */
-	private String _secret = null;
+	/** Configuration of client */
+	private ClientSecret _client = null;
 
 	/** Channel from which request was received */
 	private DatagramChannel _dataChannel = null;
 
+	/** Key of request in responses cache */
+	private DuplicatesCache.Key _cacheKey = null;
+
+	/** Deadline of response */
+	private long _deadline = 0;
+
+	/** Scheduling weight of client */
+	private int _weight = 1;
+
+	/** Time of receive by System.nanoTime() */
+	private long _receiveTime = 0;
+
+	/** Time of enqueue by System.nanoTime() */
+	private long _enqueueTime = 0;
+
 	/**
 	 * Constructor.
 	 * 
 	 * @param serverChannel server channel
 	 * @param requestPacket client request packet
 	 * @param clientAddress client address
-	 * @param secret client secret
+	 * @param client configured entry of client
 	 * @param dataChannel data channel
+	 * @param cacheKey key of request in responses cache, or null if cache is not used
+	 * @param timeout time in milliseconds, while client wait for response, or 0 if not limited
+	 * @param weight scheduling weight of client
+	 * @param receiveTime value of {@link System#nanoTime()}, when datagram was received
 	 */
-	protected NIOClientRequest(NIOServerChannel serverChannel, RequestPacket requestPacket, InetSocketAddress clientAddress, String secret, DatagramChannel dataChannel) {
+	protected NIOClientRequest(NIOServerChannel serverChannel, RequestPacket requestPacket, InetSocketAddress clientAddress, ClientSecret client, DatagramChannel dataChannel, DuplicatesCache.Key cacheKey, long timeout, int weight, long receiveTime) {
 		if (serverChannel == null) throw new IllegalArgumentException("null _serverChannel");
 		if (requestPacket == null) throw new IllegalArgumentException("null _requestPacket");
 		if (clientAddress == null) throw new IllegalArgumentException("null address");
-		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		if (client == null) throw new IllegalArgumentException("null client");
+		if (client.getSecret() == null || client.getSecret().isEmpty()) throw new IllegalArgumentException(
+		        "empty secret");
 		if (dataChannel == null) throw new IllegalArgumentException("null data channel");
+		if (timeout < 0) throw new IllegalArgumentException("timeout: " + timeout);
+		if (weight < 1) throw new IllegalArgumentException("weight: " + weight);
 		this._serverChannel = serverChannel;
 		this._requestPacket = requestPacket;
 		this._clientAddress = clientAddress;
-		this._secret = secret;
+		this._client = client;
 		this._dataChannel = dataChannel;
+		this._cacheKey = cacheKey;
+		if (timeout > 0) this._deadline = this.timestamp + timeout;
+		this._weight = weight;
+		this._receiveTime = receiveTime;
 	}
 
 	/**
@@ -96,6 +123,61 @@ public class NIOClientRequest implements ClientRequest {
 		return this.timestamp;
 	}
 
+	/**
+	 * Return deadline
+	 * 
+	 * @return time, when client stop waiting for response, or 0 if not limited
+	 * @see org.dicr.radius.channel.ClientRequest#getDeadline()
+	 */
+	@Override
+	public long getDeadline() {
+		return this._deadline;
+	}
+
+	/**
+	 * Return weight
+	 * 
+	 * @return scheduling weight of client
+	 * @see org.dicr.radius.channel.ClientRequest#getWeight()
+	 */
+	@Override
+	public int getWeight() {
+		return this._weight;
+	}
+
+	/**
+	 * Return receive time
+	 * 
+	 * @return value of {@link System#nanoTime()}, when datagram was received
+	 * @see org.dicr.radius.channel.ClientRequest#getReceiveTime()
+	 */
+	@Override
+	public long getReceiveTime() {
+		return this._receiveTime;
+	}
+
+	/**
+	 * Return enqueue time
+	 * 
+	 * @return value of {@link System#nanoTime()}, when request was put to queue of server, or 0
+	 * @see org.dicr.radius.channel.ClientRequest#getEnqueueTime()
+	 */
+	@Override
+	public long getEnqueueTime() {
+		return this._enqueueTime;
+	}
+
+	/**
+	 * Set enqueue time
+	 * 
+	 * @param time value of {@link System#nanoTime()}, when request was put to queue of server
+	 * @see org.dicr.radius.channel.ClientRequest#setEnqueueTime(long)
+	 */
+	@Override
+	public void setEnqueueTime(final long time) {
+		this._enqueueTime = time;
+	}
+
 	/**
 	 * Return channel
 	 * 
@@ -105,13 +187,31 @@ public class NIOClientRequest implements ClientRequest {
 		return this._dataChannel;
 	}
 
+	/**
+	 * Return cache key
+	 * 
+	 * @return key of request in responses cache or null
+	 */
+	protected DuplicatesCache.Key getCacheKey() {
+		return this._cacheKey;
+	}
+
 	/**
 	 * Return cashed shared secret
 	 * 
 	 * @return secret
 	 */
 	protected String getSecret() {
-		return this._secret;
+		return this._client.getSecret();
+	}
+
+	/**
+	 * Return configured entry of client
+	 * 
+	 * @return entry of client, which matched address of request
+	 */
+	protected ClientSecret getClient() {
+		return this._client;
 	}
 
 	/**
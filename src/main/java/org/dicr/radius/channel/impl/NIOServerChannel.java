@@ -4,18 +4,26 @@
 package org.dicr.radius.channel.impl;
 
 import java.io.*;
+import java.lang.reflect.*;
 import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.management.openmbean.*;
 
 import org.apache.log4j.*;
+import org.dicr.radius.attribute.*;
 import org.dicr.radius.channel.*;
 import org.dicr.radius.codec.*;
 import org.dicr.radius.codec.impl.*;
 import org.dicr.radius.exc.*;
 import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
 import org.dicr.radius.server.impl.*;
+import org.dicr.radius.util.*;
 
 /**
  * NonBlocking Server Channel.
@@ -23,28 +31,130 @@ import org.dicr.radius.server.impl.*;
  * This server channel use NonBlokingIO {@link DatagramChannel} to read packets from {@link DatagramSocket}. It can be
  * used by {@link DefaultRadiusServer} to listen many ports simulaniusly.
  * </P>
+ * <P>
+ * Channel runs <CODE>reactorsCount</CODE> socket listener threads (reactors). Each reactor has it's own
+ * {@link Selector}, so received datagrams are decoded in parallel by several threads. If runtime supports
+ * <CODE>SO_REUSEPORT</CODE>, each reactor listen own sockets, bound on the same addresses, and kernel distribute
+ * datagrams between them. Otherwise sockets are shared by all reactors.
+ * </P>
+ * <P>
+ * Responses are not sent by the handler threads. They are encoded and put to the outbound queue of the socket, which is
+ * drained by the reactor owning this socket.
+ * </P>
+ * <P>
+ * Sent responses are stored in {@link DuplicatesCache}, so retransmitted requests are answered by reactor without
+ * decoding and handling them again (RFC 5080). Retransmissions of requests, which are still handled, are ignored.
+ * </P>
+ * <P>
+ * Status-Server requests (RFC 5997) are answered by reactor with {@link StatusResponder}, so they are not put to queues
+ * of server. If responder is not configured, they are passed to server as other requests.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 061109
  */
-public class NIOServerChannel implements ServerChannel {
+public class NIOServerChannel implements ServerChannel, NIOServerChannelMBean {
 	/** Logger */
 	protected static final Logger log = Logger.getLogger(NIOServerChannel.class);
 
+	/** Maximum number of token buckets of client addresses */
+	private static final int MAX_ADDRESS_BUCKETS = 65536;
+
+	/** Minimal interval between removals of full buckets, nanoseconds */
+	private static final long BUCKETS_SWEEP_INTERVAL = 1000000000L;
+
 	/** Listeners */
-	private final Set<ServerChannelListener> listeners = new HashSet<ServerChannelListener>();
+	private final Set<ServerChannelListener> listeners = new CopyOnWriteArraySet<ServerChannelListener>();
 
 	/** Ports */
 	private final Set<InetSocketAddress> addresses = new HashSet<InetSocketAddress>();
 
-	/** Shared secrets */
-	private final Map<InetAddress, String> secrets = new Hashtable<InetAddress, String>();
+	/** Configured clients by prefix */
+	private final Map<String, ClientSecret> secretsConfig = new LinkedHashMap<String, ClientSecret>();
+
+	/** Clients table, replaced on each change */
+	private volatile AddressTrie<ClientSecret> secrets = new AddressTrie<ClientSecret>();
+
+	/** Default rate limit of each client address, requests per second */
+	private volatile double defaultRate = 0;
+
+	/** Default burst of requests from each client address */
+	private volatile int defaultBurst = 100;
+
+	/** Token buckets of client addresses, limited by MAX_ADDRESS_BUCKETS */
+	private final ConcurrentMap<InetAddress, ClientBucket> addressBuckets = new ConcurrentHashMap<InetAddress, ClientBucket>();
+
+	/** Token buckets of configured client entries, shared by addresses, which have no own bucket */
+	private final ConcurrentMap<ClientSecret, ClientBucket> sharedBuckets = new ConcurrentHashMap<ClientSecret, ClientBucket>();
+
+	/** Token buckets of entry rate limits */
+	private final ConcurrentMap<ClientSecret, ClientBucket> entryBuckets = new ConcurrentHashMap<ClientSecret, ClientBucket>();
+
+	/** Time of last removal of full buckets */
+	private final AtomicLong bucketsSweepTime = new AtomicLong(System.nanoTime());
+
+	/** Requests dropped by rate limit */
+	private final AtomicLong rateLimitDrops = new AtomicLong(0);
+
+	/** Default timeout of client requests */
+	private volatile long defaultRequestTimeout = 0;
 
 	/** Codec */
-	private RadiusCodec codec = new RFCCodec();
+	private volatile RadiusCodec codec = new RFCCodec();
+
+	/** Validator of received packets */
+	private volatile PacketValidator validator = new RFCPacketValidator();
+
+	/** Invalid packets by reason */
+	private final AtomicLongArray invalidPackets = new AtomicLongArray(PacketValidator.REASONS_COUNT);
+
+	/** Counters of configured client entries by prefix */
+	private final ConcurrentMap<String, ClientCounters> counters = new ConcurrentHashMap<String, ClientCounters>();
+
+	/** Check authenticator of accounting requests */
+	private volatile boolean verifyAccountingAuthenticator = false;
+
+	/** Responder to Status-Server requests */
+	private volatile StatusResponder statusResponder = new StatusResponder();
+
+	/** Capture of datagrams, null if disabled */
+	private volatile PacketCapture capture = null;
+
+	/** Number of socket listener threads */
+	private int reactorsCount = 1;
+
+	/** Maximum number of datagrams received from channel at once */
+	private volatile int receiveBatch = 32;
+
+	/** Socket listener threads */
+	private final List<SocketListenerThread> threads = new ArrayList<SocketListenerThread>();
 
-	/** Socket listener thread */
-	private SocketListenerThread thread = null;
+	/** Opened channels */
+	private final Collection<DatagramChannel> openedChannels = new ArrayList<DatagramChannel>();
+
+	/** Index of reactor, listening channel with SO_REUSEPORT. Shared channels are not in map. */
+	private final Map<DatagramChannel, Integer> channelReactors = new HashMap<DatagramChannel, Integer>();
+
+	/** Outbound queues of opened channels */
+	private final Map<DatagramChannel, OutboundQueue> outboundQueues = new ConcurrentHashMap<DatagramChannel, OutboundQueue>();
+
+	/** Pool of direct buffers to encode responses */
+	private final Queue<ByteBuffer> responseBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	/** Number of buffers in pool */
+	private final AtomicInteger responseBuffersCount = new AtomicInteger(0);
+
+	/** Maximum number of buffers in pool */
+	private volatile int maxResponseBuffers = 1024;
+
+	/** Maximum number of cached responses */
+	private int responseCacheSize = 10000;
+
+	/** Timeout of cached responses */
+	private long responseCacheTimeout = 30000;
+
+	/** Responses cache, null if disabled */
+	private volatile DuplicatesCache responseCache = new DuplicatesCache(this.responseCacheSize, this.responseCacheTimeout);
 
 	/**
 	 * Constructor
@@ -56,108 +166,925 @@ public class NIOServerChannel implements ServerChannel {
 	/**
 	 * Set shared secrets.
 	 * <P>
-	 * Shared secrets used to encode/decode packets by codec.
+	 * Shared secrets used to encode/decode packets by codec. Secrets are added to already configured. Client address is
+	 * matched to the longest configured prefix.
 	 * </P>
 	 * 
-	 * @param sharedSecrets shared secrets for communicate with clients. Key is the hostname of client and value is se
-	 *            secret.
+	 * @param sharedSecrets shared secrets for communicate with clients. Key is the hostname, address or network prefix
+	 *            (<CODE>address/length</CODE>) of clients and value is secret.
 	 * @throws UnknownHostException if client host resolve error
 	 */
 	public void setSharedSecrets(final Map<String, String> sharedSecrets) throws UnknownHostException {
 		if (sharedSecrets == null) throw new IllegalArgumentException("null shared secrets");
 		synchronized (this) {
-			final Iterator<String> keyIterator = sharedSecrets.keySet().iterator();
-			while (keyIterator.hasNext()) {
-				final String addr = keyIterator.next();
-				if (addr == null) throw new IllegalArgumentException("null address in map");
-				final String secret = sharedSecrets.get(addr);
-				if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret in map");
-				this.secrets.put(InetAddress.getByName(addr), secret);
-			}
+			final Map<String, ClientSecret> config = new LinkedHashMap<String, ClientSecret>(this.secretsConfig);
+			NIOServerChannel.putSharedSecrets(config, sharedSecrets);
+			this.publishClientSecrets(config);
 		}
 		NIOServerChannel.log.debug("configured " + sharedSecrets.size() + " shared secrets");
 	}
 
+	/**
+	 * Reload shared secrets.
+	 * <P>
+	 * All configured clients are replaced by new. Table of secrets is replaced atomically, so packets receiving is not
+	 * paused and each packet see either old or new secrets.
+	 * </P>
+	 * 
+	 * @param sharedSecrets shared secrets for communicate with clients. Key is the hostname, address or network prefix
+	 *            (<CODE>address/length</CODE>) of clients and value is secret.
+	 * @throws UnknownHostException if client host resolve error
+	 */
+	public void reloadSharedSecrets(final Map<String, String> sharedSecrets) throws UnknownHostException {
+		if (sharedSecrets == null) throw new IllegalArgumentException("null shared secrets");
+		synchronized (this) {
+			final Map<String, ClientSecret> config = new LinkedHashMap<String, ClientSecret>();
+			NIOServerChannel.putSharedSecrets(config, sharedSecrets);
+			this.publishClientSecrets(config);
+		}
+		NIOServerChannel.log.debug("reloaded " + sharedSecrets.size() + " shared secrets");
+	}
+
+	/**
+	 * Set clients.
+	 * <P>
+	 * Clients are added to already configured. Client address is matched to the longest configured prefix.
+	 * </P>
+	 * 
+	 * @param clients configuration of clients
+	 * @throws UnknownHostException if client host resolve error
+	 */
+	public void setClientSecrets(final Collection<ClientSecret> clients) throws UnknownHostException {
+		if (clients == null) throw new IllegalArgumentException("null clients");
+		synchronized (this) {
+			final Map<String, ClientSecret> config = new LinkedHashMap<String, ClientSecret>(this.secretsConfig);
+			NIOServerChannel.putClientSecrets(config, clients);
+			this.publishClientSecrets(config);
+		}
+		NIOServerChannel.log.debug("configured " + clients.size() + " clients");
+	}
+
+	/**
+	 * Reload clients.
+	 * <P>
+	 * All configured clients are replaced by new. Table of clients is replaced atomically, so packets receiving is not
+	 * paused and each packet see either old or new configuration.
+	 * </P>
+	 * 
+	 * @param clients configuration of clients
+	 * @throws UnknownHostException if client host resolve error
+	 */
+	public void reloadClientSecrets(final Collection<ClientSecret> clients) throws UnknownHostException {
+		if (clients == null) throw new IllegalArgumentException("null clients");
+		synchronized (this) {
+			final Map<String, ClientSecret> config = new LinkedHashMap<String, ClientSecret>();
+			NIOServerChannel.putClientSecrets(config, clients);
+			this.publishClientSecrets(config);
+		}
+		NIOServerChannel.log.debug("reloaded " + clients.size() + " clients");
+	}
+
 	/**
 	 * Set shared secret
 	 * 
-	 * @param address host name or ip-address
+	 * @param address host name, ip-address or network prefix (<CODE>address/length</CODE>)
 	 * @param secret shared secret to use with this address
 	 * @throws UnknownHostException host name is unknown
 	 */
 	public void setSharedSecret(final String address, final String secret) throws UnknownHostException {
 		if (address == null) throw new IllegalArgumentException("null address");
 		if (secret == null) throw new IllegalArgumentException("null shared secret");
-		final InetAddress addr = InetAddress.getByName(address);
 		synchronized (this) {
-			this.secrets.put(addr, secret);
+			final Map<String, ClientSecret> config = new LinkedHashMap<String, ClientSecret>(this.secretsConfig);
+			config.put(address, new ClientSecret(address, secret));
+			this.publishClientSecrets(config);
 		}
 		NIOServerChannel.log.debug("configured shared secret for address: " + address);
 	}
 
 	/**
-	 * Return secret for address.
-	 * 
-	 * @param address address of client
-	 * @return shared secret for this client
+	 * Put shared secrets to configuration
+	 * 
+	 * @param config configuration
+	 * @param sharedSecrets shared secrets by prefix
+	 */
+	private static void putSharedSecrets(final Map<String, ClientSecret> config, final Map<String, String> sharedSecrets) {
+		for (final Map.Entry<String, String> entry : sharedSecrets.entrySet()) {
+			if (entry.getKey() == null) throw new IllegalArgumentException("null address in map");
+			config.put(entry.getKey(), new ClientSecret(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	/**
+	 * Put clients to configuration
+	 * 
+	 * @param config configuration
+	 * @param clients clients
+	 */
+	private static void putClientSecrets(final Map<String, ClientSecret> config, final Collection<ClientSecret> clients) {
+		for (final ClientSecret client : clients) {
+			if (client == null) throw new IllegalArgumentException("null client");
+			if (client.getPrefix() == null) throw new IllegalArgumentException("null prefix of client");
+			if (client.getSecret() == null) throw new IllegalArgumentException("null secret of client: " + client);
+			config.put(client.getPrefix(), new ClientSecret(client));
+		}
+	}
+
+	/**
+	 * Build and publish new table of clients.
+	 * <P>
+	 * Must be called in synchronized block. Configuration is not changed if table can not be built.
+	 * </P>
+	 * 
+	 * @param config new configuration
+	 * @throws UnknownHostException if client host resolve error
+	 */
+	private void publishClientSecrets(final Map<String, ClientSecret> config) throws UnknownHostException {
+		final AddressTrie<ClientSecret> table = new AddressTrie<ClientSecret>(config);
+		this.secretsConfig.clear();
+		this.secretsConfig.putAll(config);
+		this.secrets = table;
+		// buckets, created concurrently for old configuration, are replaced on next request
+		this.addressBuckets.clear();
+		this.sharedBuckets.clear();
+		this.entryBuckets.clear();
+		// counters of entries, which are still configured, are kept
+		this.counters.keySet().retainAll(config.keySet());
+	}
+
+	/**
+	 * Return configuration of client.
+	 * <P>
+	 * Called by reactor threads for each packet without locking.
+	 * </P>
+	 * 
+	 * @param address address of client
+	 * @return configuration of client or null if client is unknown
+	 */
+	protected ClientSecret getClientSecret(final InetAddress address) {
+		if (address == null) throw new IllegalArgumentException("null address");
+		return this.secrets.get(address);
+	}
+
+	/**
+	 * Return secret for address.
+	 * 
+	 * @param address address of client
+	 * @return shared secret for this client
+	 */
+	protected String getSharedSecret(final InetAddress address) {
+		final ClientSecret client = this.getClientSecret(address);
+		return client != null ? client.getSecret() : null;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getSharedSecretsCount()
+	 */
+	@Override
+	public int getSharedSecretsCount() {
+		return this.secrets.size();
+	}
+
+	/**
+	 * Set default rate limit.
+	 * <P>
+	 * Used for clients without configured rate. Default is 0 (unlimited).
+	 * </P>
+	 * 
+	 * @param rate maximum average rate of requests from each client address per second, 0 to disable limit
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setDefaultRate(double)
+	 */
+	@Override
+	public void setDefaultRate(final double rate) {
+		if (rate < 0) throw new IllegalArgumentException("defaultRate: " + rate);
+		this.defaultRate = rate;
+		NIOServerChannel.log.debug("configured default rate limit: " + rate);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getDefaultRate()
+	 */
+	@Override
+	public double getDefaultRate() {
+		return this.defaultRate;
+	}
+
+	/**
+	 * Set default burst.
+	 * <P>
+	 * Used for clients without configured burst. Default is 100.
+	 * </P>
+	 * 
+	 * @param burst maximum burst of requests from each client address
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setDefaultBurst(int)
+	 */
+	@Override
+	public void setDefaultBurst(final int burst) {
+		if (burst < 1) throw new IllegalArgumentException("defaultBurst: " + burst);
+		this.defaultBurst = burst;
+		NIOServerChannel.log.debug("configured default burst: " + burst);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getDefaultBurst()
+	 */
+	@Override
+	public int getDefaultBurst() {
+		return this.defaultBurst;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getRateLimitDrops()
+	 */
+	@Override
+	public long getRateLimitDrops() {
+		return this.rateLimitDrops.get();
+	}
+
+	/**
+	 * Set default request timeout.
+	 * <P>
+	 * Used for clients without configured timeout. Time, while client wait for response, including retransmissions.
+	 * Requests, which are not handled until deadline, are dropped by server queue, so under backlog server does not
+	 * spend time for responses, which client does not wait anymore. Default is 0, which mean requests have no deadline.
+	 * </P>
+	 * 
+	 * @param millis timeout in milliseconds
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setDefaultRequestTimeout(long)
+	 */
+	@Override
+	public void setDefaultRequestTimeout(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("defaultRequestTimeout: " + millis);
+		this.defaultRequestTimeout = millis;
+		NIOServerChannel.log.debug("configured default request timeout: " + millis);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getDefaultRequestTimeout()
+	 */
+	@Override
+	public long getDefaultRequestTimeout() {
+		return this.defaultRequestTimeout;
+	}
+
+	/**
+	 * Check rate limit of client.
+	 * <P>
+	 * Called by reactor threads before packet decoding. Each client address has own bucket, so one client can not
+	 * exhaust limit of other clients of network prefix. Number of address buckets is limited: when limit is reached,
+	 * full buckets are removed, because they are not used since refill, and addresses, which still have no place, share
+	 * bucket of client entry, so spoofed source addresses do not get own burst. Requests, accepted by bucket of address,
+	 * are checked by bucket of entry rate limit, if it is configured.
+	 * </P>
+	 * 
+	 * @param client configuration of client
+	 * @param address client address
+	 * @return true if request is accepted, false if it must be dropped
+	 */
+	protected boolean acquireRate(final ClientSecret client, final InetAddress address) {
+		final double rate = client.getRate() > 0 ? client.getRate() : this.defaultRate;
+		final int burst = client.getBurst() > 0 ? client.getBurst() : this.defaultBurst;
+		if (rate > 0) {
+			ClientBucket bucket = this.addressBuckets.get(address);
+			if (bucket == null && this.addressBuckets.size() >= NIOServerChannel.MAX_ADDRESS_BUCKETS) {
+				this.sweepBuckets();
+				if (this.addressBuckets.size() >= NIOServerChannel.MAX_ADDRESS_BUCKETS) bucket = NIOServerChannel
+				        .getBucket(this.sharedBuckets, client, rate, burst);
+			}
+			if (bucket == null || bucket.rate != rate || bucket.burst != burst) bucket = NIOServerChannel.getBucket(
+			        this.addressBuckets, address, rate, burst);
+			if (!bucket.tryAcquire()) {
+				this.rateLimitDrops.incrementAndGet();
+				return false;
+			}
+		}
+		final double entryRate = client.getEntryRate();
+		if (entryRate > 0
+		        && !NIOServerChannel.getBucket(this.entryBuckets, client, entryRate,
+		                client.getEntryBurst() > 0 ? client.getEntryBurst() : burst).tryAcquire()) {
+			this.rateLimitDrops.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return token bucket, creating it if bucket is absent or has other limits
+	 * 
+	 * @param buckets buckets map
+	 * @param key key of bucket
+	 * @param rate rate of requests per second
+	 * @param burst burst of requests
+	 * @return bucket
+	 */
+	private static <K> ClientBucket getBucket(final ConcurrentMap<K, ClientBucket> buckets, final K key,
+	        final double rate, final int burst) {
+		final ClientBucket bucket = buckets.get(key);
+		if (bucket != null && bucket.rate == rate && bucket.burst == burst) return bucket;
+		final ClientBucket created = new ClientBucket(rate, burst);
+		if (bucket == null) {
+			final ClientBucket existing = buckets.putIfAbsent(key, created);
+			if (existing != null) return existing;
+		} else {
+			buckets.put(key, created);
+		}
+		return created;
+	}
+
+	/**
+	 * Remove full buckets of client addresses.
+	 * <P>
+	 * Full bucket is equal to new one, so addresses do not get additional burst. Buckets are scanned not often than
+	 * BUCKETS_SWEEP_INTERVAL, so flood from many addresses does not scan buckets for each request.
+	 * </P>
+	 */
+	private void sweepBuckets() {
+		final long now = System.nanoTime();
+		final long time = this.bucketsSweepTime.get();
+		if (now - time < NIOServerChannel.BUCKETS_SWEEP_INTERVAL || !this.bucketsSweepTime.compareAndSet(time, now)) return;
+		int removed = 0;
+		for (final Iterator<ClientBucket> it = this.addressBuckets.values().iterator(); it.hasNext();) {
+			if (it.next().isFull()) {
+				it.remove();
+				removed++;
+			}
+		}
+		if (NIOServerChannel.log.isDebugEnabled()) NIOServerChannel.log.debug("removed full buckets of addresses: "
+		        + removed + ", remaining: " + this.addressBuckets.size());
+	}
+
+	/**
+	 * Set listening addresses
+	 * <P>
+	 * Must restart to activate changes.
+	 * </P>
+	 * 
+	 * @param listenAdresses socket addresses to listen
+	 */
+	public void setListenAddresses(final Set<InetSocketAddress> listenAdresses) {
+		if (listenAdresses == null) throw new IllegalArgumentException("null addresses");
+		synchronized (this) {
+			this.addresses.clear();
+			this.addresses.addAll(listenAdresses);
+		}
+		NIOServerChannel.log.debug("configured " + listenAdresses.size() + " listening addresses");
+	}
+
+	/**
+	 * Return listen addresses
+	 * 
+	 * @return socket addresses which listen
+	 */
+	public Set<InetSocketAddress> getListenAddresses() {
+		synchronized (this) {
+			return new HashSet<InetSocketAddress>(this.addresses);
+		}
+	}
+
+	/**
+	 * Set number of socket listener threads.
+	 * <P>
+	 * Each thread receive and decode packets from own sockets, if <CODE>SO_REUSEPORT</CODE> is supported, or from
+	 * all listening sockets. Usually it is number of processors. Default is 1. Must restart to activate changes.
+	 * </P>
+	 * 
+	 * @param count number of reactor threads
+	 */
+	public void setReactorsCount(final int count) {
+		if (count < 1) throw new IllegalArgumentException("reactorsCount: " + count);
+		synchronized (this) {
+			this.reactorsCount = count;
+		}
+		NIOServerChannel.log.debug("configured " + count + " reactor threads");
+	}
+
+	/**
+	 * Return number of socket listener threads
+	 * 
+	 * @return number of reactor threads
+	 */
+	@Override
+	public int getReactorsCount() {
+		synchronized (this) {
+			return this.reactorsCount;
+		}
+	}
+
+	/**
+	 * Set receive batch.
+	 * <P>
+	 * Reactor receive datagrams from ready channel until it is empty or batch limit is reached, and then fire all
+	 * received requests to listeners at once. Default is 32.
+	 * </P>
+	 * 
+	 * @param batch maximum number of datagrams received from channel at once
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setReceiveBatch(int)
+	 */
+	@Override
+	public void setReceiveBatch(final int batch) {
+		if (batch < 1) throw new IllegalArgumentException("receiveBatch: " + batch);
+		this.receiveBatch = batch;
+		NIOServerChannel.log.debug("configured receive batch: " + batch);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getReceiveBatch()
+	 */
+	@Override
+	public int getReceiveBatch() {
+		return this.receiveBatch;
+	}
+
+	/**
+	 * Set maximum number of pooled response buffers.
+	 * <P>
+	 * Responses are encoded to direct buffers, which are sent by reactor without copy and returned to pool. Buffers over
+	 * maximum are released to garbage collector. Default is 1024.
+	 * </P>
+	 * 
+	 * @param count maximum number of buffers in pool, 0 to disable pool
+	 */
+	public void setMaxResponseBuffers(final int count) {
+		if (count < 0) throw new IllegalArgumentException("maxResponseBuffers: " + count);
+		this.maxResponseBuffers = count;
+		NIOServerChannel.log.debug("configured maximum response buffers: " + count);
+	}
+
+	/**
+	 * Return maximum number of pooled response buffers
+	 * 
+	 * @return maximum number of buffers in pool
+	 */
+	public int getMaxResponseBuffers() {
+		return this.maxResponseBuffers;
+	}
+
+	/**
+	 * Take response buffer from pool or allocate new
+	 * 
+	 * @return cleared direct buffer of maximum packet length
+	 */
+	private ByteBuffer acquireResponseBuffer() {
+		final int length = this.getCodec().getPacketMaxLength();
+		ByteBuffer buf = null;
+		while ((buf = this.responseBuffers.poll()) != null) {
+			this.responseBuffersCount.decrementAndGet();
+			// codec can be changed
+			if (buf.capacity() >= length) {
+				buf.clear();
+				return buf;
+			}
+		}
+		return ByteBuffer.allocateDirect(length);
+	}
+
+	/**
+	 * Return response buffer to pool
+	 * 
+	 * @param buf buffer, which is not used more
+	 */
+	protected void releaseResponseBuffer(final ByteBuffer buf) {
+		if (this.responseBuffersCount.incrementAndGet() <= this.maxResponseBuffers) this.responseBuffers.offer(buf);
+		else this.responseBuffersCount.decrementAndGet();
+	}
+
+	/**
+	 * Set maximum number of cached responses.
+	 * <P>
+	 * Cache is cleared after change. Default is 10000. To detect all retransmissions size must be not less than
+	 * requests rate multiplied by <CODE>responseCacheTimeout</CODE> (600000 for 20000 requests per second and 30 s),
+	 * otherwise responses are evicted before expiration and counted by {@link #getResponseCacheEvictions()}. Responses,
+	 * removed by timeout, are counted separately by {@link #getResponseCacheExpirations()}.
+	 * </P>
+	 * 
+	 * @param size maximum number of cached responses, 0 to disable cache
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setResponseCacheSize(int)
+	 */
+	@Override
+	public void setResponseCacheSize(final int size) {
+		if (size < 0) throw new IllegalArgumentException("responseCacheSize: " + size);
+		synchronized (this) {
+			this.responseCacheSize = size;
+			this.responseCache = size > 0 ? new DuplicatesCache(size, this.responseCacheTimeout) : null;
+		}
+		NIOServerChannel.log.debug("configured response cache size: " + size);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheSize()
+	 */
+	@Override
+	public int getResponseCacheSize() {
+		synchronized (this) {
+			return this.responseCacheSize;
+		}
+	}
+
+	/**
+	 * Set timeout of cached responses.
+	 * <P>
+	 * Cache is cleared after change. Default is 30000 ms.
+	 * </P>
+	 * 
+	 * @param timeout timeout in milliseconds
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setResponseCacheTimeout(long)
+	 */
+	@Override
+	public void setResponseCacheTimeout(final long timeout) {
+		if (timeout < 1) throw new IllegalArgumentException("responseCacheTimeout: " + timeout);
+		synchronized (this) {
+			this.responseCacheTimeout = timeout;
+			if (this.responseCacheSize > 0) this.responseCache = new DuplicatesCache(this.responseCacheSize, timeout);
+		}
+		NIOServerChannel.log.debug("configured response cache timeout: " + timeout);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheTimeout()
+	 */
+	@Override
+	public long getResponseCacheTimeout() {
+		synchronized (this) {
+			return this.responseCacheTimeout;
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheEntries()
+	 */
+	@Override
+	public int getResponseCacheEntries() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getSize() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheHits()
+	 */
+	@Override
+	public long getResponseCacheHits() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getHits() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheInProgress()
+	 */
+	@Override
+	public long getResponseCacheInProgress() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getInProgress() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheMisses()
+	 */
+	@Override
+	public long getResponseCacheMisses() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getMisses() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheEvictions()
+	 */
+	@Override
+	public long getResponseCacheEvictions() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getEvictions() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getResponseCacheExpirations()
+	 */
+	@Override
+	public long getResponseCacheExpirations() {
+		final DuplicatesCache cache = this.responseCache;
+		return cache != null ? cache.getExpirations() : 0;
+	}
+
+	/**
+	 * Set capture of datagrams.
+	 * <P>
+	 * If set, all received and sent datagrams are copied to capture ring, which can be dumped to pcap file. Default is
+	 * null (disabled).
+	 * </P>
+	 * 
+	 * @param packetCapture capture or null to disable capture
+	 */
+	public void setCapture(final PacketCapture packetCapture) {
+		this.capture = packetCapture;
+		NIOServerChannel.log.debug("configured capture of datagrams: " + packetCapture);
+	}
+
+	/**
+	 * Return capture of datagrams
+	 * 
+	 * @return capture or null if disabled
+	 */
+	public PacketCapture getCapture() {
+		return this.capture;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#setCaptureSize(int)
+	 */
+	@Override
+	public void setCaptureSize(final int count) {
+		if (count < 0) throw new IllegalArgumentException("captureSize: " + count);
+		this.setCapture(count > 0 ? new PacketCapture(count) : null);
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getCaptureSize()
+	 */
+	@Override
+	public int getCaptureSize() {
+		final PacketCapture packetCapture = this.capture;
+		return packetCapture != null ? packetCapture.getCapacity() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getCapturedPackets()
+	 */
+	@Override
+	public long getCapturedPackets() {
+		final PacketCapture packetCapture = this.capture;
+		return packetCapture != null ? packetCapture.getCapturedCount() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#dumpCapture(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public int dumpCapture(final String fileName, final String clientAddress) throws IOException {
+		if (fileName == null || fileName.isEmpty()) throw new IllegalArgumentException("empty file name");
+		final PacketCapture packetCapture = this.capture;
+		if (packetCapture == null) throw new IllegalStateException("capture is disabled");
+		final InetAddress filter = clientAddress != null && !clientAddress.isEmpty() ? InetAddress
+		        .getByName(clientAddress) : null;
+		return packetCapture.dump(new File(fileName), filter);
+	}
+
+	/**
+	 * Set codec.
+	 * 
+	 * @param radiusCodec codec to encode/decode packets
+	 */
+	public void setCodec(final RadiusCodec radiusCodec) {
+		if (radiusCodec == null) throw new IllegalArgumentException("null codec");
+		this.codec = radiusCodec;
+		NIOServerChannel.log.debug("configured radius codec: " + radiusCodec);
+	}
+
+	/**
+	 * Return codec.
+	 * 
+	 * @return codec with used to encode/decode packets
+	 */
+	public RadiusCodec getCodec() {
+		return this.codec;
+	}
+
+	/**
+	 * Set packet validator.
+	 * <P>
+	 * Validator check structure of received datagrams before decoding. Default is {@link RFCPacketValidator}.
+	 * </P>
+	 * 
+	 * @param packetValidator validator of received packets
+	 */
+	public void setValidator(final PacketValidator packetValidator) {
+		if (packetValidator == null) throw new IllegalArgumentException("null validator");
+		this.validator = packetValidator;
+		NIOServerChannel.log.debug("configured packet validator: " + packetValidator);
+	}
+
+	/**
+	 * Return packet validator
+	 * 
+	 * @return validator of received packets
+	 */
+	public PacketValidator getValidator() {
+		return this.validator;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getInvalidPacketsCount()
+	 */
+	@Override
+	public long getInvalidPacketsCount() {
+		long count = 0;
+		for (int i = 0; i < this.invalidPackets.length(); i++)
+			count += this.invalidPackets.get(i);
+		return count;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getInvalidPacketsReport()
+	 */
+	@Override
+	public String[] getInvalidPacketsReport() {
+		final PacketValidator packetValidator = this.validator;
+		final List<String> report = new ArrayList<String>();
+		for (int i = 0; i < this.invalidPackets.length(); i++) {
+			final long count = this.invalidPackets.get(i);
+			if (count > 0) report.add(packetValidator.getReasonText(i) + ": " + count);
+		}
+		return report.toArray(new String[report.size()]);
+	}
+
+	/**
+	 * Set verification of accounting authenticator.
+	 * <P>
+	 * If enabled, Accounting-Request with authenticator, which does not match shared secret, is dropped and counted as
+	 * bad authenticator (RFC 2866). Default is disabled.
+	 * </P>
+	 * 
+	 * @param verify true to check authenticator of accounting requests
+	 */
+	public void setVerifyAccountingAuthenticator(final boolean verify) {
+		this.verifyAccountingAuthenticator = verify;
+		NIOServerChannel.log.debug("configured verification of accounting authenticator: " + verify);
+	}
+
+	/**
+	 * Return verification of accounting authenticator
+	 * 
+	 * @return true if authenticator of accounting requests is checked
+	 */
+	public boolean isVerifyAccountingAuthenticator() {
+		return this.verifyAccountingAuthenticator;
+	}
+
+	/**
+	 * Set responder to Status-Server requests
+	 * 
+	 * @param responder responder, which answer Status-Server requests by reactor, or null to pass them to server
+	 */
+	public void setStatusResponder(final StatusResponder responder) {
+		this.statusResponder = responder;
+		NIOServerChannel.log.debug("configured status responder: " + responder);
+	}
+
+	/**
+	 * Return responder to Status-Server requests
+	 * 
+	 * @return responder or null
+	 */
+	public StatusResponder getStatusResponder() {
+		return this.statusResponder;
+	}
+
+	/**
+	 * Return counters of configured client entry, creating them if not exists.
+	 * <P>
+	 * Counters are kept for each configured entry (prefix), not for each source address, so number of counters is
+	 * limited by configuration and spoofed source addresses of network prefix do not create new counters. Counters of
+	 * entry are kept while its prefix is configured.
+	 * </P>
+	 * 
+	 * @param client configured entry of client
+	 * @return counters of entry
+	 */
+	protected ClientCounters getCounters(final ClientSecret client) {
+		ClientCounters clientCounters = this.counters.get(client.getPrefix());
+		if (clientCounters == null) {
+			final ClientCounters created = new ClientCounters();
+			clientCounters = this.counters.putIfAbsent(client.getPrefix(), created);
+			if (clientCounters == null) clientCounters = created;
+		}
+		return clientCounters;
+	}
+
+	/**
+	 * Return counters of client
+	 * 
+	 * @param address address of client
+	 * @return counters of configured entry, which matches address, or null if client is unknown or no requests was
+	 *         received from it
+	 */
+	public ClientCounters getClientCounters(final InetAddress address) {
+		final ClientSecret client = this.getClientSecret(address);
+		return client != null ? this.counters.get(client.getPrefix()) : null;
+	}
+
+	/**
+	 * Return snapshot of counters of all clients. Snapshot is taken without stopping of traffic.
+	 * 
+	 * @return values of counters by ordinal of {@link ClientCounters.Counter} for prefix of each configured entry
+	 */
+	public Map<String, long[]> getCountersSnapshot() {
+		final Map<String, long[]> snapshot = new HashMap<String, long[]>();
+		for (final Map.Entry<String, ClientCounters> entry : this.counters.entrySet())
+			snapshot.put(entry.getKey(), entry.getValue().snapshot());
+		return snapshot;
+	}
+
+	/**
+	 * Return sum of counters of all clients
+	 * 
+	 * @param snapshot snapshot of counters of clients
+	 * @return total values of counters by ordinal of {@link ClientCounters.Counter}
+	 */
+	private static long[] getTotal(final Map<String, long[]> snapshot) {
+		final long[] total = new long[ClientCounters.Counter.values().length];
+		for (final long[] values : snapshot.values())
+			for (int i = 0; i < total.length; i++)
+				total[i] += values[i];
+		return total;
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getTotalCounters()
+	 */
+	@Override
+	public CompositeData getTotalCounters() {
+		try {
+			return NIOServerChannel.toCompositeData("total", NIOServerChannel.getTotal(this.getCountersSnapshot()));
+		} catch (final OpenDataException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.channel.impl.NIOServerChannelMBean#getCountersTable()
 	 */
-	protected String getSharedSecret(final InetAddress address) {
-		if (address == null) throw new IllegalArgumentException("null address");
-		synchronized (this) {
-			return this.secrets.get(address);
+	@Override
+	public TabularData getCountersTable() {
+		try {
+			final Map<String, long[]> snapshot = this.getCountersSnapshot();
+			final TabularData table = new TabularDataSupport(new TabularType("ClientCountersTable",
+			        "RADIUS server counters of clients", NIOServerChannel.getCountersType(), new String[] { "client" }));
+			for (final Map.Entry<String, long[]> entry : snapshot.entrySet())
+				table.put(NIOServerChannel.toCompositeData(entry.getKey(), entry.getValue()));
+			return table;
+		} catch (final OpenDataException ex) {
+			throw new IllegalStateException(ex);
 		}
 	}
 
 	/**
-	 * Set listening addresses
-	 * <P>
-	 * Must restart to activate changes.
-	 * </P>
+	 * Return open type of client counters
 	 * 
-	 * @param listenAdresses socket addresses to listen
+	 * @return type of counters
+	 * @throws OpenDataException if error creating type
 	 */
-	public void setListenAddresses(final Set<InetSocketAddress> listenAdresses) {
-		if (listenAdresses == null) throw new IllegalArgumentException("null addresses");
-		synchronized (this) {
-			this.addresses.clear();
-			this.addresses.addAll(listenAdresses);
-		}
-		NIOServerChannel.log.debug("configured " + listenAdresses.size() + " listening addresses");
+	private static CompositeType getCountersType() throws OpenDataException {
+		final String[] names = NIOServerChannel.getCountersNames();
+		final OpenType<?>[] openTypes = new OpenType<?>[names.length];
+		openTypes[0] = SimpleType.STRING;
+		for (int i = 1; i < names.length; i++)
+			openTypes[i] = SimpleType.LONG;
+		return new CompositeType("ClientCounters", "RADIUS server counters of client", names, names, openTypes);
 	}
 
 	/**
-	 * Return listen addresses
+	 * Return names of items of client counters
 	 * 
-	 * @return socket addresses which listen
+	 * @return name of client and names of counters by ordinal
 	 */
-	public Set<InetSocketAddress> getListenAddresses() {
-		synchronized (this) {
-			return new HashSet<InetSocketAddress>(this.addresses);
-		}
+	private static String[] getCountersNames() {
+		final ClientCounters.Counter[] types = ClientCounters.Counter.values();
+		final String[] names = new String[types.length + 1];
+		names[0] = "client";
+		for (int i = 0; i < types.length; i++)
+			names[i + 1] = types[i].getName();
+		return names;
 	}
 
 	/**
-	 * Set codec.
+	 * Convert counters to composite data
 	 * 
-	 * @param radiusCodec codec to encode/decode packets
+	 * @param client name of client
+	 * @param values values of counters
+	 * @return composite data of counters
+	 * @throws OpenDataException if error creating data
 	 */
-	public void setCodec(final RadiusCodec radiusCodec) {
-		if (radiusCodec == null) throw new IllegalArgumentException("null codec");
-		synchronized (this) {
-			this.codec = radiusCodec;
-		}
-		NIOServerChannel.log.debug("configured radius codec: " + radiusCodec);
+	private static CompositeData toCompositeData(final String client, final long[] values) throws OpenDataException {
+		final Object[] items = new Object[values.length + 1];
+		items[0] = client;
+		for (int i = 0; i < values.length; i++)
+			items[i + 1] = Long.valueOf(values[i]);
+		return new CompositeDataSupport(NIOServerChannel.getCountersType(), NIOServerChannel.getCountersNames(), items);
 	}
 
 	/**
-	 * Return codec.
-	 * 
-	 * @return codec with used to encode/decode packets
+	 * @see org.dicr.radius.channel.ServerChannel#requestDropped(org.dicr.radius.channel.ClientRequest)
 	 */
-	public RadiusCodec getCodec() {
-		synchronized (this) {
-			return this.codec;
-		}
+	@Override
+	public void requestDropped(final ClientRequest request) {
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (!(request instanceof NIOClientRequest)) return;
+		final NIOClientRequest clientRequest = (NIOClientRequest) request;
+		// request with incorrect attribute, found by lazy decoding, is counted as malformed, as by decoding of packet
+		final AttributesList attributes = clientRequest.getRequestPacket().getAttributes();
+		this.getCounters(clientRequest.getClient()).increment(attributes instanceof LazyAttributesList
+		        && ((LazyAttributesList) attributes).isMalformed() ? ClientCounters.Counter.MALFORMED
+		        : ClientCounters.Counter.DROPS);
+		// retransmissions of dropped request must be handled again
+		final DuplicatesCache cache = this.responseCache;
+		if (cache != null && clientRequest.getCacheKey() != null) cache.cancel(clientRequest.getCacheKey());
 	}
 
 	/**
@@ -168,9 +1095,7 @@ public class NIOServerChannel implements ServerChannel {
 	@Override
     public void addListener(final ServerChannelListener listener) {
 		if (listener == null) throw new IllegalArgumentException("null listener");
-		synchronized (this.listeners) {
-			this.listeners.add(listener);
-		}
+		this.listeners.add(listener);
 	}
 
 	/**
@@ -181,26 +1106,45 @@ public class NIOServerChannel implements ServerChannel {
 	@Override
     public void removeListener(final ServerChannelListener listener) {
 		if (listener == null) throw new IllegalArgumentException("null listener");
-		synchronized (this.listeners) {
-			this.listeners.remove(listener);
-		}
+		this.listeners.remove(listener);
 	}
 
 	/**
 	 * Fire client request to listeners
+	 * <P>
+	 * Called concurrently by reactor threads.
+	 * </P>
 	 * 
 	 * @param request request to fire
 	 */
 	protected void fireClientRequest(final NIOClientRequest request) {
 		if (request == null) throw new IllegalArgumentException("null request");
-		synchronized (this) {
-			for (final ServerChannelListener listener : this.listeners)
-				try {
-					listener.requestReceived(request);
-				} catch (final Throwable th) {
-					NIOServerChannel.log.error("listener cause error on client request", th);
-				}
-		}
+		for (final ServerChannelListener listener : this.listeners)
+			try {
+				listener.requestReceived(request);
+			} catch (final Throwable th) {
+				NIOServerChannel.log.error("listener cause error on client request", th);
+			}
+	}
+
+	/**
+	 * Fire several client requests to listeners at once
+	 * <P>
+	 * Called concurrently by reactor threads.
+	 * </P>
+	 * 
+	 * @param requests requests to fire
+	 */
+	protected void fireClientRequests(final List<ClientRequest> requests) {
+		if (requests == null) throw new IllegalArgumentException("null requests");
+		if (requests.isEmpty()) return;
+		final List<ClientRequest> list = Collections.unmodifiableList(requests);
+		for (final ServerChannelListener listener : this.listeners)
+			try {
+				listener.requestsReceived(list);
+			} catch (final Throwable th) {
+				NIOServerChannel.log.error("listener cause error on client requests", th);
+			}
 	}
 
 	/**
@@ -212,7 +1156,9 @@ public class NIOServerChannel implements ServerChannel {
 	@Override
     public boolean isRunning() {
 		synchronized (this) {
-			return this.thread != null && this.thread.isAlive();
+			for (final SocketListenerThread thread : this.threads)
+				if (thread.isAlive()) return true;
+			return false;
 		}
 	}
 
@@ -226,8 +1172,31 @@ public class NIOServerChannel implements ServerChannel {
 		synchronized (this) {
 			if (this.isRunning()) NIOServerChannel.log.debug("server channel already running");
 			else {
-				this.thread = new SocketListenerThread();
-				this.thread.start();
+				this.threads.clear();
+				this.openChannels();
+				try {
+					for (int i = 0; i < this.reactorsCount; i++)
+						this.threads.add(new SocketListenerThread(i));
+				} catch (final IOException ex) {
+					NIOServerChannel.log.fatal("error creating socket listener thread", ex);
+					for (final SocketListenerThread thread : this.threads)
+						thread.closeSelector();
+					this.threads.clear();
+					this.closeChannels();
+					return;
+				}
+				// assign each channel to the reactor which send it responses
+				int index = 0;
+				for (final DatagramChannel channel : this.openedChannels) {
+					final Integer reactor = this.channelReactors.get(channel);
+					final SocketListenerThread owner = this.threads.get(reactor != null ? reactor.intValue() : index++
+					        % this.threads.size());
+					final OutboundQueue queue = new OutboundQueue(channel, owner);
+					owner.outbound.add(queue);
+					this.outboundQueues.put(channel, queue);
+				}
+				for (final SocketListenerThread thread : this.threads)
+					thread.start();
 			}
 		}
 	}
@@ -242,20 +1211,158 @@ public class NIOServerChannel implements ServerChannel {
 		synchronized (this) {
 			if (!this.isRunning()) NIOServerChannel.log.debug("server channel is already stopped");
 			else {
-				this.thread.interrupt();
-				this.thread = null;
+				for (final SocketListenerThread thread : this.threads)
+					thread.interrupt();
+				this.threads.clear();
+				this.closeChannels();
+			}
+		}
+	}
+
+	/**
+	 * Open channels on listen addresses.
+	 * <P>
+	 * If there are several reactors and runtime supports <CODE>SO_REUSEPORT</CODE>, <CODE>reactorsCount</CODE>
+	 * sockets are bound on each address, one for each reactor. Otherwise one socket is opened on each address and it is
+	 * shared by all reactors.
+	 * </P>
+	 */
+	private void openChannels() {
+		if (this.addresses.isEmpty()) NIOServerChannel.log.error("no addresses configured to listen for requests");
+		else for (final SocketAddress addr : this.addresses) {
+			final List<DatagramChannel> group = new ArrayList<DatagramChannel>();
+			try {
+				if (this.reactorsCount > 1) {
+					for (int i = 0; i < this.reactorsCount; i++) {
+						final DatagramChannel channel = this.openChannel(addr, true);
+						if (channel == null) break;
+						group.add(channel);
+					}
+					if (group.size() < this.reactorsCount) {
+						NIOServerChannel.closeChannels(group);
+						group.clear();
+					}
+				}
+				if (group.isEmpty()) group.add(this.openChannel(addr, false));
+				else for (int i = 0; i < group.size(); i++)
+					this.channelReactors.put(group.get(i), Integer.valueOf(i));
+				this.openedChannels.addAll(group);
+				NIOServerChannel.log.info("listening for radius requests on socket: " + addr
+				        + (group.size() > 1 ? " (" + group.size() + " sockets with SO_REUSEPORT)" : ""));
+			} catch (final IOException ex) {
+				NIOServerChannel.log.error("error opening channel on socket " + addr, ex);
+				NIOServerChannel.closeChannels(group);
+			}
+		}
+	}
+
+	/**
+	 * Open and bind channel
+	 * 
+	 * @param addr address to bind
+	 * @param reusePort bind with <CODE>SO_REUSEPORT</CODE> option
+	 * @return bound channel or null if <CODE>reusePort</CODE> is requested, but not supported
+	 * @throws IOException if error opening channel
+	 */
+	private DatagramChannel openChannel(final SocketAddress addr, final boolean reusePort) throws IOException {
+		final DatagramChannel channel = DatagramChannel.open();
+		try {
+			channel.configureBlocking(false);
+			if (reusePort && !NIOServerChannel.setReusePort(channel)) {
+				channel.close();
+				return null;
+			}
+			// shared socket buffer is drained by all reactors
+			channel.socket().setReceiveBufferSize(this.codec.getPacketMaxLength() * 10
+			        * (reusePort ? 1 : this.reactorsCount));
+			channel.socket().setSendBufferSize(this.codec.getPacketMaxLength() * 10);
+			channel.socket().setTrafficClass(0x1C);
+			channel.socket().bind(addr);
+			return channel;
+		} catch (final IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Enable <CODE>SO_REUSEPORT</CODE> option of channel.
+	 * <P>
+	 * Option is set by reflection, because it is available on newer runtime only.
+	 * </P>
+	 * 
+	 * @param channel channel, which is not bound
+	 * @return true if option is set, false if not supported
+	 */
+	private static boolean setReusePort(final DatagramChannel channel) {
+		try {
+			final Class<?> optionClass = Class.forName("java.net.SocketOption");
+			final Object option = Class.forName("java.net.StandardSocketOptions").getField("SO_REUSEPORT").get(null);
+			final Set<?> supported = (Set<?>) DatagramChannel.class.getMethod("supportedOptions").invoke(channel);
+			if (!supported.contains(option)) return false;
+			DatagramChannel.class.getMethod("setOption", optionClass, Object.class).invoke(channel, option, Boolean.TRUE);
+			return true;
+		} catch (final ClassNotFoundException ex) {
+			return false;
+		} catch (final NoSuchFieldException ex) {
+			return false;
+		} catch (final NoSuchMethodException ex) {
+			return false;
+		} catch (final IllegalAccessException ex) {
+			return false;
+		} catch (final InvocationTargetException ex) {
+			NIOServerChannel.log.debug("error setting SO_REUSEPORT", ex.getCause());
+			return false;
+		}
+	}
+
+	/**
+	 * Close channels quietly
+	 * 
+	 * @param channels channels to close
+	 */
+	private static void closeChannels(final Collection<DatagramChannel> channels) {
+		for (final DatagramChannel channel : channels)
+			try {
+				channel.close();
+			} catch (final Throwable th) {
+				// NOP
+			}
+	}
+
+	/**
+	 * Close opened channels
+	 */
+	private void closeChannels() {
+		for (final DatagramChannel channel : this.openedChannels) {
+			NIOServerChannel.log.debug("closing channel on port " + channel.socket().getLocalPort());
+			try {
+				channel.close();
+			} catch (final Throwable th) {
+				// NOP
 			}
 		}
+		this.openedChannels.clear();
+		this.channelReactors.clear();
+		this.outboundQueues.clear();
 	}
 
 	/**
 	 * Send response to client
+	 * <P>
+	 * Response is encoded in the caller thread and put to the outbound queue of the socket, from which request was
+	 * received. It is sent later by the reactor owning this socket, so caller never blocks.
+	 * </P>
+	 * <P>
+	 * Response is encoded directly to pooled direct buffer, which is sent by reactor without copy. Array copy of
+	 * response is created only to store it in responses cache.
+	 * </P>
 	 * 
 	 * @param responsePacket response packet to send
 	 * @param clientRequest request for which response is sending
 	 * @throws ChannelException error in channel
 	 */
-	protected synchronized void sendResponse(final ResponsePacket responsePacket, final NIOClientRequest clientRequest) throws ChannelException {
+	protected void sendResponse(final ResponsePacket responsePacket, final NIOClientRequest clientRequest) throws ChannelException {
 		if (responsePacket == null) throw new IllegalArgumentException("null response");
 		if (clientRequest == null) throw new IllegalArgumentException("null request");
 		if (clientRequest.getServerChannel() != this) throw new IllegalArgumentException(
@@ -265,56 +1372,417 @@ public class NIOServerChannel implements ServerChannel {
 		        + " to client " + clientRequest.getClientAddress() + ", delay="
 		        + (System.currentTimeMillis() - clientRequest.getTimeStamp()) + "ms");
 
-		Selector selector = null;
+		final OutboundQueue queue = this.outboundQueues.get(clientRequest.getDataChannel());
+		if (queue == null) throw new ChannelException("error sending response " + responsePacket
+		        + " - channel is closed");
 
+		final ByteBuffer data = this.acquireResponseBuffer();
+		boolean queued = false;
 		try {
-			// prepare data
-			final byte[] data = new byte[this.getCodec().getPacketMaxLength()];
-			final ByteBuffer buf = ByteBuffer.wrap(data);
-			buf.put(this.getCodec().encodeResponse(responsePacket, clientRequest.getRequestPacket(),
-			        clientRequest.getSecret()));
-			buf.flip();
-
-			// register selector
-			selector = Selector.open();
-			clientRequest.getDataChannel().register(selector, SelectionKey.OP_WRITE);
-
-			// write data
-			while (buf.hasRemaining()) {
-				if (selector.select() < 1) continue;
-				final Iterator<SelectionKey> keysIterator = selector.selectedKeys().iterator();
-				while (keysIterator.hasNext() && buf.hasRemaining()) {
-					final SelectionKey key = keysIterator.next();
-					if (!key.isWritable()) continue;
-					keysIterator.remove();
-					final DatagramChannel channel = (DatagramChannel) key.channel();
-					channel.send(buf, clientRequest.getClientAddress());
-				}
+			this.getCodec().encodeResponse(responsePacket, clientRequest.getRequestPacket(), clientRequest.getSecret(),
+			        data);
+			data.flip();
+			NIOServerChannel.countResponse(this.getCounters(clientRequest.getClient()), responsePacket);
+			final DuplicatesCache cache = this.responseCache;
+			if (cache != null && clientRequest.getCacheKey() != null) {
+				final byte[] cached = new byte[data.remaining()];
+				data.get(cached);
+				data.rewind();
+				cache.store(clientRequest.getCacheKey(), cached);
 			}
-		} catch (final IOException ex) {
-			throw new ChannelException("error sending response " + responsePacket, ex);
+			queue.put(new OutboundPacket(data, clientRequest.getClientAddress(), true));
+			queued = true;
 		} catch (final CodecException ex) {
 			throw new ChannelException("error sending response " + responsePacket, ex);
 		} finally {
-			if (selector != null) try {
-				selector.close();
-			} catch (final Throwable th) {
-				// NOP
-			}
+			if (!queued) this.releaseResponseBuffer(data);
+		}
+	}
+
+	/**
+	 * Count sent response
+	 * 
+	 * @param clientCounters counters of client
+	 * @param responsePacket response
+	 */
+	private static void countResponse(final ClientCounters clientCounters, final ResponsePacket responsePacket) {
+		switch (responsePacket.getCode()) {
+			case AccessAccept.CODE:
+				clientCounters.increment(ClientCounters.Counter.ACCEPTS);
+				break;
+			case AccessReject.CODE:
+				clientCounters.increment(ClientCounters.Counter.REJECTS);
+				break;
+			case AccessChallenge.CODE:
+				clientCounters.increment(ClientCounters.Counter.CHALLENGES);
+				break;
+			case AccountingResponse.CODE:
+				clientCounters.increment(ClientCounters.Counter.ACCOUNTING_RESPONSES);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Token bucket of client address or entry
+	 */
+	private static final class ClientBucket extends TokenBucket {
+		/** Rate of bucket */
+		protected final double rate;
+
+		/** Burst of bucket */
+		protected final int burst;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param requestsRate requests per second
+		 * @param requestsBurst maximum burst of requests
+		 */
+		protected ClientBucket(final double requestsRate, final int requestsBurst) {
+			super(requestsRate, requestsBurst);
+			this.rate = requestsRate;
+			this.burst = requestsBurst;
+		}
+	}
+
+	/**
+	 * Encoded packet, waiting to send
+	 */
+	private static final class OutboundPacket {
+		/** Encoded packet data from 0 to limit */
+		protected final ByteBuffer data;
+
+		/** Address of client */
+		protected final InetSocketAddress address;
+
+		/** Data is pooled direct buffer, which is returned to pool after sending */
+		protected final boolean pooled;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param packetData encoded packet
+		 * @param clientAddress address to send to
+		 */
+		protected OutboundPacket(final byte[] packetData, final InetSocketAddress clientAddress) {
+			this(ByteBuffer.wrap(packetData), clientAddress, false);
+		}
+
+		/**
+		 * Constructor
+		 * 
+		 * @param packetData encoded packet from 0 to limit
+		 * @param clientAddress address to send to
+		 * @param pooledBuffer data is pooled buffer
+		 */
+		protected OutboundPacket(final ByteBuffer packetData, final InetSocketAddress clientAddress,
+		        final boolean pooledBuffer) {
+			this.data = packetData;
+			this.address = clientAddress;
+			this.pooled = pooledBuffer;
 		}
 	}
 
 	/**
-	 * Socket listener thread
+	 * Outbound queue of channel.
+	 * <P>
+	 * Packets are put by handler threads and sent by owner reactor only.
+	 * </P>
+	 */
+	private static final class OutboundQueue {
+		/** Data channel */
+		protected final DatagramChannel channel;
+
+		/** Reactor, which send packets */
+		protected final SocketListenerThread owner;
+
+		/** Local address of channel */
+		protected final InetSocketAddress localAddress;
+
+		/** Packets to send */
+		protected final Queue<OutboundPacket> packets = new ConcurrentLinkedQueue<OutboundPacket>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param dataChannel channel to send packets
+		 * @param reactor owner reactor
+		 */
+		protected OutboundQueue(final DatagramChannel dataChannel, final SocketListenerThread reactor) {
+			this.channel = dataChannel;
+			this.owner = reactor;
+			this.localAddress = (InetSocketAddress) dataChannel.socket().getLocalSocketAddress();
+		}
+
+		/**
+		 * Put packet to queue and wake up owner reactor
+		 * 
+		 * @param packet packet to send
+		 */
+		protected void put(final OutboundPacket packet) {
+			this.packets.offer(packet);
+			this.owner.wakeupToSend();
+		}
+	}
+
+	/**
+	 * Socket listener thread (reactor)
 	 */
 	public class SocketListenerThread extends Thread {
+		/** Channels to listen */
+		private final Collection<DatagramChannel> channels;
+
+		/** Selector of this reactor */
+		private final Selector selector;
+
+		/** Outbound queues of channels owned by this reactor */
+		protected final List<OutboundQueue> outbound = new ArrayList<OutboundQueue>();
+
+		/** Wakeup is already requested to send pending packets */
+		private final AtomicBoolean sendScheduled = new AtomicBoolean(false);
+
+		/** Direct buffer to send packets, which are not encoded to direct buffers */
+		private final ByteBuffer sendBuffer;
+
 		/**
 		 * Constructor
+		 * 
+		 * @param index number of reactor
+		 * @throws IOException if error opening selector
 		 */
-		public SocketListenerThread() {
-			super("Radius NIOServerChannel");
+		public SocketListenerThread(final int index) throws IOException {
+			super("Radius NIOServerChannel #" + index);
 			this.setDaemon(false);
 			this.setPriority(Thread.NORM_PRIORITY + 1);
+			// own channels with SO_REUSEPORT and shared channels
+			this.channels = new ArrayList<DatagramChannel>();
+			for (final DatagramChannel channel : NIOServerChannel.this.openedChannels) {
+				final Integer reactor = NIOServerChannel.this.channelReactors.get(channel);
+				if (reactor == null || reactor.intValue() == index) this.channels.add(channel);
+			}
+			this.selector = Selector.open();
+			this.sendBuffer = ByteBuffer.allocateDirect(NIOServerChannel.this.getCodec().getPacketMaxLength());
+		}
+
+		/**
+		 * Wake up reactor to send pending packets
+		 */
+		protected void wakeupToSend() {
+			if (this.sendScheduled.compareAndSet(false, true)) this.selector.wakeup();
+		}
+
+		/**
+		 * Close selector
+		 */
+		protected void closeSelector() {
+			try {
+				this.selector.close();
+			} catch (final Throwable th) {
+				// NOP
+			}
+		}
+
+		/**
+		 * Send pending packets of all owned channels
+		 * 
+		 * @throws IOException if channel closed
+		 */
+		private void sendPending() throws IOException {
+			this.sendScheduled.set(false);
+			for (final OutboundQueue queue : this.outbound)
+				this.sendPending(queue);
+		}
+
+		/**
+		 * Send pending packets of channel.
+		 * <P>
+		 * If socket buffer is full, sending is continued when channel become writable.
+		 * </P>
+		 * 
+		 * @param queue queue of channel
+		 * @throws IOException if channel closed
+		 */
+		private void sendPending(final OutboundQueue queue) throws IOException {
+			final SelectionKey key = queue.channel.keyFor(this.selector);
+			if (key == null || !key.isValid()) return;
+			OutboundPacket packet = null;
+			while ((packet = queue.packets.peek()) != null) {
+				ByteBuffer data = packet.data;
+				if (data.isDirect()) data.rewind();
+				else {
+					this.sendBuffer.clear();
+					this.sendBuffer.put(data.array(), data.arrayOffset(), data.limit());
+					this.sendBuffer.flip();
+					data = this.sendBuffer;
+				}
+				try {
+					if (queue.channel.send(data, packet.address) == 0) {
+						// socket buffer is full
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+				} catch (final ClosedChannelException ex) {
+					throw ex;
+				} catch (final IOException ex) {
+					NIOServerChannel.log.warn("error sending response to " + packet.address, ex);
+				}
+				queue.packets.poll();
+				final PacketCapture packetCapture = NIOServerChannel.this.capture;
+				if (packetCapture != null) {
+					data.rewind();
+					packetCapture.sent(packet.address, queue.localAddress, data);
+				}
+				if (packet.pooled) NIOServerChannel.this.releaseResponseBuffer(packet.data);
+			}
+			if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) key.interestOps(SelectionKey.OP_READ);
+		}
+
+		/**
+		 * Receive and decode datagram
+		 * 
+		 * @param channel channel to receive from
+		 * @param key selection key of channel
+		 * @param codec codec to decode packet
+		 * @param validator validator of packet
+		 * @param buffer receive buffer
+		 * @param batch list to add received request
+		 * @return false if there is no more data in channel
+		 * @throws IOException if receive error
+		 */
+		private boolean receive(final DatagramChannel channel, final SelectionKey key, final RadiusCodec codec,
+		        final PacketValidator validator, final ByteBuffer buffer, final List<ClientRequest> batch)
+		        throws IOException {
+			// receive datagram, it can be already received by other reactor
+			buffer.clear();
+			final InetSocketAddress addr = (InetSocketAddress) channel.receive(buffer);
+			if (addr == null) return false;
+			final long receiveTime = System.nanoTime();
+			buffer.flip();
+
+			// capture datagram
+			final PacketCapture packetCapture = NIOServerChannel.this.capture;
+			if (packetCapture != null) packetCapture.received(addr, ((OutboundQueue) key.attachment()).localAddress,
+			        buffer);
+
+			// find shred sharedSecret
+			final ClientSecret client = NIOServerChannel.this.getClientSecret(addr.getAddress());
+			final ClientCounters clientCounters = client != null ? NIOServerChannel.this.getCounters(client) : null;
+			if (clientCounters != null) clientCounters.increment(ClientCounters.Counter.REQUESTS);
+
+			// check packet structure
+			final int reason = validator.validateRequest(buffer);
+			if (reason != PacketValidator.VALID) {
+				final AtomicLongArray counters = NIOServerChannel.this.invalidPackets;
+				if (reason > 0 && reason < counters.length()) counters.incrementAndGet(reason);
+				if (clientCounters != null) clientCounters.increment(reason == PacketValidator.REASON_BAD_CODE
+				        ? ClientCounters.Counter.UNKNOWN_TYPES : ClientCounters.Counter.MALFORMED);
+				if (NIOServerChannel.log.isDebugEnabled()) NIOServerChannel.log.debug(
+				        "ignoring invalid packet from address: " + addr + ", reason: " + validator.getReasonText(reason));
+				return true;
+			}
+
+			if (client == null) {
+				NIOServerChannel.log.warn("no shared shared secret for address: " + addr);
+				return true;
+			}
+			final String secret = client.getSecret();
+
+			// check rate limit
+			if (!NIOServerChannel.this.acquireRate(client, addr.getAddress())) {
+				clientCounters.increment(ClientCounters.Counter.DROPS);
+				if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace("rate limit exceeded by client: "
+				        + addr);
+				return true;
+			}
+
+			// answer Status-Server
+			final StatusResponder responder = NIOServerChannel.this.statusResponder;
+			if (responder != null && (buffer.get(buffer.position()) & 0xFF) == StatusServer.CODE) {
+				this.respondStatus(responder, key, addr, buffer, secret, clientCounters);
+				return true;
+			}
+
+			// check accounting authenticator
+			if (NIOServerChannel.this.verifyAccountingAuthenticator
+			        && (buffer.get(buffer.position()) & 0xFF) == AccountingRequest.CODE
+			        && !RFCCodec.checkAccountingAuthenticator(buffer, RFCCodec.getPacketLength(buffer), secret)) {
+				clientCounters.increment(ClientCounters.Counter.BAD_AUTHENTICATORS);
+				if (NIOServerChannel.log.isDebugEnabled()) NIOServerChannel.log.debug(
+				        "ignoring accounting request with bad authenticator from address: " + addr);
+				return true;
+			}
+
+			// check retransmission
+			final DuplicatesCache cache = NIOServerChannel.this.responseCache;
+			DuplicatesCache.Key cacheKey = null;
+			if (cache != null) {
+				cacheKey = new DuplicatesCache.Key(addr, buffer);
+				final byte[] cached = cache.lookup(cacheKey);
+				if (cached == DuplicatesCache.IN_PROGRESS) {
+					clientCounters.increment(ClientCounters.Counter.DUPLICATES);
+					if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace(
+					        "ignoring retransmission of request in progress: " + cacheKey);
+					return true;
+				} else if (cached != null) {
+					clientCounters.increment(ClientCounters.Counter.DUPLICATES);
+					if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace(
+					        "sending cached response to retransmitted request: " + cacheKey);
+					((OutboundQueue) key.attachment()).put(new OutboundPacket(cached, addr));
+					return true;
+				}
+			}
+
+			// decode packet
+			RequestPacket packet = null;
+			try {
+				packet = codec.decodeRequest(buffer, secret);
+			} catch (final CodecException ex) {
+				if (cacheKey != null) cache.remove(cacheKey);
+				clientCounters.increment(ClientCounters.Counter.MALFORMED);
+				NIOServerChannel.log.warn("error decoding packet from address: " + addr, ex);
+				return true;
+			}
+			if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace("received request: " + packet
+			        + " from address: " + addr);
+
+			final long timeout = client.getTimeout() > 0 ? client.getTimeout()
+			        : NIOServerChannel.this.defaultRequestTimeout;
+			batch.add(new NIOClientRequest(NIOServerChannel.this, packet, addr, client, channel, cacheKey, timeout,
+			        client.getWeight(), receiveTime));
+			return true;
+		}
+
+		/**
+		 * Answer Status-Server request without decoding
+		 * 
+		 * @param responder status responder
+		 * @param key selection key of channel
+		 * @param addr address of client
+		 * @param buffer request data
+		 * @param secret shared secret of client
+		 * @param clientCounters counters of client
+		 */
+		private void respondStatus(final StatusResponder responder, final SelectionKey key,
+		        final InetSocketAddress addr, final ByteBuffer buffer, final String secret,
+		        final ClientCounters clientCounters) {
+			if (!responder.checkRequest(buffer, secret)) {
+				clientCounters.increment(ClientCounters.Counter.BAD_AUTHENTICATORS);
+				if (NIOServerChannel.log.isDebugEnabled()) NIOServerChannel.log.debug(
+				        "ignoring status request with bad Message-Authenticator from address: " + addr);
+				return;
+			}
+			final OutboundQueue queue = (OutboundQueue) key.attachment();
+			final byte[] response = responder.createResponse(buffer, secret, queue.localAddress.getPort());
+			if (response == null) {
+				clientCounters.increment(ClientCounters.Counter.DROPS);
+				return;
+			}
+			clientCounters.increment(ClientCounters.Counter.STATUS_RESPONSES);
+			if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace("answering status request from: "
+			        + addr);
+			queue.put(new OutboundPacket(response, addr));
 		}
 
 		/**
@@ -324,110 +1792,67 @@ public class NIOServerChannel implements ServerChannel {
 		 */
 		@Override
 		public void run() {
-			NIOServerChannel.log.debug("starting radius server NIO socket channel");
+			NIOServerChannel.log.debug("starting radius server NIO socket channel reactor " + this.getName());
 
 			// channel selector
-			Selector selector = null;
-			final Collection<DatagramChannel> openedChannels = new ArrayList<DatagramChannel>();
+			final Selector selector = this.selector;
 
 			try {
-				// create selector
-				selector = Selector.open();
-
-				// open channels on ports
-				if (NIOServerChannel.this.getListenAddresses().isEmpty()) NIOServerChannel.log.error("no addresses configured to listen for requests");
-				else for (final SocketAddress addr : NIOServerChannel.this.getListenAddresses())
-					try {
-						final DatagramChannel channel = DatagramChannel.open();
-						channel.configureBlocking(false);
-						channel.socket().setReceiveBufferSize(
-						        NIOServerChannel.this.getCodec().getPacketMaxLength() * 10);
-						channel.socket().setSendBufferSize(NIOServerChannel.this.getCodec().getPacketMaxLength() * 10);
-						channel.socket().setTrafficClass(0x1C);
-						channel.socket().bind(addr);
-						channel.register(selector, SelectionKey.OP_READ);
-						openedChannels.add(channel);
-						NIOServerChannel.log.info("listening for radius requests on socket: " + addr);
-					} catch (final IOException ex) {
-						NIOServerChannel.log.error("error opening channel on socket " + addr, ex);
-					}
+				// register channels
+				for (final DatagramChannel channel : this.channels)
+					channel.register(selector, SelectionKey.OP_READ, NIOServerChannel.this.outboundQueues.get(channel));
 
-				final byte[] data = new byte[NIOServerChannel.this.getCodec().getPacketMaxLength()];
-				final ByteBuffer buffer = ByteBuffer.wrap(data);
+				final RadiusCodec codec = NIOServerChannel.this.getCodec();
+				final PacketValidator validator = NIOServerChannel.this.getValidator();
+				final ByteBuffer buffer = ByteBuffer.allocateDirect(codec.getPacketMaxLength());
+				final int batchSize = NIOServerChannel.this.getReceiveBatch();
+				final List<ClientRequest> batch = new ArrayList<ClientRequest>(batchSize);
 
 				// do the work
 				while (!this.isInterrupted())
 					try {
-						if (selector.select() < 1) continue;
+						final int readyCount = selector.select();
+						// send responses
+						this.sendPending();
+						if (readyCount < 1) continue;
 						// iterate over events
 						final Iterator<SelectionKey> keysIterator = selector.selectedKeys().iterator();
 						while (keysIterator.hasNext()) {
 							// ket ready key
 							final SelectionKey key = keysIterator.next();
-							if (!key.isReadable()) continue; // write threads can register other keys
 							keysIterator.remove();
+							if (!key.isValid()) continue;
+							if (key.isWritable()) this.sendPending((OutboundQueue) key.attachment());
+							if (!key.isReadable()) continue;
 
-							// receive datagram
-							buffer.clear();
+							// receive datagrams, until channel is empty or batch is full
 							final DatagramChannel channel = (DatagramChannel) key.channel();
-							final InetSocketAddress addr = (InetSocketAddress) channel.receive(buffer);
-							if (addr == null) {
-								NIOServerChannel.log.error("null address of received UDP packet");
-								continue;
-							}
-
-							// check received data length
-							buffer.flip();
-							if (buffer.limit() < NIOServerChannel.this.getCodec().getPacketHeaderLength()) {
-								NIOServerChannel.log.warn("ignoring short data from address: " + addr);
-								continue;
-							}
-
-							// find shred sharedSecret
-							final String secret = NIOServerChannel.this.getSharedSecret(addr.getAddress());
-							if (secret == null) {
-								NIOServerChannel.log.warn("no shared shared secret for address: " + addr);
-								continue;
-							}
-
-							// decode packet
-							final RequestPacket packet = NIOServerChannel.this.getCodec().decodeRequest(data, secret);
-							if (NIOServerChannel.log.isTraceEnabled()) NIOServerChannel.log.trace("received request: "
-							        + packet + " from address: " + addr);
-
-							// fire request to listeners
-							NIOServerChannel.this.fireClientRequest(new NIOClientRequest(NIOServerChannel.this, packet,
-							        addr, secret, channel));
+							for (int i = 0; i < batchSize; i++)
+								if (!this.receive(channel, key, codec, validator, buffer, batch)) break;
 						}
 					} catch (final ClosedByInterruptException ex) {
 						NIOServerChannel.log.debug("radius server socket channel thread interrupted");
 						break;
-					} catch (final CodecException ex) {
-						NIOServerChannel.log.warn("error decoding packet", ex);
+					} catch (final ClosedChannelException ex) {
+						NIOServerChannel.log.debug("radius server socket channel closed");
+						break;
 					} catch (final IOException ex) {
 						NIOServerChannel.log.warn("I/O error while receiving packet", ex);
 					} catch (final Throwable ex) {
 						NIOServerChannel.log.error("unknown error occured", ex);
+					} finally {
+						// fire received requests to listeners
+						if (!batch.isEmpty()) {
+							NIOServerChannel.this.fireClientRequests(batch);
+							batch.clear();
+						}
 					}
 			} catch (final IOException ex) {
 				NIOServerChannel.log.fatal("error starting socket listener thread", ex);
 			} finally {
 				// close selector
-				if (selector != null) try {
-					selector.close();
-				} catch (final Throwable th) {
-					// NOP
-				}
-				// close channels
-				for (final DatagramChannel channel : openedChannels) {
-					NIOServerChannel.log.debug("closing channel on port " + channel.socket().getLocalPort());
-					try {
-						channel.close();
-					} catch (final Throwable th) {
-						// NOP
-					}
-				}
-				NIOServerChannel.log.info("radius server NIO socket channel stopped");
+				this.closeSelector();
+				NIOServerChannel.log.info("radius server NIO socket channel reactor " + this.getName() + " stopped");
 			}
 		}
 	}
@@ -0,0 +1,243 @@
+/**
+ * NIOServerChannelMBean.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+import java.io.*;
+
+import javax.management.openmbean.*;
+
+import org.dicr.radius.channel.*;
+
+/**
+ * Management interface of {@link NIOServerChannel}.
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface NIOServerChannelMBean extends ServerChannel {
+
+	/**
+	 * @see org.dicr.radius.channel.ServerChannel#startChannel()
+	 */
+	@Override
+	public void startChannel();
+
+	/**
+	 * @see org.dicr.radius.channel.ServerChannel#stopChannel()
+	 */
+	@Override
+	public void stopChannel();
+
+	/**
+	 * @see org.dicr.radius.channel.ServerChannel#isRunning()
+	 */
+	@Override
+	public boolean isRunning();
+
+	/**
+	 * Return number of socket listener threads
+	 * 
+	 * @return number of reactor threads
+	 */
+	public int getReactorsCount();
+
+	/**
+	 * Set maximum number of datagrams received from channel at once
+	 * 
+	 * @param batch receive batch size
+	 */
+	public void setReceiveBatch(int batch);
+
+	/**
+	 * Return maximum number of datagrams received from channel at once
+	 * 
+	 * @return receive batch size
+	 */
+	public int getReceiveBatch();
+
+	/**
+	 * Return number of shared secrets
+	 * 
+	 * @return number of configured client prefixes
+	 */
+	public int getSharedSecretsCount();
+
+	/**
+	 * Set default rate limit
+	 * 
+	 * @param rate maximum average rate of requests from each client address per second, 0 to disable limit
+	 */
+	public void setDefaultRate(double rate);
+
+	/**
+	 * Return default rate limit
+	 * 
+	 * @return maximum rate of requests from each client address per second, 0 if unlimited
+	 */
+	public double getDefaultRate();
+
+	/**
+	 * Set default burst
+	 * 
+	 * @param burst maximum burst of requests from each client address
+	 */
+	public void setDefaultBurst(int burst);
+
+	/**
+	 * Return default burst
+	 * 
+	 * @return maximum burst of requests from each client address
+	 */
+	public int getDefaultBurst();
+
+	/**
+	 * Return rate limit drops
+	 * 
+	 * @return number of requests dropped by rate limit
+	 */
+	public long getRateLimitDrops();
+
+	/**
+	 * Set default request timeout
+	 * 
+	 * @param millis time, while client wait for response, in milliseconds, 0 to disable deadline
+	 */
+	public void setDefaultRequestTimeout(long millis);
+
+	/**
+	 * Return default request timeout
+	 * 
+	 * @return time, while client wait for response, in milliseconds, 0 if requests have no deadline
+	 */
+	public long getDefaultRequestTimeout();
+
+	/**
+	 * Return invalid packets count
+	 * 
+	 * @return number of packets rejected by validator
+	 */
+	public long getInvalidPacketsCount();
+
+	/**
+	 * Return invalid packets by reason
+	 * 
+	 * @return report of rejected packets, one line for each reason
+	 */
+	public String[] getInvalidPacketsReport();
+
+	/**
+	 * Set maximum number of cached responses
+	 * 
+	 * @param size maximum number of cached responses, 0 to disable cache
+	 */
+	public void setResponseCacheSize(int size);
+
+	/**
+	 * Return maximum number of cached responses
+	 * 
+	 * @return maximum number of cached responses, 0 if cache is disabled
+	 */
+	public int getResponseCacheSize();
+
+	/**
+	 * Set timeout of cached responses
+	 * 
+	 * @param timeout timeout in milliseconds
+	 */
+	public void setResponseCacheTimeout(long timeout);
+
+	/**
+	 * Return timeout of cached responses
+	 * 
+	 * @return timeout in milliseconds
+	 */
+	public long getResponseCacheTimeout();
+
+	/**
+	 * Return number of cached responses
+	 * 
+	 * @return current size of cache
+	 */
+	public int getResponseCacheEntries();
+
+	/**
+	 * Return cache hits
+	 * 
+	 * @return number of retransmitted requests answered from cache
+	 */
+	public long getResponseCacheHits();
+
+	/**
+	 * Return retransmissions of requests in progress
+	 * 
+	 * @return number of retransmitted requests ignored because original request is still handled
+	 */
+	public long getResponseCacheInProgress();
+
+	/**
+	 * Return cache misses
+	 * 
+	 * @return number of new requests
+	 */
+	public long getResponseCacheMisses();
+
+	/**
+	 * Return cache evictions. Growing value means, that cache is too small for rate of requests and timeout.
+	 * 
+	 * @return number of cached responses removed by size limit before expiration
+	 */
+	public long getResponseCacheEvictions();
+
+	/**
+	 * Return cache expirations
+	 * 
+	 * @return number of cached responses removed by timeout
+	 */
+	public long getResponseCacheExpirations();
+
+	/**
+	 * Return total counters
+	 * 
+	 * @return sum of RADIUS server counters of all clients (RFC 4669, RFC 4671)
+	 */
+	public CompositeData getTotalCounters();
+
+	/**
+	 * Return counters of clients
+	 * 
+	 * @return RADIUS server counters of each configured client entry (RFC 4669, RFC 4671)
+	 */
+	public TabularData getCountersTable();
+
+	/**
+	 * Set size of capture
+	 * 
+	 * @param count maximum number of captured datagrams, or 0 to disable capture
+	 */
+	public void setCaptureSize(int count);
+
+	/**
+	 * Return size of capture
+	 * 
+	 * @return maximum number of captured datagrams, or 0 if capture is disabled
+	 */
+	public int getCaptureSize();
+
+	/**
+	 * Return number of captured datagrams
+	 * 
+	 * @return number of datagrams, captured since capture was enabled
+	 */
+	public long getCapturedPackets();
+
+	/**
+	 * Dump captured datagrams to pcap file
+	 * 
+	 * @param fileName name of file
+	 * @param clientAddress address of client (NAS) to dump datagrams of, or empty to dump all datagrams
+	 * @return number of dumped datagrams
+	 * @throws IOException if error writing file
+	 */
+	public int dumpCapture(String fileName, String clientAddress) throws IOException;
+}
@@ -0,0 +1,402 @@
+/**
+ * PacketCapture.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.apache.log4j.*;
+
+/**
+ * Capture of raw datagrams.
+ * <P>
+ * Received and sent datagrams are copied to ring of fixed-size slots in direct (off-heap) memory, so capture does not
+ * load garbage collector. When ring is full, the oldest datagrams are overwritten. Writers take sequence by atomic
+ * increment and claim slot by compare-and-set of its stamp, without any lock. Stamp is negative while slot is written
+ * and set to sequence of datagram after, so dump skip slots, which are written concurrently. Writer, which lap writer
+ * of the same slot, or find slot of newer datagram, does not capture datagram, so slot is never written by two threads.
+ * </P>
+ * <P>
+ * Ring is dumped to pcap file with link type RAW (101). IP and UDP headers are synthesized from peer and local
+ * addresses, so file can be opened by Wireshark or tcpdump. UDP checksum is not calculated.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class PacketCapture {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(PacketCapture.class);
+
+	/** Default snap length, maximum length of RADIUS packet */
+	public static final int DEFAULT_SNAP_LENGTH = 4096;
+
+	/** Offset of time in microseconds */
+	private static final int TIME = 0;
+
+	/** Offset of length of datagram */
+	private static final int LENGTH = 8;
+
+	/** Offset of captured length */
+	private static final int CAPTURED = 12;
+
+	/** Offset of direction */
+	private static final int DIRECTION = 16;
+
+	/** Offset of length of addresses */
+	private static final int FAMILY = 17;
+
+	/** Offset of peer port */
+	private static final int PEER_PORT = 18;
+
+	/** Offset of local port */
+	private static final int LOCAL_PORT = 20;
+
+	/** Offset of peer address */
+	private static final int PEER_ADDRESS = 24;
+
+	/** Offset of local address */
+	private static final int LOCAL_ADDRESS = 40;
+
+	/** Length of slot header */
+	private static final int HEADER = 56;
+
+	/** pcap link type of raw IP */
+	private static final int LINKTYPE_RAW = 101;
+
+	/** Direction of received datagram */
+	private static final byte RECEIVED = 1;
+
+	/** Direction of sent datagram */
+	private static final byte SENT = 2;
+
+	/** Slots */
+	private final ByteBuffer ring;
+
+	/** Stamps of slots: sequence + 1 of datagram in slot, 0 if slot is empty, or negative while slot is written */
+	private final AtomicLongArray stamps;
+
+	/** Views of ring for each writer thread, so capture does not create buffers */
+	private final ThreadLocal<ByteBuffer> views = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return PacketCapture.this.ring.duplicate();
+		}
+	};
+
+	/** Number of datagrams, not captured because slot was written by other thread */
+	private final AtomicLong skippedCount = new AtomicLong(0);
+
+	/** Number of slots */
+	private final int slots;
+
+	/** Maximum captured length of datagram */
+	private final int snapLength;
+
+	/** Size of slot */
+	private final int slotSize;
+
+	/** Sequence of next datagram */
+	private final AtomicLong sequence = new AtomicLong(0);
+
+	/** Base of wall time in microseconds */
+	private final long baseMicros = System.currentTimeMillis() * 1000;
+
+	/** Base of nano time */
+	private final long baseNanos = System.nanoTime();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param count maximum number of captured datagrams
+	 */
+	public PacketCapture(final int count) {
+		this(count, PacketCapture.DEFAULT_SNAP_LENGTH);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param count maximum number of captured datagrams
+	 * @param snap maximum captured length of datagram, longer datagrams are truncated
+	 */
+	public PacketCapture(final int count, final int snap) {
+		super();
+		if (count < 1) throw new IllegalArgumentException("count: " + count);
+		if (snap < 20 || snap > 65507) throw new IllegalArgumentException("snapLength: " + snap);
+		this.slots = count;
+		this.snapLength = snap;
+		// align slots by 8 bytes
+		this.slotSize = (PacketCapture.HEADER + snap + 7) & ~7;
+		if ((long) this.slotSize * count > Integer.MAX_VALUE) throw new IllegalArgumentException("too large capture: "
+		        + count + " x " + snap);
+		this.ring = ByteBuffer.allocateDirect(this.slotSize * count);
+		this.stamps = new AtomicLongArray(count);
+		PacketCapture.log.debug("created capture of " + count + " datagrams, " + this.slotSize * count + " bytes");
+	}
+
+	/**
+	 * Return capacity
+	 * 
+	 * @return maximum number of captured datagrams
+	 */
+	public int getCapacity() {
+		return this.slots;
+	}
+
+	/**
+	 * Return snap length
+	 * 
+	 * @return maximum captured length of datagram
+	 */
+	public int getSnapLength() {
+		return this.snapLength;
+	}
+
+	/**
+	 * Return number of captured datagrams
+	 * 
+	 * @return number of datagrams, captured since creation, including overwritten
+	 */
+	public long getCapturedCount() {
+		return this.sequence.get();
+	}
+
+	/**
+	 * Return number of skipped datagrams
+	 * 
+	 * @return number of datagrams, not captured because their slot was written concurrently
+	 */
+	public long getSkippedCount() {
+		return this.skippedCount.get();
+	}
+
+	/**
+	 * Capture received datagram
+	 * 
+	 * @param peer address of client
+	 * @param local local address of channel
+	 * @param data datagram from position to limit, position and limit are not changed
+	 */
+	public void received(final InetSocketAddress peer, final InetSocketAddress local, final ByteBuffer data) {
+		this.capture(PacketCapture.RECEIVED, peer, local, data);
+	}
+
+	/**
+	 * Capture sent datagram
+	 * 
+	 * @param peer address of client
+	 * @param local local address of channel
+	 * @param data datagram from position to limit, position and limit are not changed
+	 */
+	public void sent(final InetSocketAddress peer, final InetSocketAddress local, final ByteBuffer data) {
+		this.capture(PacketCapture.SENT, peer, local, data);
+	}
+
+	/**
+	 * Copy datagram to slot
+	 * 
+	 * @param direction direction of datagram
+	 * @param peer address of client
+	 * @param local local address of channel
+	 * @param data datagram
+	 */
+	private void capture(final byte direction, final InetSocketAddress peer, final InetSocketAddress local,
+	        final ByteBuffer data) {
+		final long seq = this.sequence.getAndIncrement();
+		final int index = (int) (seq % this.slots);
+		// claim slot, if it is not written and has older datagram
+		final long stamp = this.stamps.get(index);
+		if (stamp < 0 || stamp > seq || !this.stamps.compareAndSet(index, stamp, -(seq + 1))) {
+			this.skippedCount.incrementAndGet();
+			return;
+		}
+		final int offset = index * this.slotSize;
+		final int length = data.remaining();
+		final int captured = Math.min(length, this.snapLength);
+		final ByteBuffer slot = this.views.get();
+		slot.putLong(offset + PacketCapture.TIME, this.baseMicros + (System.nanoTime() - this.baseNanos) / 1000);
+		slot.putInt(offset + PacketCapture.LENGTH, length);
+		slot.putInt(offset + PacketCapture.CAPTURED, captured);
+		slot.put(offset + PacketCapture.DIRECTION, direction);
+		final InetAddress peerAddress = peer.getAddress();
+		final boolean ipv4 = peerAddress instanceof Inet4Address;
+		slot.put(offset + PacketCapture.FAMILY, (byte) (ipv4 ? 4 : 16));
+		slot.putShort(offset + PacketCapture.PEER_PORT, (short) peer.getPort());
+		slot.putShort(offset + PacketCapture.LOCAL_PORT, (short) (local != null ? local.getPort() : 0));
+		PacketCapture.putAddress(slot, offset + PacketCapture.PEER_ADDRESS, peerAddress);
+		// wildcard or address of other family is written as zero address
+		final InetAddress localAddress = local != null ? local.getAddress() : null;
+		if (localAddress != null && (localAddress instanceof Inet4Address) == ipv4) PacketCapture.putAddress(slot,
+		        offset + PacketCapture.LOCAL_ADDRESS, localAddress);
+		else slot.putLong(offset + PacketCapture.LOCAL_ADDRESS, 0).putLong(offset + PacketCapture.LOCAL_ADDRESS + 8, 0);
+		// copy data without duplicate of buffer, position and limit are restored
+		final int position = data.position();
+		final int limit = data.limit();
+		data.limit(position + captured);
+		slot.position(offset + PacketCapture.HEADER);
+		slot.put(data);
+		data.limit(limit).position(position);
+		this.stamps.set(index, seq + 1);
+	}
+
+	/**
+	 * Write address to slot
+	 * 
+	 * @param slot view of ring
+	 * @param position position of address
+	 * @param address IPv4 or IPv6 address
+	 */
+	private static void putAddress(final ByteBuffer slot, final int position, final InetAddress address) {
+		// hash code of IPv4 address is its value, so address is not copied to array
+		if (address instanceof Inet4Address) slot.putInt(position, address.hashCode());
+		else {
+			slot.position(position);
+			slot.put(address.getAddress());
+		}
+	}
+
+	/**
+	 * Write captured datagrams in pcap format.
+	 * <P>
+	 * Datagrams are written from the oldest, while capture continue. Slots, which are overwritten during dump, are
+	 * skipped.
+	 * </P>
+	 * 
+	 * @param out stream to write
+	 * @param filter address of client (NAS) to write datagrams of, or null to write all datagrams
+	 * @return number of written datagrams
+	 * @throws IOException if error writing stream
+	 */
+	public int writePcap(final OutputStream out, final InetAddress filter) throws IOException {
+		if (out == null) throw new IllegalArgumentException("null stream");
+		final byte[] filterAddress = filter != null ? filter.getAddress() : null;
+		final DataOutputStream pcap = new DataOutputStream(new BufferedOutputStream(out));
+		// global header
+		pcap.writeInt(0xa1b2c3d4);
+		pcap.writeShort(2);
+		pcap.writeShort(4);
+		pcap.writeInt(0);
+		pcap.writeInt(0);
+		pcap.writeInt(this.snapLength + 48);
+		pcap.writeInt(PacketCapture.LINKTYPE_RAW);
+		final ByteBuffer slot = ByteBuffer.allocate(this.slotSize);
+		final long end = this.sequence.get();
+		int count = 0;
+		for (long seq = Math.max(0, end - this.slots); seq < end; seq++) {
+			final int index = (int) (seq % this.slots);
+			if (this.stamps.get(index) != seq + 1) continue;
+			final ByteBuffer src = this.ring.duplicate();
+			src.limit((index + 1) * this.slotSize).position(index * this.slotSize);
+			slot.clear();
+			slot.put(src);
+			// slot was overwritten while copied
+			if (this.stamps.get(index) != seq + 1) continue;
+			if (PacketCapture.writeRecord(pcap, slot, filterAddress)) count++;
+		}
+		pcap.flush();
+		return count;
+	}
+
+	/**
+	 * Write captured datagrams to pcap file
+	 * 
+	 * @param file file to write
+	 * @param filter address of client (NAS) to write datagrams of, or null to write all datagrams
+	 * @return number of written datagrams
+	 * @throws IOException if error writing file
+	 */
+	public int dump(final File file, final InetAddress filter) throws IOException {
+		if (file == null) throw new IllegalArgumentException("null file");
+		final OutputStream out = new FileOutputStream(file);
+		try {
+			final int count = this.writePcap(out, filter);
+			PacketCapture.log.info("dumped " + count + " captured datagrams to " + file);
+			return count;
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Write pcap record of slot
+	 * 
+	 * @param pcap stream to write
+	 * @param slot copy of slot
+	 * @param filterAddress address of client to write or null
+	 * @return true if record is written, false if it does not match filter
+	 * @throws IOException if error writing stream
+	 */
+	private static boolean writeRecord(final DataOutputStream pcap, final ByteBuffer slot, final byte[] filterAddress)
+	        throws IOException {
+		final int family = slot.get(PacketCapture.FAMILY);
+		final byte[] peer = new byte[family];
+		final byte[] local = new byte[family];
+		slot.position(PacketCapture.PEER_ADDRESS);
+		slot.get(peer);
+		slot.position(PacketCapture.LOCAL_ADDRESS);
+		slot.get(local);
+		if (filterAddress != null && !Arrays.equals(filterAddress, peer)) return false;
+		final boolean received = slot.get(PacketCapture.DIRECTION) == PacketCapture.RECEIVED;
+		final byte[] src = received ? peer : local;
+		final byte[] dst = received ? local : peer;
+		final int srcPort = slot.getShort(received ? PacketCapture.PEER_PORT : PacketCapture.LOCAL_PORT) & 0xFFFF;
+		final int dstPort = slot.getShort(received ? PacketCapture.LOCAL_PORT : PacketCapture.PEER_PORT) & 0xFFFF;
+		final int length = slot.getInt(PacketCapture.LENGTH);
+		final int captured = slot.getInt(PacketCapture.CAPTURED);
+		final int ipHeader = family == 4 ? 20 : 40;
+		final int udpLength = 8 + length;
+
+		// record header
+		final long time = slot.getLong(PacketCapture.TIME);
+		pcap.writeInt((int) (time / 1000000));
+		pcap.writeInt((int) (time % 1000000));
+		pcap.writeInt(ipHeader + 8 + captured);
+		pcap.writeInt(ipHeader + udpLength);
+
+		// IP header
+		if (family == 4) {
+			final byte[] header = new byte[20];
+			final ByteBuffer ip = ByteBuffer.wrap(header);
+			ip.put((byte) 0x45).put((byte) 0).putShort((short) (20 + udpLength)).putShort((short) 0);
+			ip.putShort((short) 0x4000).put((byte) 64).put((byte) 17).putShort((short) 0).put(src).put(dst);
+			int sum = 0;
+			for (int i = 0; i < header.length; i += 2)
+				sum += ((header[i] & 0xFF) << 8) | (header[i + 1] & 0xFF);
+			while ((sum >> 16) != 0)
+				sum = (sum & 0xFFFF) + (sum >> 16);
+			ip.putShort(10, (short) ~sum);
+			pcap.write(header);
+		} else {
+			pcap.writeInt(0x60000000);
+			pcap.writeShort(udpLength);
+			pcap.writeByte(17);
+			pcap.writeByte(64);
+			pcap.write(src);
+			pcap.write(dst);
+		}
+
+		// UDP header
+		pcap.writeShort(srcPort);
+		pcap.writeShort(dstPort);
+		pcap.writeShort(udpLength);
+		pcap.writeShort(0);
+
+		// data
+		pcap.write(slot.array(), slot.arrayOffset() + PacketCapture.HEADER, captured);
+		return true;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "PacketCapture[" + this.slots + " x " + this.snapLength + ", captured=" + this.getCapturedCount()
+		        + ", skipped=" + this.getSkippedCount() + "]";
+	}
+}
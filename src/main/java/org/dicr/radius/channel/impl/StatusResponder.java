@@ -0,0 +1,335 @@
+/**
+ * StatusResponder.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+import java.nio.*;
+import java.security.*;
+import java.util.*;
+
+import javax.crypto.*;
+import javax.crypto.spec.*;
+
+import org.apache.log4j.*;
+import org.dicr.radius.attribute.types.*;
+import org.dicr.radius.channel.*;
+import org.dicr.radius.codec.impl.*;
+import org.dicr.radius.packet.impl.*;
+import org.dicr.radius.util.*;
+import org.dicr.util.data.*;
+
+/**
+ * Responder to Status-Server requests (RFC 5997).
+ * <P>
+ * Status-Server requests are answered by reactor of {@link NIOServerChannel} directly from received datagram, without
+ * decoding and without queues and handler threads of server. So probes of load balancers and monitoring does not
+ * compete with requests of clients. Response is built from precomputed template: only id, authenticator, load values
+ * and Message-Authenticator are patched. Each reactor thread keeps own HMAC-MD5 and MD5 instances, and key of HMAC is
+ * initialized again only when secret of client is changed.
+ * </P>
+ * <P>
+ * If <CODE>vendorId</CODE> is configured, response contain vendor specific attribute with load indicators of
+ * {@link ServerLoad} as integer sub-attributes (<CODE>LOAD_*</CODE> types). If handlers of server are stalled longer
+ * than <CODE>maxStallTime</CODE>, requests are not answered, so stuck server is not reported as alive.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class StatusResponder {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(StatusResponder.class);
+
+	/** Sub-attribute of requests, pending in queues */
+	public static final int LOAD_QUEUE_DEPTH = 1;
+
+	/** Sub-attribute of requests in queues and handlers */
+	public static final int LOAD_IN_FLIGHT = 2;
+
+	/** Sub-attribute of concurrency limit */
+	public static final int LOAD_CONCURRENCY_LIMIT = 3;
+
+	/** Sub-attribute of shed requests per second */
+	public static final int LOAD_SHED_RATE = 4;
+
+	/** Sub-attribute of stall time of handlers in milliseconds */
+	public static final int LOAD_STALL_TIME = 5;
+
+	/** Number of load sub-attributes */
+	private static final int LOAD_COUNT = 5;
+
+	/** Length of load sub-attribute */
+	private static final int LOAD_LENGTH = 6;
+
+	/** Offset of vendor attribute in response */
+	private static final int VENDOR_OFFSET = RFCCodec.PACKET_HEADER_LENGTH + RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH;
+
+	/** Length of vendor attribute header */
+	private static final int VENDOR_HEADER_LENGTH = RFCCodec.ATTRIBUTE_HEADER_LENGTH + 4;
+
+	/** Load indicators of server */
+	private volatile ServerLoad serverLoad = null;
+
+	/** Vendor of load attribute */
+	private volatile int vendorId = 0;
+
+	/** Maximum stall time of handlers */
+	private volatile long maxStallTime = 10000;
+
+	/** Local ports of accounting */
+	private volatile Set<Integer> accountingPorts = new HashSet<Integer>(Arrays.asList(Integer.valueOf(1813), Integer
+	        .valueOf(1646)));
+
+	/** Response template */
+	private volatile byte[] template = StatusResponder.createTemplate(0);
+
+	/** Digests of threads */
+	private final ThreadLocal<Digests> digests = new ThreadLocal<Digests>() {
+		@Override
+		protected Digests initialValue() {
+			return new Digests();
+		}
+	};
+
+	/**
+	 * Constructor
+	 */
+	public StatusResponder() {
+		super();
+	}
+
+	/**
+	 * Set server load
+	 *
+	 * @param load load indicators to report, or null
+	 */
+	public void setServerLoad(final ServerLoad load) {
+		this.serverLoad = load;
+	}
+
+	/**
+	 * Return server load
+	 *
+	 * @return load indicators to report
+	 */
+	public ServerLoad getServerLoad() {
+		return this.serverLoad;
+	}
+
+	/**
+	 * Set vendor of load attribute
+	 *
+	 * @param vendor vendor id (SMI Network Management Private Enterprise Code) of load attribute, or 0 to not report
+	 *            load. Default 0.
+	 */
+	public void setVendorId(final int vendor) {
+		if (vendor < 0 || vendor > 0x0FFFFFF) throw new IllegalArgumentException("vendorId: " + vendor);
+		this.template = StatusResponder.createTemplate(vendor);
+		this.vendorId = vendor;
+	}
+
+	/**
+	 * Return vendor of load attribute
+	 *
+	 * @return vendor id of load attribute or 0
+	 */
+	public int getVendorId() {
+		return this.vendorId;
+	}
+
+	/**
+	 * Set maximum stall time
+	 *
+	 * @param millis maximum stall time of handlers in milliseconds, when requests are still answered, or 0 to answer
+	 *            always. Default 10000.
+	 */
+	public void setMaxStallTime(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("maxStallTime: " + millis);
+		this.maxStallTime = millis;
+	}
+
+	/**
+	 * Return maximum stall time
+	 *
+	 * @return maximum stall time of handlers in milliseconds
+	 */
+	public long getMaxStallTime() {
+		return this.maxStallTime;
+	}
+
+	/**
+	 * Set accounting ports
+	 *
+	 * @param ports local ports, where Status-Server is answered by Accounting-Response. On other ports it is answered by
+	 *            Access-Accept. Default 1813 and 1646.
+	 */
+	public void setAccountingPorts(final Set<Integer> ports) {
+		if (ports == null) throw new IllegalArgumentException("null ports");
+		this.accountingPorts = new HashSet<Integer>(ports);
+	}
+
+	/**
+	 * Return accounting ports
+	 *
+	 * @return local ports, where Status-Server is answered by Accounting-Response
+	 */
+	public Set<Integer> getAccountingPorts() {
+		return Collections.unmodifiableSet(this.accountingPorts);
+	}
+
+	/**
+	 * Create response template
+	 *
+	 * @param vendor vendor of load attribute or 0
+	 * @return response data with Message-Authenticator and load attribute
+	 */
+	private static byte[] createTemplate(final int vendor) {
+		int length = StatusResponder.VENDOR_OFFSET;
+		if (vendor > 0) length += StatusResponder.VENDOR_HEADER_LENGTH + StatusResponder.LOAD_COUNT
+		        * StatusResponder.LOAD_LENGTH;
+		final ByteBuffer buf = ByteBuffer.allocate(length);
+		// header, code, id and authenticator are patched
+		buf.put((byte) 0).put((byte) 0).putShort((short) length).put(new byte[16]);
+		// Message-Authenticator
+		buf.put((byte) RFCCodec.MESSAGE_AUTHENTICATOR_TYPE).put((byte) RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH).put(
+		        new byte[RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH - RFCCodec.ATTRIBUTE_HEADER_LENGTH]);
+		// load attribute
+		if (vendor > 0) {
+			buf.put((byte) VendorAttribute.TYPE_CODE).put((byte) (length - StatusResponder.VENDOR_OFFSET)).putInt(vendor);
+			for (int type = 1; type <= StatusResponder.LOAD_COUNT; type++)
+				buf.put((byte) type).put((byte) StatusResponder.LOAD_LENGTH).putInt(0);
+		}
+		return buf.array();
+	}
+
+	/**
+	 * Check Message-Authenticator of request
+	 *
+	 * @param request request data, starting from buffer position. Position and limit of buffer are not changed.
+	 * @param secret shared secret of client
+	 * @return true if request has valid Message-Authenticator, required by RFC 5997
+	 */
+	public boolean checkRequest(final ByteBuffer request, final String secret) {
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		// datagram can have padding after Length field, which is not covered by Message-Authenticator
+		return RFCCodec.checkMessageAuthenticator(request, RFCCodec.getPacketLength(request), this.digests.get()
+		        .getMac(secret));
+	}
+
+	/**
+	 * Create response to request
+	 *
+	 * @param request request data, starting from buffer position. Position and limit of buffer are not changed.
+	 * @param secret shared secret of client
+	 * @param localPort local port, where request is received
+	 * @return encoded response or null if server is stalled and request must not be answered
+	 */
+	public byte[] createResponse(final ByteBuffer request, final String secret, final int localPort) {
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		final ServerLoad load = this.serverLoad;
+		final long stallTime = load != null ? load.getStallTime() : 0;
+		final long maxStall = this.maxStallTime;
+		if (maxStall > 0 && stallTime > maxStall) {
+			StatusResponder.log.warn("handlers are stalled for " + stallTime + "ms, status request is not answered");
+			return null;
+		}
+
+		// patch template
+		final byte[] data = this.template.clone();
+		final ByteBuffer buf = ByteBuffer.wrap(data);
+		final int start = request.position();
+		buf.put(0, (byte) (this.accountingPorts.contains(Integer.valueOf(localPort)) ? AccountingResponse.CODE
+		        : AccessAccept.CODE));
+		buf.put(1, request.get(start + 1));
+		for (int i = 4; i < RFCCodec.PACKET_HEADER_LENGTH; i++)
+			data[i] = request.get(start + i);
+		if (data.length > StatusResponder.VENDOR_OFFSET) {
+			int pos = StatusResponder.VENDOR_OFFSET + StatusResponder.VENDOR_HEADER_LENGTH
+			        + RFCCodec.ATTRIBUTE_HEADER_LENGTH;
+			if (load != null) {
+				buf.putInt(pos, load.getQueueDepth());
+				pos += StatusResponder.LOAD_LENGTH;
+				buf.putInt(pos, load.getInFlightRequests());
+				pos += StatusResponder.LOAD_LENGTH;
+				buf.putInt(pos, load.getConcurrencyLimit());
+				pos += StatusResponder.LOAD_LENGTH;
+				buf.putInt(pos, (int) Math.min(Integer.MAX_VALUE, Math.round(load.getShedRate())));
+				pos += StatusResponder.LOAD_LENGTH;
+				buf.putInt(pos, (int) Math.min(Integer.MAX_VALUE, stallTime));
+			}
+		}
+
+		// Message-Authenticator, calculated with request authenticator
+		final Digests threadDigests = this.digests.get();
+		final byte[] messageAuthenticator = RFCCodec.calculateMessageAuthenticator(buf, data.length,
+		        RFCCodec.PACKET_HEADER_LENGTH, threadDigests.getMac(secret));
+		System.arraycopy(messageAuthenticator, 0, data, RFCCodec.PACKET_HEADER_LENGTH
+		        + RFCCodec.ATTRIBUTE_HEADER_LENGTH, messageAuthenticator.length);
+
+		// response authenticator
+		final MessageDigest md5 = threadDigests.md5;
+		md5.reset();
+		md5.update(data);
+		md5.update(threadDigests.secretData);
+		System.arraycopy(md5.digest(), 0, data, 4, 16);
+		return data;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Status-Server responder, vendor " + this.vendorId;
+	}
+
+	/**
+	 * Digests of thread, initialized by secret of the last client
+	 */
+	private static final class Digests {
+		/** HMAC-MD5 of Message-Authenticator */
+		protected final Mac mac;
+
+		/** MD5 of response authenticator */
+		protected final MessageDigest md5 = MD5.getMD5Digest();
+
+		/** Secret, which key of mac is initialized by */
+		protected String secret = null;
+
+		/** Data of secret */
+		protected byte[] secretData = null;
+
+		/**
+		 * Constructor
+		 */
+		protected Digests() {
+			try {
+				this.mac = Mac.getInstance("HmacMD5");
+			} catch (final NoSuchAlgorithmException ex) {
+				throw new Error("hmac-md5 algorythm not available", ex);
+			}
+		}
+
+		/**
+		 * Return mac, initialized by secret
+		 *
+		 * @param sharedSecret shared secret of client
+		 * @return HMAC-MD5 with key of secret
+		 */
+		protected Mac getMac(final String sharedSecret) {
+			if (!sharedSecret.equals(this.secret)) {
+				final byte[] data = ByteUtils.toBytes(sharedSecret);
+				try {
+					this.mac.init(new SecretKeySpec(data, "HmacMD5"));
+				} catch (final InvalidKeyException ex) {
+					throw new Error("invalid hmac-md5 key", ex);
+				}
+				this.secret = sharedSecret;
+				this.secretData = data;
+			}
+			return this.mac;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * TokenBucket.java 18.10.2026
+ */
+package org.dicr.radius.channel.impl;
+
+/**
+ * Token bucket rate limiter.
+ * <P>
+ * Bucket is filled by <CODE>rate</CODE> tokens per second up to <CODE>burst</CODE> tokens. Each request take one
+ * token, and request is rejected if bucket is empty.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class TokenBucket {
+	/** Tokens per nanosecond */
+	private final double rate;
+
+	/** Maximum number of tokens */
+	private final double burst;
+
+	/** Current number of tokens */
+	private double tokens;
+
+	/** Time of last refill */
+	private long time = System.nanoTime();
+
+	/**
+	 * Constructor
+	 *
+	 * @param requestsRate requests per second
+	 * @param requestsBurst maximum burst of requests
+	 */
+	public TokenBucket(final double requestsRate, final int requestsBurst) {
+		if (requestsRate <= 0) throw new IllegalArgumentException("rate: " + requestsRate);
+		if (requestsBurst < 1) throw new IllegalArgumentException("burst: " + requestsBurst);
+		this.rate = requestsRate / 1000000000.0;
+		this.burst = requestsBurst;
+		this.tokens = requestsBurst;
+	}
+
+	/**
+	 * Take token
+	 *
+	 * @return true if token is taken, false if rate is exceeded
+	 */
+	public synchronized boolean tryAcquire() {
+		final long now = System.nanoTime();
+		this.tokens = Math.min(this.burst, this.tokens + (now - this.time) * this.rate);
+		this.time = now;
+		if (this.tokens < 1) return false;
+		this.tokens--;
+		return true;
+	}
+
+	/**
+	 * Check if bucket is full.
+	 * <P>
+	 * Full bucket is not used since refill, so it can be replaced by new bucket without change of limit.
+	 * </P>
+	 *
+	 * @return true if bucket has <CODE>burst</CODE> tokens
+	 */
+	public synchronized boolean isFull() {
+		return this.tokens + (System.nanoTime() - this.time) * this.rate >= this.burst;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * PacketValidator.java 18.10.2026
+ */
+package org.dicr.radius.codec;
+
+import java.nio.*;
+
+/**
+ * Raw packet validator.
+ * <P>
+ * Validator check structure of received datagram before it is decoded by {@link RadiusCodec}, so malformed packets
+ * are rejected without creating packet and attributes. Implementations must not allocate objects and must not change
+ * buffer.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface PacketValidator {
+	/** Packet is valid */
+	public static final int VALID = 0;
+
+	/** Datagram is shorter than packet header */
+	public static final int REASON_SHORT_PACKET = 1;
+
+	/** Length field does not match datagram size */
+	public static final int REASON_BAD_LENGTH = 2;
+
+	/** Unknown packet code or packet of unexpected kind */
+	public static final int REASON_BAD_CODE = 3;
+
+	/** Incorrect attribute length */
+	public static final int REASON_BAD_ATTRIBUTE = 4;
+
+	/** Incorrect vendor specific attribute */
+	public static final int REASON_BAD_VENDOR_ATTRIBUTE = 5;
+
+	/** Number of reason codes */
+	public static final int REASONS_COUNT = 6;
+
+	/**
+     * Validate request packet.
+     * 
+     * @param data received datagram, starting from buffer position up to limit. Buffer is not changed.
+     * @return {@link #VALID} or reason code of rejection
+     */
+	public int validateRequest(ByteBuffer data);
+
+	/**
+     * Validate response packet.
+     * 
+     * @param data received datagram, starting from buffer position up to limit. Buffer is not changed.
+     * @return {@link #VALID} or reason code of rejection
+     */
+	public int validateResponse(ByteBuffer data);
+
+	/**
+     * Return description of reason
+     * 
+     * @param reason reason code
+     * @return text description
+     */
+	public String getReasonText(int reason);
+}
@@ -3,6 +3,8 @@
  */
 package org.dicr.radius.codec;
 
+import java.nio.*;
+
 import org.dicr.radius.exc.*;
 import org.dicr.radius.packet.*;
 
@@ -23,6 +25,21 @@ public interface RadiusCodec {
      */
 	public byte[] encodeRequest(RequestPacket request, String secret) throws CodecException;
 
+	/**
+     * Encode request packet to buffer.
+     * <P>
+     * Packet is written from position of buffer, which can be heap or direct buffer. After encoding position is set
+     * to the end of packet.
+     * </P>
+     * 
+     * @param request request packet to encode
+     * @param secret shared secret
+     * @param buf buffer to encode to
+     * @return length of encoded packet
+     * @throws CodecException if encoding error occur or packet does not fit to buffer
+     */
+	public int encodeRequest(RequestPacket request, String secret, ByteBuffer buf) throws CodecException;
+
 	/**
      * Encode response packet
      * 
@@ -34,6 +51,22 @@ public interface RadiusCodec {
      */
 	public byte[] encodeResponse(ResponsePacket response, RequestPacket request, String secret) throws CodecException;
 
+	/**
+     * Encode response packet to buffer.
+     * <P>
+     * Packet is written from position of buffer, which can be heap or direct buffer. After encoding position is set
+     * to the end of packet.
+     * </P>
+     * 
+     * @param response response packet
+     * @param request request packet of response
+     * @param secret shared secret
+     * @param buf buffer to encode to
+     * @return length of encoded packet
+     * @throws CodecException if encoding error occur or packet does not fit to buffer
+     */
+	public int encodeResponse(ResponsePacket response, RequestPacket request, String secret, ByteBuffer buf) throws CodecException;
+
 	/**
      * Decode request packet
      * 
@@ -44,6 +77,20 @@ public interface RadiusCodec {
      */
 	public RequestPacket decodeRequest(byte[] data, String secret) throws CodecException;
 
+	/**
+     * Decode request packet from buffer.
+     * <P>
+     * Packet data is remaining bytes of buffer, which can be heap or direct buffer. Position and limit of buffer are
+     * not changed.
+     * </P>
+     * 
+     * @param data encoded data
+     * @param secret shared secret
+     * @return request packet
+     * @throws CodecException if decoding error occur
+     */
+	public RequestPacket decodeRequest(ByteBuffer data, String secret) throws CodecException;
+
 	/**
      * Decode response packet
      * 
@@ -55,6 +102,21 @@ public interface RadiusCodec {
      */
 	public ResponsePacket decodeResponse(byte[] data, RequestPacket request, String secret) throws CodecException;
 
+	/**
+     * Decode response packet from buffer.
+     * <P>
+     * Packet data is remaining bytes of buffer, which can be heap or direct buffer. Position and limit of buffer are
+     * not changed.
+     * </P>
+     * 
+     * @param data encoded data
+     * @param request request packet of response
+     * @param secret shared secret
+     * @return decoded response
+     * @throws CodecException if decoding error occur
+     */
+	public ResponsePacket decodeResponse(ByteBuffer data, RequestPacket request, String secret) throws CodecException;
+
 	/**
      * Return maximum length of packet
      * 
@@ -0,0 +1,385 @@
+/**
+ * LazyAttributesList.java 18.10.2026
+ */
+package org.dicr.radius.codec.impl;
+
+import java.nio.*;
+import java.util.*;
+
+import org.apache.log4j.*;
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.types.*;
+import org.dicr.radius.dictionary.*;
+import org.dicr.radius.exc.*;
+import org.dicr.radius.packet.*;
+
+/**
+ * Attributes of decoded packet, which are decoded on demand.
+ * <P>
+ * List keeps raw attributes data of packet and index of attribute offsets. Attribute object is created by
+ * {@link RFCCodec}, when it is accessed first time by {@link #getFirst(AttributeType)} or
+ * {@link #findAll(AttributeType)}, so attributes, which are not read by handler, are never decoded. Operations, which
+ * need all attributes (iteration, modification, string presentation), decode the rest of attributes.
+ * </P>
+ * <P>
+ * When list is not modified and packet is encoded with the same secret and authenticator, attributes are written by
+ * {@link #encode(ByteBuffer, String, RequestAuthenticator)}: not decoded attributes are copied byte-for-byte from raw
+ * data.
+ * </P>
+ * <P>
+ * Chain of attributes is checked, when list is indexed, but values of attributes are checked, when they are decoded.
+ * When accessed attribute has incorrect value, packet is malformed: error is logged once and access to list throws
+ * {@link MalformedAttributeException}, so handler stops and request is dropped, as it is dropped when attributes are
+ * decoded with packet. Incorrect values of attributes, which are never accessed, are not detected.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class LazyAttributesList extends AttributesList {
+	/** Serial ID */
+	private static final long serialVersionUID = 1L;
+
+	/** Logger */
+	private static final Logger log = Logger.getLogger(LazyAttributesList.class);
+
+	/** Raw attributes data */
+	private final transient byte[] data;
+
+	/** Offsets of attributes in data */
+	private final transient int[] offsets;
+
+	/** Decoded attributes by index, created on first decode */
+	private transient RadiusAttribute[] decoded = null;
+
+	/** Shared secret of packet */
+	private final transient String secret;
+
+	/** Authenticator to decode attributes */
+	private final transient RequestAuthenticator authenticator;
+
+	/** All attributes are decoded and added to list */
+	private transient boolean materialized = false;
+
+	/** List was modified */
+	private transient boolean modified = false;
+
+	/** Error of decoding of attribute, or null if all decoded attributes are correct */
+	private transient CodecException error = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param attributesData raw attributes data
+	 * @param attributesOffsets offsets of attributes in data
+	 * @param sharedSecret shared secret
+	 * @param requestAuthenticator authenticator to decode attributes
+	 */
+	protected LazyAttributesList(final byte[] attributesData, final int[] attributesOffsets, final String sharedSecret,
+	        final RequestAuthenticator requestAuthenticator) {
+		super(AttributeType.VENDOR_NONE);
+		this.data = attributesData;
+		this.offsets = attributesOffsets;
+		this.secret = sharedSecret;
+		this.authenticator = requestAuthenticator;
+	}
+
+	/**
+	 * Index attributes of packet.
+	 * <P>
+	 * Chain of attributes is checked and remaining data of buffer is copied, so buffer can be reused after call.
+	 * </P>
+	 *
+	 * @param buf attributes data from position to limit. Position is set to limit.
+	 * @param secret shared secret
+	 * @param authenticator authenticator to decode attributes
+	 * @return list of attributes
+	 * @throws CodecException if chain of attributes is incorrect
+	 */
+	public static LazyAttributesList index(final ByteBuffer buf, final String secret,
+	        final RequestAuthenticator authenticator) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		if (authenticator == null) throw new IllegalArgumentException("null authenticator");
+		final byte[] attributesData = new byte[buf.remaining()];
+		buf.get(attributesData);
+		// count attributes
+		int count = 0;
+		int pos = 0;
+		while (pos < attributesData.length) {
+			if (attributesData.length - pos < RFCCodec.ATTRIBUTE_HEADER_LENGTH) throw new CodecException(
+			        "error decoding attribute - end of data");
+			final int length = attributesData[pos + 1] & 0x0FF;
+			if (length < RFCCodec.ATTRIBUTE_HEADER_LENGTH) throw new CodecException("incorrect attribute length: "
+			        + length);
+			if (pos + length > attributesData.length) throw new CodecException(
+			        "error decoding attribute - end of data");
+			pos += length;
+			count++;
+		}
+		// index offsets
+		final int[] attributesOffsets = new int[count];
+		pos = 0;
+		for (int i = 0; i < count; i++) {
+			attributesOffsets[i] = pos;
+			pos += attributesData[pos + 1] & 0x0FF;
+		}
+		return new LazyAttributesList(attributesData, attributesOffsets, secret, authenticator);
+	}
+
+	/**
+	 * Check that no decoded attribute has incorrect value. Must be called in synchronized block.
+	 *
+	 * @throws MalformedAttributeException if some attribute can not be decoded
+	 */
+	private void checkError() {
+		if (this.error != null) throw new MalformedAttributeException(this.error);
+	}
+
+	/**
+	 * Return attribute by index, decoding it if necessary. Must be called in synchronized block.
+	 *
+	 * @param index index of attribute
+	 * @return attribute
+	 * @throws MalformedAttributeException if attribute value is incorrect
+	 */
+	private RadiusAttribute attribute(final int index) {
+		this.checkError();
+		if (this.decoded == null) this.decoded = new RadiusAttribute[this.offsets.length];
+		RadiusAttribute attr = this.decoded[index];
+		if (attr != null) return attr;
+		final int offset = this.offsets[index];
+		try {
+			attr = RFCCodec.decodeAttribute(AttributeType.VENDOR_NONE, ByteBuffer.wrap(this.data, offset,
+			        this.data[offset + 1] & 0x0FF), this.secret, this.authenticator);
+		} catch (final CodecException ex) {
+			// error is kept, so attribute is not decoded and logged again
+			this.error = ex;
+			LazyAttributesList.log.warn("incorrect attribute of type " + (this.data[offset] & 0x0FF), ex);
+			throw new MalformedAttributeException(ex);
+		}
+		this.decoded[index] = attr;
+		return attr;
+	}
+
+	/**
+	 * Return true if some accessed attribute has incorrect value
+	 *
+	 * @return true if packet is malformed
+	 */
+	public synchronized boolean isMalformed() {
+		return this.error != null;
+	}
+
+	/**
+	 * Check if raw attribute may have given type
+	 *
+	 * @param index index of attribute
+	 * @param type type of attribute
+	 * @return true if attribute has type or it is vendor specific attribute of vendor of type
+	 */
+	private boolean mayContain(final int index, final AttributeType type) {
+		final int offset = this.offsets[index];
+		final int code = this.data[offset] & 0x0FF;
+		if (type.getVendorCode() == AttributeType.VENDOR_NONE) return code == type.getTypeCode();
+		if (code != VendorAttribute.TYPE_CODE || (this.data[offset + 1] & 0x0FF) < RFCCodec.ATTRIBUTE_HEADER_LENGTH + 4) return false;
+		final int vendor = (this.data[offset + 2] & 0x0FF) << 24 | (this.data[offset + 3] & 0x0FF) << 16
+		        | (this.data[offset + 4] & 0x0FF) << 8 | this.data[offset + 5] & 0x0FF;
+		return vendor == type.getVendorCode();
+	}
+
+	/**
+	 * Decode all attributes and add them to list. Must be called in synchronized block.
+	 *
+	 * @throws MalformedAttributeException if some attribute value is incorrect
+	 */
+	private void materialize() {
+		this.checkError();
+		if (this.materialized) return;
+		for (int i = 0; i < this.offsets.length; i++)
+			this.attribute(i);
+		for (int i = 0; i < this.offsets.length; i++)
+			super.add(this.decoded[i]);
+		this.materialized = true;
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#getFirst(org.dicr.radius.dictionary.AttributeType)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <A extends RadiusAttribute> A getFirst(final AttributeType type) {
+		if (type == null) throw new IllegalArgumentException("null type");
+		this.checkError();
+		if (this.materialized) return super.getFirst(type);
+		for (int i = 0; i < this.offsets.length; i++) {
+			if (!this.mayContain(i, type)) continue;
+			final RadiusAttribute attr = this.attribute(i);
+			if (attr.getType().equals(type)) return (A) attr;
+			if (attr instanceof VendorAttribute) {
+				final A result = ((VendorAttribute) attr).getAttributes().getFirst(type);
+				if (result != null) return result;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#findAll(org.dicr.radius.dictionary.AttributeType)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <A extends RadiusAttribute> List<A> findAll(final AttributeType type) {
+		if (type == null) throw new IllegalArgumentException("null attribute type");
+		this.checkError();
+		if (this.materialized) return super.findAll(type);
+		final List<A> result = new ArrayList<A>();
+		for (int i = 0; i < this.offsets.length; i++) {
+			if (!this.mayContain(i, type)) continue;
+			final RadiusAttribute attr = this.attribute(i);
+			if (attr.getType().equals(type)) result.add((A) attr);
+			else if (attr instanceof VendorAttribute) {
+				final List<A> vattrs = ((VendorAttribute) attr).getAttributes().findAll(type);
+				result.addAll(vattrs);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#add(org.dicr.radius.attribute.RadiusAttribute)
+	 */
+	@Override
+	public synchronized void add(final RadiusAttribute attr) {
+		this.materialize();
+		this.modified = true;
+		super.add(attr);
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#addAll(org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public synchronized void addAll(final AttributesList attributes) {
+		this.materialize();
+		this.modified = true;
+		super.addAll(attributes);
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#removeAll(org.dicr.radius.dictionary.AttributeType)
+	 */
+	@Override
+	public synchronized void removeAll(final AttributeType type) {
+		this.materialize();
+		this.modified = true;
+		super.removeAll(type);
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#clear()
+	 */
+	@Override
+	public synchronized void clear() {
+		this.materialize();
+		this.modified = true;
+		super.clear();
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#toList()
+	 */
+	@Override
+	public synchronized List<RadiusAttribute> toList() {
+		this.materialize();
+		return super.toList();
+	}
+
+	/**
+	 * @see org.dicr.radius.attribute.AttributesList#getSize()
+	 */
+	@Override
+	public synchronized int getSize() {
+		this.materialize();
+		return super.getSize();
+	}
+
+	/**
+	 * Encode attributes to buffer.
+	 * <P>
+	 * Attributes, which were not decoded, are copied from raw data. Decoded attributes are encoded again, because they
+	 * can be changed. Attributes are encoded only if list is not modified and secret and authenticator are the same as
+	 * of decoded packet, because values of some attributes are encrypted by them.
+	 * </P>
+	 *
+	 * @param buf buffer to encode to
+	 * @param sharedSecret shared secret of encoded packet
+	 * @param requestAuthenticator authenticator of encoded packet
+	 * @return true if attributes are encoded, false if they must be encoded by caller from {@link #toList()}
+	 * @throws CodecException if encoding error
+	 */
+	public synchronized boolean encode(final ByteBuffer buf, final String sharedSecret,
+	        final RequestAuthenticator requestAuthenticator) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		if (this.modified || !this.secret.equals(sharedSecret) || requestAuthenticator == null
+		        || !Arrays.equals(this.authenticator.getValue(), requestAuthenticator.getValue())) return false;
+		for (int i = 0; i < this.offsets.length; i++) {
+			final RadiusAttribute attr = this.decoded != null ? this.decoded[i] : null;
+			if (attr != null) RFCCodec.encodeAttribute(attr, buf, sharedSecret, requestAuthenticator);
+			else buf.put(this.data, this.offsets[i], this.data[this.offsets[i] + 1] & 0x0FF);
+		}
+		return true;
+	}
+
+	/**
+	 * Return string presentation. Packet is logged with its attributes, so method does not throw, when packet is
+	 * malformed.
+	 *
+	 * @see org.dicr.radius.attribute.AttributesList#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		try {
+			this.materialize();
+		} catch (final MalformedAttributeException ex) {
+			return LazyAttributesList.class.getSimpleName() + "{" + ex.getLocalizedMessage() + "}";
+		}
+		return super.toString();
+	}
+
+	/**
+	 * Return hash code. Malformed list is equal only to itself.
+	 *
+	 * @see org.dicr.radius.attribute.AttributesList#hashCode()
+	 */
+	@Override
+	public synchronized int hashCode() {
+		try {
+			this.materialize();
+		} catch (final MalformedAttributeException ex) {
+			return System.identityHashCode(this);
+		}
+		return super.hashCode();
+	}
+
+	/**
+	 * Compare attributes.
+	 * <P>
+	 * Attributes of both lists are taken by {@link #toList()} one after other, so locks of both lists are never held
+	 * at the same time. Malformed list is equal only to itself.
+	 * </P>
+	 *
+	 * @see org.dicr.radius.attribute.AttributesList#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) return true;
+		if (obj == null || this.getClass() != obj.getClass()) return false;
+		try {
+			final List<RadiusAttribute> attributes = this.toList();
+			return attributes.equals(((LazyAttributesList) obj).toList());
+		} catch (final MalformedAttributeException ex) {
+			return false;
+		}
+	}
+}
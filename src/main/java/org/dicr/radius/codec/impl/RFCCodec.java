@@ -7,16 +7,25 @@ import java.nio.*;
 import java.security.*;
 import java.util.*;
 
+import javax.crypto.*;
+
 import org.dicr.radius.attribute.*;
 import org.dicr.radius.codec.*;
 import org.dicr.radius.dictionary.*;
 import org.dicr.radius.exc.*;
 import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
 import org.dicr.radius.util.*;
 import org.dicr.util.data.*;
 
 /**
  * RFC Packet Codec.
+ * <P>
+ * When <CODE>lazyDecoding</CODE> is enabled (default), attributes of decoded packets are not decoded with packet, but
+ * indexed in {@link LazyAttributesList} and decoded on first access. Not accessed attributes of such packet are copied
+ * byte-for-byte, when packet is encoded again. Incorrect value of attribute of such packet is found, when attribute is
+ * accessed, and {@link MalformedAttributeException} is thrown instead of {@link CodecException} of decoding.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 061107
@@ -38,6 +47,33 @@ public class RFCCodec implements RadiusCodec {
 	public static final int ATTRIBUTE_VALUE_MAX_LENGTH = PACKET_MAX_LENGTH - PACKET_HEADER_LENGTH
 			- ATTRIBUTE_HEADER_LENGTH;
 
+	/** Type of Message-Authenticator attribute (RFC 3579) */
+	public static final int MESSAGE_AUTHENTICATOR_TYPE = 80;
+
+	/** Length of Message-Authenticator attribute */
+	public static final int MESSAGE_AUTHENTICATOR_LENGTH = ATTRIBUTE_HEADER_LENGTH + 16;
+
+	/** Decode attributes on first access */
+	private volatile boolean lazyDecoding = true;
+
+	/**
+     * Set lazy decoding
+     * 
+     * @param lazy decode attributes of packet on first access, instead of decoding with packet. Default true.
+     */
+	public void setLazyDecoding(boolean lazy) {
+		this.lazyDecoding = lazy;
+	}
+
+	/**
+     * Return lazy decoding
+     * 
+     * @return true if attributes of packet are decoded on first access
+     */
+	public boolean isLazyDecoding() {
+		return this.lazyDecoding;
+	}
+
 	/**
      * @see org.dicr.radius.codec.RadiusCodec#getPacketMaxLength()
      */
@@ -57,34 +93,152 @@ public class RFCCodec implements RadiusCodec {
 	/**
      * Make responce authenticator.
      * 
-     * @param packetData byte[] packet data
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @param length packet length
      * @param secret shared secret
      * @param requestAuthenticator byte[16] request authenticator.
      * @return byte[16] responce authenticator for packet data.
      */
-	private final static byte[] calculateResponceAuthenticator(byte[] packetData, int length, String secret, RequestAuthenticator requestAuthenticator) {
-		if (packetData == null || packetData.length < 1) throw new IllegalArgumentException("empty data");
-		if (length < RFCCodec.PACKET_HEADER_LENGTH || length > RFCCodec.PACKET_MAX_LENGTH || length > packetData.length) throw new IllegalArgumentException(
+	private final static byte[] calculateResponceAuthenticator(ByteBuffer packetData, int length, String secret, RequestAuthenticator requestAuthenticator) {
+		if (packetData == null) throw new IllegalArgumentException("null data");
+		if (length < RFCCodec.PACKET_HEADER_LENGTH || length > RFCCodec.PACKET_MAX_LENGTH || length > packetData.remaining()) throw new IllegalArgumentException(
 				"length: " + length);
 		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
 		if (requestAuthenticator == null) throw new IllegalArgumentException("null authenticator");
+		ByteBuffer buf = packetData.duplicate();
+		int start = buf.position();
 		// prepare message digest
 		MessageDigest md5 = MD5.getMD5Digest();
 		// md5 of code, id, length
-		md5.update(packetData, 0, 4);
+		buf.limit(start + 4);
+		md5.update(buf);
 		// md5 of request authenticator
 		md5.update(requestAuthenticator.getValue());
 		// md5 of packet data
-		if (length > RFCCodec.PACKET_HEADER_LENGTH) md5.update(packetData, RFCCodec.PACKET_HEADER_LENGTH, length
-				- RFCCodec.PACKET_HEADER_LENGTH);
+		if (length > RFCCodec.PACKET_HEADER_LENGTH) {
+			buf.limit(start + length);
+			buf.position(start + RFCCodec.PACKET_HEADER_LENGTH);
+			md5.update(buf);
+		}
 		// md5 of secret
 		md5.update(ByteUtils.toBytes(secret));
 		// get result
 		return md5.digest();
 	}
 
+	/**
+     * Return value of Length field of packet.
+     * <P>
+     * Datagram can be longer than packet, octets outside of Length field are padding (RFC 2865, section 3).
+     * </P>
+     * 
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @return length of packet
+     */
+	public static int getPacketLength(ByteBuffer packetData) {
+		if (packetData == null) throw new IllegalArgumentException("null data");
+		int start = packetData.position();
+		return (ByteUtils.unsigned(packetData.get(start + 2)) << 8) + ByteUtils.unsigned(packetData.get(start + 3));
+	}
+
+	/**
+     * Check authenticator of Accounting-Request (RFC 2866).
+     * 
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @param length packet length
+     * @param secret shared secret
+     * @return true if request authenticator match shared secret
+     */
+	public static boolean checkAccountingAuthenticator(ByteBuffer packetData, int length, String secret) {
+		byte[] expected = RFCCodec.calculateResponceAuthenticator(packetData, length, secret, new RequestAuthenticator(
+				new byte[RequestAuthenticator.LENGTH]));
+		int start = packetData.position() + 4;
+		for (int i = 0; i < expected.length; i++)
+			if (packetData.get(start + i) != expected[i]) return false;
+		return true;
+	}
+
+	/**
+     * Find attribute in packet data.
+     * 
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @param length packet length
+     * @param type type of attribute
+     * @return offset of the first attribute of type from packet start or -1 if not found
+     */
+	public static int findAttribute(ByteBuffer packetData, int length, int type) {
+		if (packetData == null) throw new IllegalArgumentException("null data");
+		int start = packetData.position();
+		int pos = RFCCodec.PACKET_HEADER_LENGTH;
+		while (pos + RFCCodec.ATTRIBUTE_HEADER_LENGTH <= length) {
+			int len = packetData.get(start + pos + 1) & 0x0FF;
+			if (len < RFCCodec.ATTRIBUTE_HEADER_LENGTH) break;
+			if ((packetData.get(start + pos) & 0x0FF) == type) return pos;
+			pos += len;
+		}
+		return -1;
+	}
+
+	/**
+     * Calculate Message-Authenticator (RFC 3579).
+     * <P>
+     * HMAC-MD5 is calculated over packet data, keyed by shared secret, as if value of Message-Authenticator attribute
+     * is zero. Packet data is not changed. Authenticator field of response packet must contain authenticator of request.
+     * </P>
+     * 
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @param length packet length
+     * @param offset offset of Message-Authenticator attribute from packet start
+     * @param mac HMAC-MD5, initialized by shared secret
+     * @return byte[16] value of Message-Authenticator
+     */
+	public static byte[] calculateMessageAuthenticator(ByteBuffer packetData, int length, int offset, Mac mac) {
+		if (packetData == null) throw new IllegalArgumentException("null data");
+		if (length < RFCCodec.PACKET_HEADER_LENGTH || length > packetData.remaining()) throw new IllegalArgumentException(
+				"length: " + length);
+		if (offset < RFCCodec.PACKET_HEADER_LENGTH || offset + RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH > length) throw new IllegalArgumentException(
+				"offset: " + offset);
+		if (mac == null) throw new IllegalArgumentException("null mac");
+		ByteBuffer buf = packetData.duplicate();
+		int start = buf.position();
+		mac.reset();
+		// data before value
+		buf.limit(start + offset + RFCCodec.ATTRIBUTE_HEADER_LENGTH);
+		mac.update(buf);
+		// zero value
+		mac.update(new byte[RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH - RFCCodec.ATTRIBUTE_HEADER_LENGTH]);
+		// data after value
+		buf.limit(start + length);
+		buf.position(start + offset + RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH);
+		mac.update(buf);
+		return mac.doFinal();
+	}
+
+	/**
+     * Check Message-Authenticator of request (RFC 3579).
+     * 
+     * @param packetData packet data, starting from buffer position. Position and limit of buffer are not changed.
+     * @param length packet length
+     * @param mac HMAC-MD5, initialized by shared secret
+     * @return true if packet has Message-Authenticator attribute and it match shared secret
+     */
+	public static boolean checkMessageAuthenticator(ByteBuffer packetData, int length, Mac mac) {
+		int offset = RFCCodec.findAttribute(packetData, length, RFCCodec.MESSAGE_AUTHENTICATOR_TYPE);
+		if (offset < 0 || offset + RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH > length
+				|| (packetData.get(packetData.position() + offset + 1) & 0x0FF) != RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH) return false;
+		byte[] expected = RFCCodec.calculateMessageAuthenticator(packetData, length, offset, mac);
+		int start = packetData.position() + offset + RFCCodec.ATTRIBUTE_HEADER_LENGTH;
+		for (int i = 0; i < expected.length; i++)
+			if (packetData.get(start + i) != expected[i]) return false;
+		return true;
+	}
+
 	/**
      * Decode attribute from buffer.
+     * <P>
+     * Attribute value is decoded directly from buffer, without copy. After decoding buffer position is set to the next
+     * attribute.
+     * </P>
      * 
      * @param vendor vendor of attribute
      * @param buf buffer to encode to
@@ -93,7 +247,7 @@ public class RFCCodec implements RadiusCodec {
      * @return decoded attribute
      * @throws CodecException if encoding error occur
      */
-	private static RadiusAttribute decodeAttribute(int vendor, ByteBuffer buf, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
+	static RadiusAttribute decodeAttribute(int vendor, ByteBuffer buf, String secret, RequestAuthenticator requestAuthenticator) throws CodecException {
 		if (vendor < 0 || vendor > AttributeType.VENDOR_MAX) throw new IllegalArgumentException("vendorCode: " + vendor);
 		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
 		if (buf == null) throw new IllegalArgumentException("null input buffer");
@@ -106,13 +260,20 @@ public class RFCCodec implements RadiusCodec {
 
 			// Length
 			int length = ByteUtils.unsigned(buf.get());
-			if (length < 0 || length > RFCCodec.ATTRIBUTE_VALUE_MAX_LENGTH) throw new CodecException(
+			if (length < RFCCodec.ATTRIBUTE_HEADER_LENGTH || length > RFCCodec.ATTRIBUTE_VALUE_MAX_LENGTH) throw new CodecException(
 					"incorrect attribute length: " + length);
 
 			// Value
-			byte data[] = new byte[length - RFCCodec.ATTRIBUTE_HEADER_LENGTH];
-			buf.get(data);
-			attribute.decodeValue(data, secret, requestAuthenticator);
+			int limit = buf.limit();
+			int end = buf.position() + length - RFCCodec.ATTRIBUTE_HEADER_LENGTH;
+			if (end > limit) throw new CodecException("error decoding attribute - end of data");
+			buf.limit(end);
+			try {
+				attribute.decodeValue(buf, secret, requestAuthenticator);
+			} finally {
+				buf.limit(limit);
+			}
+			buf.position(end);
 		} catch (BufferUnderflowException ex) {
 			throw new CodecException("error decoding attribute - end of data", ex);
 		} catch (IllegalArgumentException ex) {
@@ -137,28 +298,37 @@ public class RFCCodec implements RadiusCodec {
      * authenticator, then <CODE>{@link ChannelException}</CODE> is thrown.
      * </P>
      * 
+     * <P>
+     * Packet is decoded from remaining bytes of <CODE>data</CODE> buffer, which can be heap or direct buffer. Attribute
+     * values are decoded directly from buffer, without intermediate arrays. Position and limit of <CODE>data</CODE>
+     * are not changed.
+     * </P>
+     * 
      * @param data encoded packet data
      * @param request request packet for decoding {@link ResponsePacket} or null for decoding {@link RequestPacket}.
      * @param secret shared secret
+     * @param lazy index attributes to decode on first access, instead of decoding them
      * @return decoded packet (instance of {@link RequestPacket} packet if this parameter is null or instance of
      *         {@link ResponsePacket} packet if this set to instance of a {@link RequestPacket})
      * @throws CodecException TODO
      */
 	@SuppressWarnings("null")
-	private static final RadiusPacket decodePacket(byte[] data, RequestPacket request, String secret) throws CodecException {
+	private static final RadiusPacket decodePacket(ByteBuffer data, RequestPacket request, String secret, boolean lazy) throws CodecException {
 		if (data == null) throw new IllegalArgumentException("null data");
-		if (data.length < RFCCodec.PACKET_HEADER_LENGTH) throw new CodecException("incorrect data length: "
-				+ data.length);
+		if (data.remaining() < RFCCodec.PACKET_HEADER_LENGTH) throw new CodecException("incorrect data length: "
+				+ data.remaining());
 		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
 		RadiusPacket packet = null;
 		try {
 			// check data length
-			int length = (ByteUtils.unsigned(data[2]) << 8) + ByteUtils.unsigned(data[3]);
-			if (length < RFCCodec.PACKET_HEADER_LENGTH || length > RFCCodec.PACKET_MAX_LENGTH || length > data.length) throw new CodecException(
+			int start = data.position();
+			int length = (ByteUtils.unsigned(data.get(start + 2)) << 8) + ByteUtils.unsigned(data.get(start + 3));
+			if (length < RFCCodec.PACKET_HEADER_LENGTH || length > RFCCodec.PACKET_MAX_LENGTH || length > data.remaining()) throw new CodecException(
 					"length field=" + length);
 
 			// create buffer
-			ByteBuffer buf = ByteBuffer.wrap(data, 0, length);
+			ByteBuffer buf = data.duplicate();
+			buf.limit(start + length);
 
 			// CODE
 			int code = ByteUtils.unsigned(buf.get());
@@ -191,9 +361,12 @@ public class RFCCodec implements RadiusCodec {
 			packet.setAuthenticator(authenticator);
 
 			// Attributes
-			AttributesList attribs = packet.getAttributes();
-			while (buf.remaining() > 0)
-				attribs.add(RFCCodec.decodeAttribute(0, buf, secret, authenticator));
+			if (lazy) packet.setAttributes(LazyAttributesList.index(buf, secret, authenticator));
+			else {
+				AttributesList attribs = packet.getAttributes();
+				while (buf.remaining() > 0)
+					attribs.add(RFCCodec.decodeAttribute(0, buf, secret, authenticator));
+			}
 		} catch (BufferUnderflowException ex) {
 			throw new CodecException(ex);
 		} catch (IndexOutOfBoundsException ex) {
@@ -251,16 +424,23 @@ public class RFCCodec implements RadiusCodec {
      * calculated, based on authenticator of the <CODE>requestPacket</CODE> and <CODE>authenticator</CODE> of
      * response <CODE>packet</CODE> will set to calculated response authenticator.
      * </P>
+     * <P>
+     * Packet is encoded to <CODE>buf</CODE> from its position, length and authenticators are calculated in place, so
+     * no intermediate packet arrays are created. After encoding buffer position is set to the end of packet. If error
+     * occur, content of buffer after position is undefined.
+     * </P>
      * 
      * @param packet packet to encode - instance of {@link RequestPacket} or {@link ResponsePacket}.
      * @param requestPacket instance of {@link RequestPacket} if encoding packet is instance of {@link ResponsePacket}
      *            or <CODE>null</CODE> for other.
      * @param sharedSecret shared secret
-     * @return encoded packet data
-     * @throws CodecException TODO
+     * @param buf buffer to encode to, heap or direct
+     * @return length of encoded packet
+     * @throws CodecException if attribute can not be encoded, or encoded packet is longer than
+     *             {@link #PACKET_MAX_LENGTH} or does not fit remaining space of <CODE>buf</CODE>
      */
 	@SuppressWarnings("null")
-	private static final byte[] encodePacket(RadiusPacket packet, RequestPacket requestPacket, String sharedSecret) throws CodecException {
+	private static final int encodePacket(RadiusPacket packet, RequestPacket requestPacket, String sharedSecret, ByteBuffer buf) throws CodecException {
 		if (packet == null) throw new IllegalArgumentException("null packet");
 		if (packet instanceof ResponsePacket) {
 			if (requestPacket == null) throw new IllegalArgumentException(
@@ -271,16 +451,11 @@ public class RFCCodec implements RadiusCodec {
 		} else throw new IllegalArgumentException("unknown packet type [ResponsePacket, RequestPacket] of '"
 				+ packet.getClass() + "'");
 		if (sharedSecret == null || sharedSecret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		if (buf == null) throw new IllegalArgumentException("null buffer");
 
-		// result
-		byte[] result = null;
-
+		int start = buf.position();
+		int length = 0;
 		try {
-			// buffer to encode
-			byte[] data = new byte[RFCCodec.PACKET_MAX_LENGTH];
-			ByteBuffer buf = ByteBuffer.wrap(data);
-			buf.clear();
-
 			// Code
 			buf.put((byte) packet.getCode());
 
@@ -294,29 +469,58 @@ public class RFCCodec implements RadiusCodec {
 			// RequestAuthenticator
 			buf.put(packet.getAuthenticator().getValue());
 
-			// attributes
-			List<? extends RadiusAttribute> attrs = packet.getAttributes().toList();
-			for (RadiusAttribute attr : attrs)
-				RFCCodec.encodeAttribute(attr, buf, sharedSecret, packet.getAuthenticator());
+			// attributes, not accessed attributes of decoded packet are copied
+			AttributesList attribs = packet.getAttributes();
+			if (!(attribs instanceof LazyAttributesList)
+					|| !((LazyAttributesList) attribs).encode(buf, sharedSecret, packet.getAuthenticator())) {
+				List<? extends RadiusAttribute> attrs = attribs.toList();
+				for (RadiusAttribute attr : attrs)
+					RFCCodec.encodeAttribute(attr, buf, sharedSecret, packet.getAuthenticator());
+			}
+
+			// Message-Authenticator of Status-Server and response to it (RFC 5997), value is calculated later.
+			// Attribute of decoded packet is reused, because packet can have only one (RFC 3579)
+			int authenticatorOffset = -1;
+			if (packet.getCode() == StatusServer.CODE
+					|| (requestPacket != null && requestPacket.getCode() == StatusServer.CODE)) authenticatorOffset = RFCCodec
+					.findMessageAuthenticator(buf, start, buf.position());
+			if (authenticatorOffset == 0) {
+				authenticatorOffset = buf.position() - start;
+				buf.put((byte) RFCCodec.MESSAGE_AUTHENTICATOR_TYPE);
+				buf.put((byte) RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH);
+				for (int i = RFCCodec.ATTRIBUTE_HEADER_LENGTH; i < RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH; i++)
+					buf.put((byte) 0);
+			}
 
 			// Afterwrite calculated length
-			buf.flip();
-			int length = buf.limit();
+			length = buf.position() - start;
 			if (length > RFCCodec.PACKET_MAX_LENGTH) throw new CodecException("too lage radius packet size: " + length);
-			buf.putShort(2, (short) length);
+			buf.putShort(start + 2, (short) length);
+			buf.position(start);
+
+			// Afterwrite Message-Authenticator, calculated with request authenticator
+			if (authenticatorOffset >= 0) {
+				if (requestPacket != null) {
+					buf.position(start + 4);
+					buf.put(requestPacket.getAuthenticator().getValue());
+					buf.position(start);
+				}
+				byte[] messageAuthenticator = RFCCodec.calculateMessageAuthenticator(buf, length,
+						authenticatorOffset, MD5.getHmacMD5(ByteUtils.toBytes(sharedSecret)));
+				buf.position(start + authenticatorOffset + RFCCodec.ATTRIBUTE_HEADER_LENGTH);
+				buf.put(messageAuthenticator);
+				buf.position(start);
+			}
 
 			// Afterwrite calculated authenticator
 			if (packet instanceof ResponsePacket) {
-				byte[] responseAuthenticator = RFCCodec.calculateResponceAuthenticator(data, length, sharedSecret,
+				byte[] responseAuthenticator = RFCCodec.calculateResponceAuthenticator(buf, length, sharedSecret,
 						requestPacket.getAuthenticator());
 				packet.setAuthenticator(new RequestAuthenticator(responseAuthenticator));
-				buf.position(4);
+				buf.position(start + 4);
 				buf.put(responseAuthenticator);
 			}
-
-			// copy result
-			result = new byte[length];
-			System.arraycopy(data, 0, result, 0, length);
+			buf.position(start + length);
 		} catch (BufferOverflowException ex) {
 			throw new CodecException("to lage packet size", ex);
 		} catch (IndexOutOfBoundsException ex) {
@@ -324,7 +528,45 @@ public class RFCCodec implements RadiusCodec {
 		} catch (IllegalArgumentException ex) {
 			throw new CodecException(ex);
 		}
-		return result;
+		return length;
+	}
+
+	/**
+     * Find encoded Message-Authenticator attribute
+     * 
+     * @param buf buffer with encoded packet
+     * @param start position of packet
+     * @param end end of encoded attributes
+     * @return offset of attribute from start of packet, or 0 if packet has no Message-Authenticator
+     */
+	private static final int findMessageAuthenticator(ByteBuffer buf, int start, int end) {
+		int pos = start + RFCCodec.PACKET_HEADER_LENGTH;
+		while (pos + RFCCodec.ATTRIBUTE_HEADER_LENGTH <= end) {
+			int attributeLength = buf.get(pos + 1) & 0xFF;
+			if (attributeLength < RFCCodec.ATTRIBUTE_HEADER_LENGTH) break;
+			if ((buf.get(pos) & 0xFF) == RFCCodec.MESSAGE_AUTHENTICATOR_TYPE
+					&& attributeLength == RFCCodec.MESSAGE_AUTHENTICATOR_LENGTH) return pos - start;
+			pos += attributeLength;
+		}
+		return 0;
+	}
+
+	/**
+     * Encode packet to array.
+     * 
+     * @param packet packet to encode - instance of {@link RequestPacket} or {@link ResponsePacket}.
+     * @param requestPacket instance of {@link RequestPacket} if encoding packet is instance of {@link ResponsePacket}
+     *            or <CODE>null</CODE> for other.
+     * @param sharedSecret shared secret
+     * @return encoded packet data
+     * @throws CodecException if attribute can not be encoded, or encoded packet is longer than
+     *             {@link #PACKET_MAX_LENGTH}
+     * @see #encodePacket(RadiusPacket, RequestPacket, String, ByteBuffer)
+     */
+	private static final byte[] encodePacket(RadiusPacket packet, RequestPacket requestPacket, String sharedSecret) throws CodecException {
+		ByteBuffer buf = ByteBuffer.allocate(RFCCodec.PACKET_MAX_LENGTH);
+		int length = RFCCodec.encodePacket(packet, requestPacket, sharedSecret, buf);
+		return Arrays.copyOf(buf.array(), length);
 	}
 
 	/**
@@ -342,6 +584,24 @@ public class RFCCodec implements RadiusCodec {
 		return RFCCodec.encodePacket(packet, null, secret);
 	}
 
+	/**
+     * Encode request packet to buffer.
+     * 
+     * @param packet request packet to encode
+     * @param secret shared secret
+     * @param buf buffer to encode to, starting from position
+     * @return length of encoded packet
+     * @see org.dicr.radius.codec.RadiusCodec#encodeRequest(org.dicr.radius.packet.RequestPacket, java.lang.String,
+     *      java.nio.ByteBuffer)
+     */
+	@Override
+    public final int encodeRequest(RequestPacket packet, String secret, ByteBuffer buf) throws CodecException {
+		if (packet == null) throw new IllegalArgumentException("null packet");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		return RFCCodec.encodePacket(packet, null, secret, buf);
+	}
+
 	/**
      * Encode response packet.
      * <P>
@@ -364,6 +624,30 @@ public class RFCCodec implements RadiusCodec {
 		return RFCCodec.encodePacket(packet, request, secret);
 	}
 
+	/**
+     * Encode response packet to buffer.
+     * <P>
+     * Response authenticator is calculated in place, so response is encoded without intermediate arrays.
+     * </P>
+     * 
+     * @param packet response packet to encode
+     * @param request request packet of this response
+     * @param secret shared secret
+     * @param buf buffer to encode to, starting from position
+     * @return length of encoded packet
+     * @see #encodeResponse(ResponsePacket, RequestPacket, String)
+     * @see org.dicr.radius.codec.RadiusCodec#encodeResponse(org.dicr.radius.packet.ResponsePacket,
+     *      org.dicr.radius.packet.RequestPacket, java.lang.String, java.nio.ByteBuffer)
+     */
+	@Override
+    public final int encodeResponse(ResponsePacket packet, RequestPacket request, String secret, ByteBuffer buf) throws CodecException {
+		if (packet == null) throw new IllegalArgumentException("null response packet");
+		if (request == null) throw new IllegalArgumentException("null request packet");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		return RFCCodec.encodePacket(packet, request, secret, buf);
+	}
+
 	/**
      * Decode request packet.
      * <P>
@@ -380,7 +664,26 @@ public class RFCCodec implements RadiusCodec {
     public RequestPacket decodeRequest(byte[] data, String secret) throws CodecException {
 		if (data == null) throw new IllegalArgumentException("null data");
 		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
-		return (RequestPacket) RFCCodec.decodePacket(data, null, secret);
+		return (RequestPacket) RFCCodec.decodePacket(ByteBuffer.wrap(data), null, secret, this.lazyDecoding);
+	}
+
+	/**
+     * Decode request packet from buffer.
+     * <P>
+     * If decoded packet is not instance of <CODE>{@link RequestPacket}</CODE>, then <CODE>{@link ChannelException}
+     * is thrown.
+     * </P>
+     * 
+     * @param data encoded packet data (remaining bytes of buffer)
+     * @param secret shared secret
+     * @return decoded request packet
+     * @see org.dicr.radius.codec.RadiusCodec#decodeRequest(java.nio.ByteBuffer, java.lang.String)
+     */
+	@Override
+    public RequestPacket decodeRequest(ByteBuffer data, String secret) throws CodecException {
+		if (data == null) throw new IllegalArgumentException("null data");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("empty secret");
+		return (RequestPacket) RFCCodec.decodePacket(data, null, secret, this.lazyDecoding);
 	}
 
 	/**
@@ -404,6 +707,25 @@ public class RFCCodec implements RadiusCodec {
 		if (data == null) throw new IllegalArgumentException("null data");
 		if (request == null) throw new IllegalArgumentException("null request");
 		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("null secret");
-		return (ResponsePacket) RFCCodec.decodePacket(data, request, secret);
+		return (ResponsePacket) RFCCodec.decodePacket(ByteBuffer.wrap(data), request, secret, this.lazyDecoding);
+	}
+
+	/**
+     * Decode response packet from buffer.
+     * 
+     * @param data encoded packet data (remaining bytes of buffer)
+     * @param request request packet for which response is decoding
+     * @param secret shared secret
+     * @return decoded response packet which match request packet
+     * @see #decodeResponse(byte[], RequestPacket, String)
+     * @see org.dicr.radius.codec.RadiusCodec#decodeResponse(java.nio.ByteBuffer,
+     *      org.dicr.radius.packet.RequestPacket, java.lang.String)
+     */
+	@Override
+    public ResponsePacket decodeResponse(ByteBuffer data, RequestPacket request, String secret) throws CodecException {
+		if (data == null) throw new IllegalArgumentException("null data");
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (secret == null || secret.isEmpty()) throw new IllegalArgumentException("null secret");
+		return (ResponsePacket) RFCCodec.decodePacket(data, request, secret, this.lazyDecoding);
 	}
 }
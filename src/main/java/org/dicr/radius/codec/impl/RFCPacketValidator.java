@@ -0,0 +1,112 @@
+/**
+ * RFCPacketValidator.java 18.10.2026
+ */
+package org.dicr.radius.codec.impl;
+
+import java.nio.*;
+
+import org.dicr.radius.attribute.types.*;
+import org.dicr.radius.codec.*;
+import org.dicr.radius.dictionary.*;
+import org.dicr.radius.packet.*;
+
+/**
+ * RFC Packet Validator.
+ * <P>
+ * Walk packet in place and check code, length field against datagram size, chain of attributes and chain of vendor
+ * specific sub-attributes, the same way as they are decoded by {@link RFCCodec}.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class RFCPacketValidator implements PacketValidator {
+	/** Reasons descriptions */
+	private static final String[] REASONS = { "valid", "short packet", "incorrect length field",
+	        "unknown packet code", "incorrect attribute length", "incorrect vendor attribute" };
+
+	/**
+	 * Constructor
+	 */
+	public RFCPacketValidator() {
+		super();
+	}
+
+	/**
+	 * @see org.dicr.radius.codec.PacketValidator#validateRequest(java.nio.ByteBuffer)
+	 */
+	@Override
+	public int validateRequest(final ByteBuffer data) {
+		if (data == null) throw new IllegalArgumentException("null data");
+		if (data.remaining() < RFCCodec.PACKET_HEADER_LENGTH) return PacketValidator.REASON_SHORT_PACKET;
+		if (!PacketFactory.isRequestCode(data.get(data.position()) & 0x0FF)) return PacketValidator.REASON_BAD_CODE;
+		return RFCPacketValidator.validatePacket(data);
+	}
+
+	/**
+	 * @see org.dicr.radius.codec.PacketValidator#validateResponse(java.nio.ByteBuffer)
+	 */
+	@Override
+	public int validateResponse(final ByteBuffer data) {
+		if (data == null) throw new IllegalArgumentException("null data");
+		if (data.remaining() < RFCCodec.PACKET_HEADER_LENGTH) return PacketValidator.REASON_SHORT_PACKET;
+		if (!PacketFactory.isResponseCode(data.get(data.position()) & 0x0FF)) return PacketValidator.REASON_BAD_CODE;
+		return RFCPacketValidator.validatePacket(data);
+	}
+
+	/**
+	 * Validate length and attributes
+	 * 
+	 * @param data packet data
+	 * @return reason code
+	 */
+	private static int validatePacket(final ByteBuffer data) {
+		final int start = data.position();
+		final int length = ((data.get(start + 2) & 0x0FF) << 8) + (data.get(start + 3) & 0x0FF);
+		if (length < RFCCodec.PACKET_HEADER_LENGTH || length > RFCCodec.PACKET_MAX_LENGTH
+		        || length > data.remaining()) return PacketValidator.REASON_BAD_LENGTH;
+		final int end = start + length;
+		int pos = start + RFCCodec.PACKET_HEADER_LENGTH;
+		while (pos < end) {
+			if (end - pos < RFCCodec.ATTRIBUTE_HEADER_LENGTH) return PacketValidator.REASON_BAD_ATTRIBUTE;
+			final int type = data.get(pos) & 0x0FF;
+			final int len = data.get(pos + 1) & 0x0FF;
+			if (len < RFCCodec.ATTRIBUTE_HEADER_LENGTH || pos + len > end) return PacketValidator.REASON_BAD_ATTRIBUTE;
+			if (type == VendorAttribute.TYPE_CODE
+			        && !RFCPacketValidator.validateVendor(data, pos + RFCCodec.ATTRIBUTE_HEADER_LENGTH, pos + len)) return PacketValidator.REASON_BAD_VENDOR_ATTRIBUTE;
+			pos += len;
+		}
+		return PacketValidator.VALID;
+	}
+
+	/**
+	 * Validate vendor specific attribute value
+	 * 
+	 * @param data packet data
+	 * @param start start of value
+	 * @param end end of value
+	 * @return true if value is valid
+	 */
+	private static boolean validateVendor(final ByteBuffer data, final int start, final int end) {
+		if (end - start < 4) return false;
+		final int vendor = data.getInt(start);
+		if (vendor < 0 || vendor > AttributeType.VENDOR_MAX) return false;
+		int pos = start + 4;
+		while (pos < end) {
+			if (end - pos < RFCCodec.ATTRIBUTE_HEADER_LENGTH) return false;
+			final int len = data.get(pos + 1) & 0x0FF;
+			if (len < RFCCodec.ATTRIBUTE_HEADER_LENGTH || pos + len > end) return false;
+			pos += len;
+		}
+		return true;
+	}
+
+	/**
+	 * @see org.dicr.radius.codec.PacketValidator#getReasonText(int)
+	 */
+	@Override
+	public String getReasonText(final int reason) {
+		if (reason < 0 || reason >= RFCPacketValidator.REASONS.length) return "reason " + reason;
+		return RFCPacketValidator.REASONS[reason];
+	}
+}
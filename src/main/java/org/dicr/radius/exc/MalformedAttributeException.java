@@ -0,0 +1,28 @@
+/**
+ * MalformedAttributeException.java 18.10.2026
+ */
+package org.dicr.radius.exc;
+
+/**
+ * Attribute of received packet has incorrect value.
+ * <P>
+ * Thrown by attributes list of packet, which attributes are decoded on first access, when accessed attribute can not be
+ * decoded. Exception is unchecked, because methods of attributes list do not declare exceptions. Packet with such
+ * attribute is malformed and must be dropped without response, as if it was not decoded.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class MalformedAttributeException extends IllegalStateException {
+	private static final long serialVersionUID = 2612218475061437913L;
+
+	/**
+     * Constructor
+     *
+     * @param cause error of attribute decoding
+     */
+	public MalformedAttributeException(CodecException cause) {
+		super("malformed attribute: " + cause.getLocalizedMessage(), cause);
+	}
+}
@@ -0,0 +1,28 @@
+/**
+ * AsyncAccountingModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.attribute.*;
+
+/**
+ * Asynchronous Accounting Module.
+ * <P>
+ * Completion is completed with attributes for AccountingResponse packet, or failed with
+ * {@link org.dicr.radius.exc.AccountingException} if can not process accounting request.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncAccountingModule {
+	/**
+     * Process accounting request
+     * 
+     * @param statusType accounting status type
+     * @param sessionId session id
+     * @param requestAttributes request attributes
+     * @return completion of attributes for accounting response
+     */
+	public Completion<AttributesList> processAccountingAsync(int statusType, String sessionId, AttributesList requestAttributes);
+}
@@ -0,0 +1,30 @@
+/**
+ * AsyncCHAPAuthModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+
+/**
+ * Asynchronous CHAP Authentication module.
+ * <P>
+ * Completion is completed with attributes for AccessAccept packet, or failed with
+ * {@link org.dicr.radius.exc.AuthenticationException} if authentication fail.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncCHAPAuthModule {
+	/**
+     * Authenticate using CHAP method.
+     * 
+     * @param userName user name
+     * @param password chap password
+     * @param challenge chap challenge
+     * @param requestAttributes attributes from AccessRequest packet
+     * @return completion of response attributes (may be empty or null)
+     */
+	public Completion<AttributesList> authChapAsync(String userName, ChapPassword password, ChapChallenge challenge, AttributesList requestAttributes);
+}
@@ -0,0 +1,31 @@
+/**
+ * AsyncMSChap2AuthModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.attribute.ms.*;
+
+/**
+ * Asynchronous MS-CHAP-V2 Authentication module.
+ * <P>
+ * Completion is completed with attributes for AccessAccept packet, or failed with
+ * {@link org.dicr.radius.exc.AuthenticationException} if authentication fail.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncMSChap2AuthModule {
+	/**
+     * Authenticate using MS-CHAP-V2 method.
+     * 
+     * @param userName user name
+     * @param challenge MS-CHAP challenge
+     * @param response MS-CHAP-V2 response
+     * @param requestAttributes attributes from AccessRequest packet
+     * @return completion of response attributes (may be empty or null)
+     */
+	public Completion<AttributesList> authMSChap2Async(UserName userName, MSChapChallenge challenge, MSChap2Response response, AttributesList requestAttributes);
+}
@@ -0,0 +1,31 @@
+/**
+ * AsyncMSChapAuthModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.attribute.ms.*;
+
+/**
+ * Asynchronous MS-CHAP Authentication module.
+ * <P>
+ * Completion is completed with attributes for AccessAccept packet, or failed with
+ * {@link org.dicr.radius.exc.AuthenticationException} if authentication fail.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncMSChapAuthModule {
+	/**
+     * Authenticate using MS-CHAP method.
+     * 
+     * @param userName user name
+     * @param challenge MS-CHAP challenge
+     * @param response MS-CHAP response
+     * @param requestAttributes attributes from AccessRequest packet
+     * @return completion of response attributes (may be empty or null)
+     */
+	public Completion<AttributesList> authMSCHAPAsync(UserName userName, MSChapChallenge challenge, MSChapResponse response, AttributesList requestAttributes);
+}
@@ -0,0 +1,28 @@
+/**
+ * AsyncPAPAuthModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.attribute.*;
+
+/**
+ * Asynchronous PAP Authentication module.
+ * <P>
+ * Completion is completed with attributes for AccessAccept packet, or failed with
+ * {@link org.dicr.radius.exc.AuthenticationException} if authentication fail.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncPAPAuthModule {
+	/**
+     * Authenticate using PAP method.
+     * 
+     * @param userName user name
+     * @param userPassword user password
+     * @param requestAttributes attributes from AccessRequest packet
+     * @return completion of response attributes (may be empty or null)
+     */
+	public Completion<AttributesList> authPapAsync(String userName, String userPassword, AttributesList requestAttributes);
+}
@@ -0,0 +1,30 @@
+/**
+ * AsyncRequestHandler.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import org.dicr.radius.packet.*;
+
+/**
+ * Asynchronous handler of RequestPacketS.
+ * <P>
+ * Handler return {@link Completion} of response, so server thread is not blocked while request is handled by remote
+ * backend. Synchronous {@link RequestHandler} can be used by {@link org.dicr.radius.handler.impl.SyncRequestHandlerAdapter}.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface AsyncRequestHandler {
+	/**
+     * Handle request asynchronously.
+     * <P>
+     * Completion is completed with response packet, or with null if request can not be handled. If completion is
+     * failed (with {@link org.dicr.radius.exc.RequestHandlerException}), no reply is sent.
+     * </P>
+     * 
+     * @param request request to handle
+     * @return completion of response
+     */
+	public Completion<ResponsePacket> handleRequestAsync(RequestPacket request);
+}
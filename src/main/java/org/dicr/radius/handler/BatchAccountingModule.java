@@ -0,0 +1,30 @@
+/**
+ * BatchAccountingModule.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import java.util.*;
+
+import org.dicr.radius.attribute.*;
+
+/**
+ * Batch Accounting Module.
+ * <P>
+ * Module process several accounting requests at once, so records can be stored by one database round trip or one
+ * <CODE>fsync</CODE>. Each request has own completion, which is completed with attributes for AccountingResponse
+ * packet, or failed with {@link org.dicr.radius.exc.AccountingException} if can not process accounting request.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface BatchAccountingModule {
+	/**
+     * Process accounting requests
+     * 
+     * @param requestsAttributes attributes of requests. Each request has Acct-Status-Type and Acct-Session-Id
+     *            attributes.
+     * @return completions of attributes for accounting responses, in order of requests
+     */
+	public List<Completion<AttributesList>> processAccountingBatch(List<AttributesList> requestsAttributes);
+}
@@ -0,0 +1,33 @@
+/**
+ * BatchRequestHandler.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import java.util.*;
+
+import org.dicr.radius.packet.*;
+
+/**
+ * Handler of batches of RequestPacketS.
+ * <P>
+ * Server collect several dequeued requests and pass them to handler at once, so backend can process them together (for
+ * example, write accounting records by one database transaction). Each request has own completion, so responses are
+ * sent as soon as each request is completed, not when whole batch is completed.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public interface BatchRequestHandler {
+	/**
+     * Handle batch of requests.
+     * <P>
+     * Each completion is completed with response packet, or with null if request can not be handled. If completion is
+     * failed (with {@link org.dicr.radius.exc.RequestHandlerException}), no reply is sent to this request.
+     * </P>
+     * 
+     * @param requests requests to handle
+     * @return completions of responses, in order of requests
+     */
+	public List<Completion<ResponsePacket>> handleRequests(List<RequestPacket> requests);
+}
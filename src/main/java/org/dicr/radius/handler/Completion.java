@@ -0,0 +1,214 @@
+/**
+ * Completion.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.log4j.*;
+
+/**
+ * Result of asynchronous operation.
+ * <P>
+ * Completion is completed once by {@link #complete(Object)} or {@link #fail(Throwable)}, usually in other thread.
+ * Listeners, added by {@link #whenComplete(CompletionListener)}, are called in thread, which complete operation, or in
+ * current thread if operation is already completed.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ * @param <T> type of result
+ */
+public class Completion<T> implements Future<T> {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(Completion.class);
+
+	/** Completed flag */
+	private boolean done = false;
+
+	/** Result */
+	private T result = null;
+
+	/** Error */
+	private Throwable error = null;
+
+	/** Listeners, waiting for completion */
+	private List<CompletionListener<? super T>> listeners = null;
+
+	/**
+	 * Constructor of not completed operation
+	 */
+	public Completion() {
+		super();
+	}
+
+	/**
+	 * Create completed operation
+	 * 
+	 * @param <T> type of result
+	 * @param value result
+	 * @return completed operation
+	 */
+	public static <T> Completion<T> completed(final T value) {
+		final Completion<T> completion = new Completion<T>();
+		completion.complete(value);
+		return completion;
+	}
+
+	/**
+	 * Create failed operation
+	 * 
+	 * @param <T> type of result
+	 * @param cause error
+	 * @return failed operation
+	 */
+	public static <T> Completion<T> failed(final Throwable cause) {
+		final Completion<T> completion = new Completion<T>();
+		completion.fail(cause);
+		return completion;
+	}
+
+	/**
+	 * Complete operation with result
+	 * 
+	 * @param value result of operation
+	 * @return true if completed, false if operation is already completed
+	 */
+	public boolean complete(final T value) {
+		return this.finish(value, null);
+	}
+
+	/**
+	 * Complete operation with error
+	 * 
+	 * @param cause error of operation
+	 * @return true if completed, false if operation is already completed
+	 */
+	public boolean fail(final Throwable cause) {
+		if (cause == null) throw new IllegalArgumentException("null error");
+		return this.finish(null, cause);
+	}
+
+	/**
+	 * Complete operation and call listeners
+	 * 
+	 * @param value result
+	 * @param cause error
+	 * @return true if completed
+	 */
+	private boolean finish(final T value, final Throwable cause) {
+		List<CompletionListener<? super T>> waiting = null;
+		synchronized (this) {
+			if (this.done) return false;
+			this.done = true;
+			this.result = value;
+			this.error = cause;
+			waiting = this.listeners;
+			this.listeners = null;
+			this.notifyAll();
+		}
+		if (waiting != null) for (final CompletionListener<? super T> listener : waiting)
+			this.fire(listener, value, cause);
+		return true;
+	}
+
+	/**
+	 * Call listener
+	 * 
+	 * @param listener listener
+	 * @param value result
+	 * @param cause error
+	 */
+	private void fire(final CompletionListener<? super T> listener, final T value, final Throwable cause) {
+		try {
+			listener.completed(value, cause);
+		} catch (final Throwable th) {
+			Completion.log.error("completion listener error", th);
+		}
+	}
+
+	/**
+	 * Add listener of completion.
+	 * 
+	 * @param listener listener, called once, when operation is completed
+	 * @return this completion
+	 */
+	public Completion<T> whenComplete(final CompletionListener<? super T> listener) {
+		if (listener == null) throw new IllegalArgumentException("null listener");
+		T value = null;
+		Throwable cause = null;
+		synchronized (this) {
+			if (!this.done) {
+				if (this.listeners == null) this.listeners = new ArrayList<CompletionListener<? super T>>(1);
+				this.listeners.add(listener);
+				return this;
+			}
+			value = this.result;
+			cause = this.error;
+		}
+		this.fire(listener, value, cause);
+		return this;
+	}
+
+	/**
+	 * @see java.util.concurrent.Future#cancel(boolean)
+	 */
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		return this.fail(new CancellationException());
+	}
+
+	/**
+	 * @see java.util.concurrent.Future#isCancelled()
+	 */
+	@Override
+	public synchronized boolean isCancelled() {
+		return this.error instanceof CancellationException;
+	}
+
+	/**
+	 * @see java.util.concurrent.Future#isDone()
+	 */
+	@Override
+	public synchronized boolean isDone() {
+		return this.done;
+	}
+
+	/**
+	 * @see java.util.concurrent.Future#get()
+	 */
+	@Override
+	public synchronized T get() throws InterruptedException, ExecutionException {
+		while (!this.done)
+			this.wait();
+		return this.getResult();
+	}
+
+	/**
+	 * @see java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public synchronized T get(final long timeout, final TimeUnit unit) throws InterruptedException,
+	        ExecutionException, TimeoutException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!this.done) {
+			final long wait = deadline - System.nanoTime();
+			if (wait <= 0) throw new TimeoutException();
+			TimeUnit.NANOSECONDS.timedWait(this, wait);
+		}
+		return this.getResult();
+	}
+
+	/**
+	 * Return result of completed operation. Must be called in synchronized block.
+	 * 
+	 * @return result
+	 * @throws ExecutionException if operation failed
+	 */
+	private T getResult() throws ExecutionException {
+		if (this.error instanceof CancellationException) throw (CancellationException) this.error;
+		if (this.error != null) throw new ExecutionException(this.error);
+		return this.result;
+	}
+}
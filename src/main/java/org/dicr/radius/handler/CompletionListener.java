@@ -0,0 +1,21 @@
+/**
+ * CompletionListener.java 18.10.2026
+ */
+package org.dicr.radius.handler;
+
+/**
+ * Listener of {@link Completion}.
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ * @param <T> type of result
+ */
+public interface CompletionListener<T> {
+	/**
+     * Called when operation is completed.
+     * 
+     * @param result result of operation or null if operation failed
+     * @param error error of operation or null if operation succeeded
+     */
+	public void completed(T result, Throwable error);
+}
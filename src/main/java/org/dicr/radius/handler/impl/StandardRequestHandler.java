@@ -4,6 +4,7 @@
 package org.dicr.radius.handler.impl;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.apache.log4j.*;
 import org.dicr.radius.attribute.*;
@@ -21,11 +22,20 @@ import org.dicr.radius.packet.impl.*;
  * authentication it use {@link PAPAuthModule}. If request packet type or authentication is unknown, or authentication
  * module is not set or not able to handle authentication scheme, it simply skip request processing and return null
  * Response.
+ * <P>
+ * Modules may be set as asynchronous modules (for example {@link AsyncPAPAuthModule}), which complete authentication in
+ * other thread, so server thread is not blocked by remote backend. Synchronous modules are wrapped by
+ * {@link SyncModuleAdapter}.
+ * </P>
+ * <P>
+ * If {@link BatchAccountingModule} is set, accounting requests of batch are passed to module at once, and single
+ * accounting requests are passed as batch of one request.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 060616
  */
-public class StandardRequestHandler implements RequestHandler {
+public class StandardRequestHandler implements RequestHandler, AsyncRequestHandler, BatchRequestHandler {
 	private static final Logger log = Logger.getLogger(StandardRequestHandler.class);
 
 	/** PAP authentication module */
@@ -43,6 +53,24 @@ public class StandardRequestHandler implements RequestHandler {
 	/** Accounting module */
 	private AccountingModule accountingModule = null;
 
+	/** Asynchronous PAP authentication module */
+	private AsyncPAPAuthModule asyncPapAuthModule = null;
+
+	/** Asynchronous CHAP authentication module */
+	private AsyncCHAPAuthModule asyncChapAuthModule = null;
+
+	/** Asynchronous MS-CHAP authentication module */
+	private AsyncMSChapAuthModule asyncMSChapAuthModule = null;
+
+	/** Asynchronous MS-CHAP-2 authentication module */
+	private AsyncMSChap2AuthModule asyncMSChap2AuthModule = null;
+
+	/** Asynchronous accounting module */
+	private AsyncAccountingModule asyncAccountingModule = null;
+
+	/** Batch accounting module */
+	private BatchAccountingModule batchAccountingModule = null;
+
 	/** Accounting interval */
 	private int accountingInterval = -1;
 
@@ -60,6 +88,7 @@ public class StandardRequestHandler implements RequestHandler {
 	 */
 	public void setPapAuthModule(final PAPAuthModule module) {
 		this.papAuthModule = module;
+		this.asyncPapAuthModule = module != null ? new SyncModuleAdapter(module) : null;
 	}
 
 	/**
@@ -71,6 +100,25 @@ public class StandardRequestHandler implements RequestHandler {
 		return this.papAuthModule;
 	}
 
+	/**
+	 * Set asynchronous authentication module for PAP scheme.
+	 * 
+	 * @param module asynchronous authentication module or null to disable
+	 */
+	public void setAsyncPapAuthModule(final AsyncPAPAuthModule module) {
+		this.papAuthModule = null;
+		this.asyncPapAuthModule = module;
+	}
+
+	/**
+	 * Return asynchronous module, which process PAP authentication.
+	 * 
+	 * @return asynchronous PAP authentication module (adapter of synchronous module) or null if not set
+	 */
+	public AsyncPAPAuthModule getAsyncPapAuthModule() {
+		return this.asyncPapAuthModule;
+	}
+
 	/**
 	 * Set authentication module for CHAP scheme. This module must be able to handle CHAP authentication.
 	 * 
@@ -78,6 +126,7 @@ public class StandardRequestHandler implements RequestHandler {
 	 */
 	public void setChapAuthModule(final CHAPAuthModule module) {
 		this.chapAuthModule = module;
+		this.asyncChapAuthModule = module != null ? new SyncModuleAdapter(module) : null;
 	}
 
 	/**
@@ -89,6 +138,25 @@ public class StandardRequestHandler implements RequestHandler {
 		return this.chapAuthModule;
 	}
 
+	/**
+	 * Set asynchronous authentication module for CHAP scheme.
+	 * 
+	 * @param module asynchronous authentication module or null to disable
+	 */
+	public void setAsyncChapAuthModule(final AsyncCHAPAuthModule module) {
+		this.chapAuthModule = null;
+		this.asyncChapAuthModule = module;
+	}
+
+	/**
+	 * Return asynchronous module, which process CHAP authentication.
+	 * 
+	 * @return asynchronous CHAP authentication module (adapter of synchronous module) or null if not set
+	 */
+	public AsyncCHAPAuthModule getAsyncChapAuthModule() {
+		return this.asyncChapAuthModule;
+	}
+
 	/**
 	 * Set accounting module
 	 * 
@@ -96,6 +164,7 @@ public class StandardRequestHandler implements RequestHandler {
 	 */
 	public void setAccountingModule(final AccountingModule module) {
 		this.accountingModule = module;
+		this.asyncAccountingModule = module != null ? new SyncModuleAdapter(module) : null;
 	}
 
 	/**
@@ -114,6 +183,26 @@ public class StandardRequestHandler implements RequestHandler {
 	 */
 	public void setMSChapAuthModule(final MSChapAuthModule module) {
 		this.msChapAuthModule = module;
+		this.asyncMSChapAuthModule = module != null ? new SyncModuleAdapter(module) : null;
+	}
+
+	/**
+	 * Return asynchronous MS-CHAP authentication module
+	 * 
+	 * @return auth module (adapter of synchronous module) or null if not set
+	 */
+	public AsyncMSChapAuthModule getAsyncMSChapAuthModule() {
+		return this.asyncMSChapAuthModule;
+	}
+
+	/**
+	 * Set asynchronous MS-CHAP authentication module
+	 * 
+	 * @param module auth module
+	 */
+	public void setAsyncMSChapAuthModule(final AsyncMSChapAuthModule module) {
+		this.msChapAuthModule = null;
+		this.asyncMSChapAuthModule = module;
 	}
 
 	/**
@@ -132,6 +221,26 @@ public class StandardRequestHandler implements RequestHandler {
 	 */
 	public void setMSChap2AuthModule(final MSChap2AuthModule module) {
 		this.msChap2AuthModule = module;
+		this.asyncMSChap2AuthModule = module != null ? new SyncModuleAdapter(module) : null;
+	}
+
+	/**
+	 * Return asynchronous MS-CHAP-V2 authentication module
+	 * 
+	 * @return auth module (adapter of synchronous module) or null if not set
+	 */
+	public AsyncMSChap2AuthModule getAsyncMSChap2AuthModule() {
+		return this.asyncMSChap2AuthModule;
+	}
+
+	/**
+	 * Set asynchronous MS-CHAP-V2 authentication module
+	 * 
+	 * @param module auth module
+	 */
+	public void setAsyncMSChap2AuthModule(final AsyncMSChap2AuthModule module) {
+		this.msChap2AuthModule = null;
+		this.asyncMSChap2AuthModule = module;
 	}
 
 	/**
@@ -143,6 +252,43 @@ public class StandardRequestHandler implements RequestHandler {
 		return this.accountingModule;
 	}
 
+	/**
+	 * Set asynchronous accounting module
+	 * 
+	 * @param module module to process AccountingRequestS
+	 */
+	public void setAsyncAccountingModule(final AsyncAccountingModule module) {
+		this.accountingModule = null;
+		this.asyncAccountingModule = module;
+	}
+
+	/**
+	 * Return asynchronous accounting module
+	 * 
+	 * @return accounting module (adapter of synchronous module) or null if not set
+	 */
+	public AsyncAccountingModule getAsyncAccountingModule() {
+		return this.asyncAccountingModule;
+	}
+
+	/**
+	 * Set batch accounting module
+	 * 
+	 * @param module module to process batches of AccountingRequestS, used instead of other accounting modules
+	 */
+	public void setBatchAccountingModule(final BatchAccountingModule module) {
+		this.batchAccountingModule = module;
+	}
+
+	/**
+	 * Return batch accounting module
+	 * 
+	 * @return batch accounting module or null if not set
+	 */
+	public BatchAccountingModule getBatchAccountingModule() {
+		return this.batchAccountingModule;
+	}
+
 	/**
 	 * Set accounting interval
 	 * 
@@ -167,86 +313,117 @@ public class StandardRequestHandler implements RequestHandler {
 	 * Process requests.
 	 * 
 	 * @param request request packet
-	 * @return response packet or null if can't process request
+	 * @return completion of response packet, completed with null if can't process request
 	 */
-	private ResponsePacket handleAccessRequest(final AccessRequest request) {
+	private Completion<ResponsePacket> handleAccessRequest(final AccessRequest request) {
 		if (request == null) throw new IllegalArgumentException("null request");
-		// response
-		ResponsePacket response = null;
 		String scheme = null;
+		Completion<AttributesList> auth = null;
 		final AttributesList attrs = request.getAttributes();
 		// check user name attribute is support
 		final UserName userName = attrs.getFirst(UserName.TYPE);
-		if (userName == null) return null;
+		if (userName == null) return Completion.completed(null);
 
-		// authenticate
-		try {
-			// response attributes
-			AttributesList responseAttributes = null;
-			// check scheme if PAP
-			if (attrs.getFirst(UserPassword.TYPE) != null) {
-				scheme = "PAP";
-				final UserPassword userPassword = attrs.getFirst(UserPassword.TYPE);
-				// not handle if PAP authentication if module not set
-				if (this.papAuthModule == null) return null;
-				responseAttributes = this.papAuthModule.authPap(userName.getValue(), userPassword.getValue(), attrs);
-			} else if (attrs.getFirst(ChapPassword.TYPE) != null && attrs.getFirst(ChapChallenge.TYPE) != null) {
-				scheme = "CHAP";
-				final ChapPassword chapPassword = attrs.getFirst(ChapPassword.TYPE);
-				final ChapChallenge chapChallenge = attrs.getFirst(ChapChallenge.TYPE);
-				if (this.chapAuthModule == null) return null;
-				responseAttributes = this.chapAuthModule.authChap(userName.getValue(), chapPassword, chapChallenge,
-				        attrs);
-			} else {
-				// search Microsoft attributes
-				MSChapChallenge challenge = null;
-				MSChapResponse chapresponse = null;
-				MSChap2Response chap2response = null;
-				final List<VendorAttribute> vendorAttrs = attrs.findAll(VendorAttribute.TYPE);
-				for (final VendorAttribute attr : vendorAttrs) {
-					if (attr.getVendorId() != MicrosoftAttribute.VENDOR_CODE) continue;
-					final AttributesList includes = attr.getAttributes();
-					if (challenge == null) challenge = includes.getFirst(MSChapChallenge.TYPE);
-					if (chapresponse == null) chapresponse = includes.getFirst(MSChapResponse.TYPE);
-					if (chap2response == null) chap2response = includes.getFirst(MSChap2Response.TYPE);
-				}
-				// authenticate
-				if (challenge != null) {
-					if (chapresponse != null) {
-						scheme = "MS-CHAP";
-						if (this.msChapAuthModule != null) responseAttributes = this.msChapAuthModule.authMSCHAP(
-						        userName, challenge, chapresponse, attrs);
-					} else if (chap2response != null) {
-						scheme = "MS-CHAP-V2";
-						if (this.msChap2AuthModule != null) responseAttributes = this.msChap2AuthModule.authMSChap2(
-						        userName, challenge, chap2response, attrs);
-					}
+		// check scheme if PAP
+		if (attrs.getFirst(UserPassword.TYPE) != null) {
+			scheme = "PAP";
+			final UserPassword userPassword = attrs.getFirst(UserPassword.TYPE);
+			// not handle if PAP authentication if module not set
+			final AsyncPAPAuthModule module = this.asyncPapAuthModule;
+			if (module != null) auth = module.authPapAsync(userName.getValue(), userPassword.getValue(), attrs);
+		} else if (attrs.getFirst(ChapPassword.TYPE) != null && attrs.getFirst(ChapChallenge.TYPE) != null) {
+			scheme = "CHAP";
+			final ChapPassword chapPassword = attrs.getFirst(ChapPassword.TYPE);
+			final ChapChallenge chapChallenge = attrs.getFirst(ChapChallenge.TYPE);
+			final AsyncCHAPAuthModule module = this.asyncChapAuthModule;
+			if (module != null) auth = module.authChapAsync(userName.getValue(), chapPassword, chapChallenge, attrs);
+		} else {
+			// search Microsoft attributes
+			MSChapChallenge challenge = null;
+			MSChapResponse chapresponse = null;
+			MSChap2Response chap2response = null;
+			final List<VendorAttribute> vendorAttrs = attrs.findAll(VendorAttribute.TYPE);
+			for (final VendorAttribute attr : vendorAttrs) {
+				if (attr.getVendorId() != MicrosoftAttribute.VENDOR_CODE) continue;
+				final AttributesList includes = attr.getAttributes();
+				if (challenge == null) challenge = includes.getFirst(MSChapChallenge.TYPE);
+				if (chapresponse == null) chapresponse = includes.getFirst(MSChapResponse.TYPE);
+				if (chap2response == null) chap2response = includes.getFirst(MSChap2Response.TYPE);
+			}
+			// authenticate
+			if (challenge != null) {
+				if (chapresponse != null) {
+					scheme = "MS-CHAP";
+					final AsyncMSChapAuthModule module = this.asyncMSChapAuthModule;
+					if (module != null) auth = module.authMSCHAPAsync(userName, challenge, chapresponse, attrs);
+				} else if (chap2response != null) {
+					scheme = "MS-CHAP-V2";
+					final AsyncMSChap2AuthModule module = this.asyncMSChap2AuthModule;
+					if (module != null) auth = module.authMSChap2Async(userName, challenge, chap2response, attrs);
 				}
 			}
+		}
+
+		// not handle if scheme is unknown or module not set
+		if (auth == null) return Completion.completed(null);
 
-			// check if scheme is known
-			if (scheme != null) {
-				// double check if response attributes is out of specification
-				if (responseAttributes == null) responseAttributes = new AttributesList(AttributeType.VENDOR_NONE);
-				// set accounting interval
-				if (this.accountingInterval >= 0 && responseAttributes.getFirst(AcctInterimInterval.TYPE) == null) responseAttributes.add(new AcctInterimInterval(
-				        this.accountingInterval));
-				// create response
-				response = new AccessAccept();
-				response.setId(request.getId());
-				response.setAuthenticator(request.getAuthenticator());
-				response.getAttributes().addAll(responseAttributes);
+		// create response when authentication is completed
+		final Completion<ResponsePacket> response = new Completion<ResponsePacket>();
+		final String authScheme = scheme;
+		auth.whenComplete(new CompletionListener<AttributesList>() {
+			@Override
+			public void completed(final AttributesList result, final Throwable error) {
+				// errors of listener are not propagated by completion, so response must be failed here
+				try {
+					if (error == null) response.complete(StandardRequestHandler.this.createAccept(request, result));
+					else if (error instanceof AuthenticationException) {
+						// reject access
+						StandardRequestHandler.log.warn("user '" + userName.getValue() + "' " + authScheme
+						        + " authentication failure: " + error.getLocalizedMessage());
+						response.complete(StandardRequestHandler.createReject(request, error.getMessage()));
+					} else response.fail(error);
+				} catch (final Throwable th) {
+					response.fail(th);
+				}
 			}
-		} catch (final AuthenticationException ex) {
-			// reject access
-			StandardRequestHandler.log.warn("user '" + userName.getValue() + "' " + scheme
-			        + " authentication failure: " + ex.getLocalizedMessage());
-			response = new AccessReject();
-			response.setId(request.getId());
-			response.setAuthenticator(request.getAuthenticator());
-
-			response.getAttributes().add(new ReplyMessage(ex.getMessage()));
-		}
+		});
+		return response;
+	}
+
+	/**
+	 * Create AccessAccept
+	 * 
+	 * @param request request
+	 * @param attributes response attributes of authentication module
+	 * @return response
+	 */
+	protected ResponsePacket createAccept(final AccessRequest request, final AttributesList attributes) {
+		AttributesList responseAttributes = attributes;
+		// double check if response attributes is out of specification
+		if (responseAttributes == null) responseAttributes = new AttributesList(AttributeType.VENDOR_NONE);
+		// set accounting interval
+		if (this.accountingInterval >= 0 && responseAttributes.getFirst(AcctInterimInterval.TYPE) == null) responseAttributes.add(new AcctInterimInterval(
+		        this.accountingInterval));
+		// create response
+		final ResponsePacket response = new AccessAccept();
+		response.setId(request.getId());
+		response.setAuthenticator(request.getAuthenticator());
+		response.getAttributes().addAll(responseAttributes);
+		return response;
+	}
+
+	/**
+	 * Create AccessReject
+	 * 
+	 * @param request request
+	 * @param message reply message
+	 * @return response
+	 */
+	protected static ResponsePacket createReject(final AccessRequest request, final String message) {
+		final ResponsePacket response = new AccessReject();
+		response.setId(request.getId());
+		response.setAuthenticator(request.getAuthenticator());
+		response.getAttributes().add(new ReplyMessage(message));
 		return response;
 	}
 
@@ -254,46 +431,179 @@ public class StandardRequestHandler implements RequestHandler {
 	 * Process accounnting requests
 	 * 
 	 * @param request request to process
-	 * @return response packet or null if can't handle
+	 * @return completion of response packet, completed with null if can't handle
 	 */
-	private ResponsePacket handleAccountingRequest(final AccountingRequest request) {
+	private Completion<ResponsePacket> handleAccountingRequest(final AccountingRequest request) {
 		if (request == null) throw new IllegalArgumentException("null request");
-		ResponsePacket response = null;
 		// check accounting module is set
-		if (this.accountingModule == null) return null;
+		final BatchAccountingModule batchModule = this.batchAccountingModule;
+		if (batchModule != null) return this.handleAccountingRequests(batchModule,
+		        Collections.singletonList(request)).get(0);
+		final AsyncAccountingModule module = this.asyncAccountingModule;
+		if (module == null) return Completion.completed(null);
 		// check Acct-Status-Value attribute
 		final AcctStatusType typeAttrib = request.getAttributes().getFirst(AcctStatusType.TYPE);
-		if (typeAttrib == null) return null;
+		if (typeAttrib == null) return Completion.completed(null);
 		// check Acct-Session-Id attribute
 		final AcctSessionId idAttrib = request.getAttributes().getFirst(AcctSessionId.TYPE);
-		if (idAttrib == null) return null;
+		if (idAttrib == null) return Completion.completed(null);
+		// process accounting
+		final Completion<ResponsePacket> response = new Completion<ResponsePacket>();
+		final Completion<AttributesList> accounting = module.processAccountingAsync((int) typeAttrib.getValue(),
+		        idAttrib.getValue(), request.getAttributes());
+		StandardRequestHandler.completeAccounting(request, idAttrib, accounting, response);
+		return response;
+	}
+
+	/**
+	 * Process accounting requests by batch module
+	 * 
+	 * @param module batch accounting module
+	 * @param requests requests to process
+	 * @return completions of response packets, in order of requests, completed with null if can't handle
+	 */
+	private List<Completion<ResponsePacket>> handleAccountingRequests(final BatchAccountingModule module,
+	        final List<AccountingRequest> requests) {
+		final List<Completion<ResponsePacket>> responses = new ArrayList<Completion<ResponsePacket>>(requests.size());
+		final List<AccountingRequest> accepted = new ArrayList<AccountingRequest>(requests.size());
+		final List<AcctSessionId> sessions = new ArrayList<AcctSessionId>(requests.size());
+		final List<AttributesList> attributes = new ArrayList<AttributesList>(requests.size());
+		final List<Completion<ResponsePacket>> pending = new ArrayList<Completion<ResponsePacket>>(requests.size());
+		for (final AccountingRequest request : requests) {
+			// check Acct-Status-Value and Acct-Session-Id attributes
+			final AcctSessionId idAttrib = request.getAttributes().getFirst(AcctSessionId.TYPE);
+			if (request.getAttributes().getFirst(AcctStatusType.TYPE) == null || idAttrib == null) {
+				responses.add(Completion.<ResponsePacket> completed(null));
+				continue;
+			}
+			final Completion<ResponsePacket> response = new Completion<ResponsePacket>();
+			responses.add(response);
+			accepted.add(request);
+			sessions.add(idAttrib);
+			attributes.add(request.getAttributes());
+			pending.add(response);
+		}
+		if (accepted.isEmpty()) return responses;
+
 		// process accounting
+		List<Completion<AttributesList>> results = null;
 		try {
-			final AttributesList attribs = this.accountingModule.processAccounting((int) typeAttrib.getValue(),
-			        idAttrib.getValue(), request.getAttributes());
-			attribs.set(idAttrib);
-			response = new AccountingResponse();
-			response.setId(request.getId());
-			response.setAuthenticator(request.getAuthenticator());
-			response.getAttributes().addAll(attribs);
-		} catch (final AccountingException ex) {
-			StandardRequestHandler.log.error("accounting error", ex);
+			results = module.processAccountingBatch(attributes);
+			if (results == null || results.size() != accepted.size()) throw new IllegalStateException(
+			        "accounting module returned " + (results == null ? null : Integer.valueOf(results.size()))
+			                + " results of " + accepted.size() + " requests");
+		} catch (final RuntimeException ex) {
+			for (final Completion<ResponsePacket> response : pending)
+				response.fail(ex);
+			return responses;
 		}
-		return response;
+		for (int i = 0; i < accepted.size(); i++)
+			StandardRequestHandler.completeAccounting(accepted.get(i), sessions.get(i), results.get(i), pending.get(i));
+		return responses;
 	}
 
 	/**
-	 * Process requests.
+	 * Complete response, when accounting is completed
+	 * 
+	 * @param request accounting request
+	 * @param idAttrib session id of request
+	 * @param accounting completion of accounting module
+	 * @param response completion of response packet
+	 */
+	private static void completeAccounting(final AccountingRequest request, final AcctSessionId idAttrib,
+	        final Completion<AttributesList> accounting, final Completion<ResponsePacket> response) {
+		if (accounting == null) {
+			response.complete(null);
+			return;
+		}
+		accounting.whenComplete(new CompletionListener<AttributesList>() {
+			@Override
+			public void completed(final AttributesList attribs, final Throwable error) {
+				// errors of listener are not propagated by completion, so response must be failed here
+				try {
+					if (error == null) {
+						if (attribs == null) throw new IllegalStateException("accounting module returned null attributes");
+						attribs.set(idAttrib);
+						final ResponsePacket packet = new AccountingResponse();
+						packet.setId(request.getId());
+						packet.setAuthenticator(request.getAuthenticator());
+						packet.getAttributes().addAll(attribs);
+						response.complete(packet);
+					} else if (error instanceof AccountingException) {
+						StandardRequestHandler.log.error("accounting error", error);
+						response.complete(null);
+					} else response.fail(error);
+				} catch (final Throwable th) {
+					response.fail(th);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Process requests asynchronously.
 	 * 
 	 * @param request request packet
-	 * @return response packet or null if can't process request
+	 * @return completion of response packet, completed with null if can't process request
 	 */
 	@Override
-    public ResponsePacket handleRequest(final RequestPacket request) {
+	public Completion<ResponsePacket> handleRequestAsync(final RequestPacket request) {
 		if (request == null) throw new IllegalArgumentException("null request");
-		ResponsePacket response = null;
-		if (request instanceof AccessRequest) response = this.handleAccessRequest((AccessRequest) request);
-		else if (request instanceof AccountingRequest) response = this.handleAccountingRequest((AccountingRequest) request);
-		return response;
+		if (request instanceof AccessRequest) return this.handleAccessRequest((AccessRequest) request);
+		else if (request instanceof AccountingRequest) return this.handleAccountingRequest((AccountingRequest) request);
+		return Completion.completed(null);
+	}
+
+	/**
+	 * Process batch of requests. Accounting requests are passed to batch accounting module at once, if it is set. Other
+	 * requests are processed one by one.
+	 * 
+	 * @param requests request packets
+	 * @return completions of response packets, in order of requests, completed with null if can't process request
+	 */
+	@Override
+	public List<Completion<ResponsePacket>> handleRequests(final List<RequestPacket> requests) {
+		if (requests == null) throw new IllegalArgumentException("null requests");
+		final BatchAccountingModule batchModule = this.batchAccountingModule;
+		final List<Completion<ResponsePacket>> responses = new ArrayList<Completion<ResponsePacket>>(requests.size());
+		List<AccountingRequest> accounting = null;
+		for (final RequestPacket request : requests) {
+			if (batchModule != null && request instanceof AccountingRequest) {
+				if (accounting == null) accounting = new ArrayList<AccountingRequest>(requests.size());
+				accounting.add((AccountingRequest) request);
+				// placeholder, replaced by completion of batch
+				responses.add(null);
+			} else responses.add(this.handleRequestAsync(request));
+		}
+		if (accounting != null) {
+			final Iterator<Completion<ResponsePacket>> results = this.handleAccountingRequests(batchModule, accounting)
+			        .iterator();
+			for (int i = 0; i < responses.size(); i++)
+				if (responses.get(i) == null) responses.set(i, results.next());
+		}
+		return responses;
+	}
+
+	/**
+	 * Process requests. Current thread wait for asynchronous modules.
+	 * 
+	 * @param request request packet
+	 * @return response packet or null if can't process request
+	 * @throws RequestHandlerException if module failed or thread was interrupted
+	 */
+	@Override
+	public ResponsePacket handleRequest(final RequestPacket request) throws RequestHandlerException {
+		try {
+			return this.handleRequestAsync(request).get();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RequestHandlerException("interrupted", ex);
+		} catch (final ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof RequestHandlerException) throw (RequestHandlerException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RequestHandlerException(cause);
+		}
 	}
 }
@@ -0,0 +1,159 @@
+/**
+ * SyncModuleAdapter.java 18.10.2026
+ */
+package org.dicr.radius.handler.impl;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.attribute.ms.*;
+import org.dicr.radius.exc.*;
+import org.dicr.radius.handler.*;
+
+/**
+ * Adapter of synchronous modules to asynchronous module interfaces.
+ * <P>
+ * Adapter wrap module, which implements any of {@link PAPAuthModule}, {@link CHAPAuthModule}, {@link MSChapAuthModule},
+ * {@link MSChap2AuthModule} and {@link AccountingModule}. Module is called in calling thread and returned completion
+ * is already completed. If module does not implement called interface, completion is failed with
+ * {@link UnsupportedOperationException}.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class SyncModuleAdapter implements AsyncPAPAuthModule, AsyncCHAPAuthModule, AsyncMSChapAuthModule,
+        AsyncMSChap2AuthModule, AsyncAccountingModule {
+	/** Synchronous module */
+	private final Object module;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param syncModule synchronous module
+	 */
+	public SyncModuleAdapter(final Object syncModule) {
+		if (syncModule == null) throw new IllegalArgumentException("null module");
+		this.module = syncModule;
+	}
+
+	/**
+	 * Return module
+	 * 
+	 * @return synchronous module
+	 */
+	public Object getModule() {
+		return this.module;
+	}
+
+	/**
+	 * Create failed completion for not supported method
+	 * 
+	 * @param iface required interface
+	 * @return failed completion
+	 */
+	private Completion<AttributesList> unsupported(final Class<?> iface) {
+		return Completion.failed(new UnsupportedOperationException("module " + this.module + " is not "
+		        + iface.getSimpleName()));
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncPAPAuthModule#authPapAsync(java.lang.String, java.lang.String,
+	 *      org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public Completion<AttributesList> authPapAsync(final String userName, final String userPassword,
+	        final AttributesList requestAttributes) {
+		if (!(this.module instanceof PAPAuthModule)) return this.unsupported(PAPAuthModule.class);
+		try {
+			return Completion.completed(((PAPAuthModule) this.module).authPap(userName, userPassword,
+			        requestAttributes));
+		} catch (final AuthenticationException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncCHAPAuthModule#authChapAsync(java.lang.String,
+	 *      org.dicr.radius.attribute.impl.ChapPassword, org.dicr.radius.attribute.impl.ChapChallenge,
+	 *      org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public Completion<AttributesList> authChapAsync(final String userName, final ChapPassword password,
+	        final ChapChallenge challenge, final AttributesList requestAttributes) {
+		if (!(this.module instanceof CHAPAuthModule)) return this.unsupported(CHAPAuthModule.class);
+		try {
+			return Completion.completed(((CHAPAuthModule) this.module).authChap(userName, password, challenge,
+			        requestAttributes));
+		} catch (final AuthenticationException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncMSChapAuthModule#authMSCHAPAsync(org.dicr.radius.attribute.impl.UserName,
+	 *      org.dicr.radius.attribute.ms.MSChapChallenge, org.dicr.radius.attribute.ms.MSChapResponse,
+	 *      org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public Completion<AttributesList> authMSCHAPAsync(final UserName userName, final MSChapChallenge challenge,
+	        final MSChapResponse response, final AttributesList requestAttributes) {
+		if (!(this.module instanceof MSChapAuthModule)) return this.unsupported(MSChapAuthModule.class);
+		try {
+			return Completion.completed(((MSChapAuthModule) this.module).authMSCHAP(userName, challenge, response,
+			        requestAttributes));
+		} catch (final AuthenticationException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncMSChap2AuthModule#authMSChap2Async(org.dicr.radius.attribute.impl.UserName,
+	 *      org.dicr.radius.attribute.ms.MSChapChallenge, org.dicr.radius.attribute.ms.MSChap2Response,
+	 *      org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public Completion<AttributesList> authMSChap2Async(final UserName userName, final MSChapChallenge challenge,
+	        final MSChap2Response response, final AttributesList requestAttributes) {
+		if (!(this.module instanceof MSChap2AuthModule)) return this.unsupported(MSChap2AuthModule.class);
+		try {
+			return Completion.completed(((MSChap2AuthModule) this.module).authMSChap2(userName, challenge, response,
+			        requestAttributes));
+		} catch (final AuthenticationException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncAccountingModule#processAccountingAsync(int, java.lang.String,
+	 *      org.dicr.radius.attribute.AttributesList)
+	 */
+	@Override
+	public Completion<AttributesList> processAccountingAsync(final int statusType, final String sessionId,
+	        final AttributesList requestAttributes) {
+		if (!(this.module instanceof AccountingModule)) return this.unsupported(AccountingModule.class);
+		try {
+			return Completion.completed(((AccountingModule) this.module).processAccounting(statusType, sessionId,
+			        requestAttributes));
+		} catch (final AccountingException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "async " + this.module;
+	}
+}
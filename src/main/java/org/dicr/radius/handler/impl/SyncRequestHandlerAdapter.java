@@ -0,0 +1,63 @@
+/**
+ * SyncRequestHandlerAdapter.java 18.10.2026
+ */
+package org.dicr.radius.handler.impl;
+
+import org.dicr.radius.exc.*;
+import org.dicr.radius.handler.*;
+import org.dicr.radius.packet.*;
+
+/**
+ * Adapter of synchronous {@link RequestHandler} to {@link AsyncRequestHandler}.
+ * <P>
+ * Request is handled in calling thread and returned completion is already completed.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class SyncRequestHandlerAdapter implements AsyncRequestHandler {
+	/** Synchronous handler */
+	private final RequestHandler handler;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param requestHandler synchronous handler
+	 */
+	public SyncRequestHandlerAdapter(final RequestHandler requestHandler) {
+		if (requestHandler == null) throw new IllegalArgumentException("null handler");
+		this.handler = requestHandler;
+	}
+
+	/**
+	 * Return handler
+	 * 
+	 * @return synchronous handler
+	 */
+	public RequestHandler getHandler() {
+		return this.handler;
+	}
+
+	/**
+	 * @see org.dicr.radius.handler.AsyncRequestHandler#handleRequestAsync(org.dicr.radius.packet.RequestPacket)
+	 */
+	@Override
+	public Completion<ResponsePacket> handleRequestAsync(final RequestPacket request) {
+		try {
+			return Completion.completed(this.handler.handleRequest(request));
+		} catch (final RequestHandlerException ex) {
+			return Completion.failed(ex);
+		} catch (final RuntimeException ex) {
+			return Completion.failed(ex);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "async " + this.handler;
+	}
+}
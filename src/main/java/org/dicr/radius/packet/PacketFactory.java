@@ -22,6 +22,15 @@ public class PacketFactory {
 	/** Registered Packet Codes */
 	private static final Map<Integer, Class<? extends RadiusPacket>> registeredPackets = new HashMap<Integer, Class<? extends RadiusPacket>>();
 
+	/** Kind of packet */
+	private static final byte KIND_REQUEST = 1;
+
+	/** Kind of packet */
+	private static final byte KIND_RESPONSE = 2;
+
+	/** Kinds of registered packets by code, replaced on registration */
+	private static volatile byte[] registeredKinds = new byte[256];
+
 	/** Register known packets */
 	static {
 		PacketFactory.registerPacket(AccessRequest.CODE, AccessRequest.class);
@@ -30,6 +39,7 @@ public class PacketFactory {
 		PacketFactory.registerPacket(AccessReject.CODE, AccessReject.class);
 		PacketFactory.registerPacket(AccountingRequest.CODE, AccountingRequest.class);
 		PacketFactory.registerPacket(AccountingResponse.CODE, AccountingResponse.class);
+		PacketFactory.registerPacket(StatusServer.CODE, StatusServer.class);
 	}
 
 	/**
@@ -42,10 +52,43 @@ public class PacketFactory {
 		if (clazz == null) throw new IllegalArgumentException("null packet class");
 		synchronized (PacketFactory.registeredPackets) {
 			PacketFactory.registeredPackets.put(Integer.valueOf(code), clazz);
+			if (code >= 0 && code < 256) {
+				final byte[] kinds = PacketFactory.registeredKinds.clone();
+				if (RequestPacket.class.isAssignableFrom(clazz)) kinds[code] = PacketFactory.KIND_REQUEST;
+				else if (ResponsePacket.class.isAssignableFrom(clazz)) kinds[code] = PacketFactory.KIND_RESPONSE;
+				else kinds[code] = 0;
+				PacketFactory.registeredKinds = kinds;
+			}
 			PacketFactory.log.trace("registered packet class " + clazz + " for type code " + code);
 		}
 	}
 
+	/**
+	 * Check if code is registered for request packet.
+	 * <P>
+	 * Method does not allocate objects and can be used to validate raw packets.
+	 * </P>
+	 * 
+	 * @param code packet code
+	 * @return true if code is registered for {@link RequestPacket}
+	 */
+	public static boolean isRequestCode(final int code) {
+		return code >= 0 && code < 256 && PacketFactory.registeredKinds[code] == PacketFactory.KIND_REQUEST;
+	}
+
+	/**
+	 * Check if code is registered for response packet.
+	 * <P>
+	 * Method does not allocate objects and can be used to validate raw packets.
+	 * </P>
+	 * 
+	 * @param code packet code
+	 * @return true if code is registered for {@link ResponsePacket}
+	 */
+	public static boolean isResponseCode(final int code) {
+		return code >= 0 && code < 256 && PacketFactory.registeredKinds[code] == PacketFactory.KIND_RESPONSE;
+	}
+
 	/**
 	 * Create packet for specified code
 	 * 
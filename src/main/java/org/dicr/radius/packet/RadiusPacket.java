@@ -4,6 +4,7 @@ import java.util.*;
 
 import org.dicr.radius.attribute.*;
 import org.dicr.radius.dictionary.*;
+import org.dicr.radius.exc.*;
 
 /**
  * Radius packet.
@@ -18,11 +19,11 @@ public abstract class RadiusPacket {
 	/** Packet ID */
 	private int id = 0;
 
-	/** RequestAuthenticator */
-	private RequestAuthenticator requestAuthenticator = new RequestAuthenticator();
+	/** RequestAuthenticator, random authenticator is created on first access */
+	private RequestAuthenticator requestAuthenticator = null;
 
-	/** Attributes */
-	private final AttributesList attributes = new AttributesList(AttributeType.VENDOR_NONE);
+	/** Attributes, created on first access */
+	private AttributesList attributes = null;
 
 	/**
      * Constructor
@@ -111,17 +112,35 @@ public abstract class RadiusPacket {
      */
 	public RequestAuthenticator getAuthenticator() {
 		synchronized (this) {
+			if (this.requestAuthenticator == null) this.requestAuthenticator = new RequestAuthenticator();
 			return this.requestAuthenticator;
 		}
 	}
 
+	/**
+     * Set packet attributes. Used by codec to set list, which decode attributes on demand.
+     *
+     * @param attributesList list of packet attributes
+     */
+	public void setAttributes(AttributesList attributesList) {
+		if (attributesList == null) throw new IllegalArgumentException("null attributes");
+		if (attributesList.getVendorCode() != AttributeType.VENDOR_NONE) throw new IllegalArgumentException(
+				"vendor code of attributes: " + attributesList.getVendorCode());
+		synchronized (this) {
+			this.attributes = attributesList;
+		}
+	}
+
 	/**
      * Return packet attributes.
      *
      * @return list of packet attributes.
      */
 	public AttributesList getAttributes() {
-		return this.attributes;
+		synchronized (this) {
+			if (this.attributes == null) this.attributes = new AttributesList(AttributeType.VENDOR_NONE);
+			return this.attributes;
+		}
 	}
 
 	/**
@@ -133,14 +152,21 @@ public abstract class RadiusPacket {
 	public String toString() {
 		StringBuilder sb = new StringBuilder(this.getClass().getSimpleName());
 		sb.append("{ id=").append(this.id);
-		if (this.attributes.getSize() > 0) {
-			sb.append(",");
-			Iterator<RadiusAttribute> attributesIterator = this.attributes.toList().iterator();
-			while (attributesIterator.hasNext()) {
-				sb.append(" ");
-				sb.append(attributesIterator.next());
-				if (attributesIterator.hasNext()) sb.append(",");
+		AttributesList attributesList = this.getAttributes();
+		try {
+			List<RadiusAttribute> attrs = attributesList.toList();
+			if (attrs.size() > 0) {
+				sb.append(",");
+				Iterator<RadiusAttribute> attributesIterator = attrs.iterator();
+				while (attributesIterator.hasNext()) {
+					sb.append(" ");
+					sb.append(attributesIterator.next());
+					if (attributesIterator.hasNext()) sb.append(",");
+				}
 			}
+		} catch (MalformedAttributeException ex) {
+			// malformed packet is logged, when dropped
+			sb.append(", ").append(ex.getLocalizedMessage());
 		}
 		sb.append(" }");
 		return sb.toString();
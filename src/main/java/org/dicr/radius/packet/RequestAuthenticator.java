@@ -16,7 +16,7 @@ public class RequestAuthenticator {
 	public static final int LENGTH = 16;
 
 	/** Value */
-	private byte[] value = MD5.randomDigestData();
+	private byte[] value = null;
 
 	/**
      * Constructor
@@ -26,6 +26,7 @@ public class RequestAuthenticator {
      */
 	public RequestAuthenticator() {
 		super();
+		this.value = MD5.randomDigestData();
 	}
 
 	/**
@@ -11,14 +11,13 @@ public abstract class RequestPacket extends RadiusPacket {
 	private static int lastId = 0;
 
 	/**
-     * Constructor
+     * Constructor. Random authenticator is generated on first access.
      * 
      * @param aCode packet code
      */
 	protected RequestPacket(int aCode) {
 		super(aCode);
 		this.setNextId();
-		this.generateNewAuthenticator();
 	}
 
 	/**
@@ -0,0 +1,27 @@
+/**
+ * StatusServer.java 18.10.2026
+ */
+package org.dicr.radius.packet.impl;
+
+import org.dicr.radius.packet.*;
+
+/**
+ * Status-Server packet (RFC 5997).
+ * <P>
+ * Packet must have Message-Authenticator attribute, which is added by codec on encoding.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class StatusServer extends RequestPacket {
+	/** Packet code */
+	public static final int CODE = 12;
+
+	/**
+	 * Constructor
+	 */
+	public StatusServer() {
+		super(StatusServer.CODE);
+	}
+}
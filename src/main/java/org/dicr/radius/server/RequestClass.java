@@ -0,0 +1,46 @@
+/**
+ * RequestClass.java 18.10.2026
+ */
+package org.dicr.radius.server;
+
+import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
+
+/**
+ * Class of request.
+ * <P>
+ * Requests of each class are handled in separate lane of server. Classes are declared in order of priority.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public enum RequestClass {
+	/** Access requests */
+	ACCESS,
+	/** Status-Server requests (RFC 5997) */
+	STATUS,
+	/** Accounting requests */
+	ACCOUNTING;
+
+	/** Code of Status-Server packet */
+	public static final int STATUS_SERVER_CODE = StatusServer.CODE;
+
+	/**
+	 * Return class of request
+	 * 
+	 * @param packet request packet
+	 * @return class of request
+	 */
+	public static RequestClass forPacket(final RequestPacket packet) {
+		if (packet == null) throw new IllegalArgumentException("null packet");
+		switch (packet.getCode()) {
+			case AccountingRequest.CODE:
+				return ACCOUNTING;
+			case STATUS_SERVER_CODE:
+				return STATUS;
+			default:
+				return ACCESS;
+		}
+	}
+}
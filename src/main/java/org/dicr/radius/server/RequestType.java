@@ -0,0 +1,54 @@
+/**
+ * RequestType.java 18.10.2026
+ */
+package org.dicr.radius.server;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.attribute.ms.*;
+import org.dicr.radius.packet.*;
+
+/**
+ * Type of request by packet type and authentication scheme, used in statistics of server.
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public enum RequestType {
+	/** PAP access requests */
+	PAP,
+	/** CHAP access requests */
+	CHAP,
+	/** MS-CHAP access requests */
+	MSCHAP,
+	/** MS-CHAP-V2 access requests */
+	MSCHAP2,
+	/** Access requests of other schemes */
+	ACCESS,
+	/** Status-Server requests */
+	STATUS,
+	/** Accounting requests */
+	ACCOUNTING;
+
+	/**
+	 * Return type of request
+	 * 
+	 * @param packet request packet
+	 * @return type of request
+	 */
+	public static RequestType forPacket(final RequestPacket packet) {
+		switch (RequestClass.forPacket(packet)) {
+			case STATUS:
+				return STATUS;
+			case ACCOUNTING:
+				return ACCOUNTING;
+			default:
+				final AttributesList attrs = packet.getAttributes();
+				if (attrs.getFirst(UserPassword.TYPE) != null) return PAP;
+				if (attrs.getFirst(ChapPassword.TYPE) != null) return CHAP;
+				if (attrs.getFirst(MSChapResponse.TYPE) != null) return MSCHAP;
+				if (attrs.getFirst(MSChap2Response.TYPE) != null) return MSCHAP2;
+				return ACCESS;
+		}
+	}
+}
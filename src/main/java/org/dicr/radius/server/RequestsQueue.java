@@ -3,6 +3,7 @@
  */
 package org.dicr.radius.server;
 
+import java.util.*;
 import java.util.concurrent.*;
 
 import org.dicr.radius.channel.*;
@@ -23,6 +24,13 @@ public interface RequestsQueue {
      */
 	public void putRequest(ClientRequest request);
 
+	/**
+	 * Put several requests to queue at once.
+	 * 
+	 * @param requests client requests
+	 */
+	public void putRequests(Collection<ClientRequest> requests);
+
 	/**
      * Return next pending request.
      * 
@@ -31,4 +39,28 @@ public interface RequestsQueue {
      */
 	public ClientRequest takeRequest() throws InterruptedException;
 
+	/**
+     * Return next pending request without waiting.
+     * 
+     * @return next pending request or null if queue is empty
+     */
+	public ClientRequest pollRequest();
+
+	/**
+     * Return number of pending requests.
+     * 
+     * @return number of requests waiting in queue
+     */
+	public int getPendingCount();
+
+	/**
+     * Return number of expired requests.
+     * <P>
+     * Requests with expired deadline ({@link ClientRequest#getDeadline()}) are dropped from queue instead of return.
+     * </P>
+     * 
+     * @return number of requests, dropped from queue by deadline
+     */
+	public long getExpiredCount();
+
 }
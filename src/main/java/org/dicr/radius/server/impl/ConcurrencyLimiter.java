@@ -0,0 +1,176 @@
+/**
+ * ConcurrencyLimiter.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import org.apache.log4j.*;
+
+/**
+ * Adaptive limit of concurrent requests.
+ * <P>
+ * Limit is adjusted by AIMD (additive increase, multiplicative decrease) from measured latency of request handlers.
+ * When handler latency exceed <CODE>targetLatency</CODE>, limit is decreased by <CODE>backoffRatio</CODE> (once per
+ * <CODE>targetLatency</CODE>, so many slow requests, completed at once, does not drop limit to minimum). When
+ * latency is good and more than half of limit is used, limit is increased by one per <CODE>limit</CODE> requests. So
+ * number of requests in server follow capacity of handlers (backends), and excess requests are shed instead of waiting
+ * in queues until client timeout.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class ConcurrencyLimiter {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(ConcurrencyLimiter.class);
+
+	/** Current limit */
+	private double limit = 100;
+
+	/** Minimal limit */
+	private int minLimit = 10;
+
+	/** Maximal limit */
+	private int maxLimit = 10000;
+
+	/** Target latency in nanoseconds */
+	private long targetLatency = 500000000L;
+
+	/** Ratio of limit decrease */
+	private double backoffRatio = 0.9;
+
+	/** Time of last decrease */
+	private long decreaseTime = System.nanoTime();
+
+	/**
+	 * Constructor
+	 */
+	public ConcurrencyLimiter() {
+		super();
+	}
+
+	/**
+	 * Set initial limit
+	 * 
+	 * @param initial initial limit of concurrent requests. Default 100.
+	 */
+	public synchronized void setInitialLimit(final int initial) {
+		if (initial < 1) throw new IllegalArgumentException("initialLimit: " + initial);
+		this.limit = initial;
+	}
+
+	/**
+	 * Set minimal limit
+	 * 
+	 * @param min limit, which is never decreased below. Default 10.
+	 */
+	public synchronized void setMinLimit(final int min) {
+		if (min < 1) throw new IllegalArgumentException("minLimit: " + min);
+		this.minLimit = min;
+		if (this.limit < min) this.limit = min;
+	}
+
+	/**
+	 * Return minimal limit
+	 * 
+	 * @return minimal limit of concurrent requests
+	 */
+	public synchronized int getMinLimit() {
+		return this.minLimit;
+	}
+
+	/**
+	 * Set maximal limit
+	 * 
+	 * @param max limit, which is never increased above. Default 10000.
+	 */
+	public synchronized void setMaxLimit(final int max) {
+		if (max < 1) throw new IllegalArgumentException("maxLimit: " + max);
+		this.maxLimit = max;
+		if (this.limit > max) this.limit = max;
+	}
+
+	/**
+	 * Return maximal limit
+	 * 
+	 * @return maximal limit of concurrent requests
+	 */
+	public synchronized int getMaxLimit() {
+		return this.maxLimit;
+	}
+
+	/**
+	 * Set target latency
+	 * 
+	 * @param millis maximum latency of handler in milliseconds, which is not considered as overload. Default 500.
+	 */
+	public synchronized void setTargetLatency(final long millis) {
+		if (millis < 1) throw new IllegalArgumentException("targetLatency: " + millis);
+		this.targetLatency = millis * 1000000L;
+	}
+
+	/**
+	 * Return target latency
+	 * 
+	 * @return maximum latency of handler in milliseconds
+	 */
+	public synchronized long getTargetLatency() {
+		return this.targetLatency / 1000000L;
+	}
+
+	/**
+	 * Set backoff ratio
+	 * 
+	 * @param ratio multiplier of limit on overload, between 0.5 and 1. Default 0.9.
+	 */
+	public synchronized void setBackoffRatio(final double ratio) {
+		if (ratio < 0.5 || ratio >= 1) throw new IllegalArgumentException("backoffRatio: " + ratio);
+		this.backoffRatio = ratio;
+	}
+
+	/**
+	 * Return backoff ratio
+	 * 
+	 * @return multiplier of limit on overload
+	 */
+	public synchronized double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * Return current limit
+	 * 
+	 * @return limit of concurrent requests
+	 */
+	public synchronized int getLimit() {
+		return (int) this.limit;
+	}
+
+	/**
+	 * Update limit by latency of handled request.
+	 * 
+	 * @param latency time of request handling in nanoseconds
+	 * @param inFlight number of requests in server
+	 */
+	public void onSample(final long latency, final int inFlight) {
+		synchronized (this) {
+			final int old = (int) this.limit;
+			if (latency > this.targetLatency) {
+				final long now = System.nanoTime();
+				if (now - this.decreaseTime < this.targetLatency) return;
+				this.decreaseTime = now;
+				this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+			} else if (inFlight * 2 >= this.limit) this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+			else return;
+			if (old == (int) this.limit || !ConcurrencyLimiter.log.isTraceEnabled()) return;
+		}
+		ConcurrencyLimiter.log.trace("concurrency limit: " + this.getLimit());
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AIMD limit " + this.getLimit();
+	}
+}
@@ -1,29 +1,83 @@
 package org.dicr.radius.server.impl;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 
 import javax.management.*;
 
 import org.apache.log4j.*;
+import org.dicr.radius.attribute.impl.*;
 import org.dicr.radius.channel.*;
 import org.dicr.radius.exc.*;
 import org.dicr.radius.handler.*;
 import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
 import org.dicr.radius.server.*;
 
 /**
  * Radius AAA Server.
+ * <P>
+ * Requests are handled in separate lanes by {@link RequestClass}. Each lane has own queue and handler threads, so
+ * accounting storm does not delay authentication. When lanes are backlogged, handler threads of each lane take requests
+ * of lanes with higher priority first, so authentication has strict priority.
+ * </P>
+ * <P>
+ * In thread-per-request mode handler threads only dispatch requests, and each request is handled in own thread,
+ * created by <CODE>requestThreadFactory</CODE> (virtual threads, if supported by runtime). Number of concurrently
+ * handled requests is limited by <CODE>maxConcurrentRequests</CODE>.
+ * </P>
+ * <P>
+ * If request handler is {@link AsyncRequestHandler}, handler thread does not wait for response: response is sent by
+ * thread, which complete handling.
+ * </P>
+ * <P>
+ * Handler threads of lanes with <CODE>batchSize</CODE> greater than 1 collect batches of requests and pass them to
+ * {@link BatchRequestHandler}. Responses are sent, as each request of batch is completed.
+ * </P>
+ * <P>
+ * If <CODE>concurrencyLimiter</CODE> is configured, number of requests in server (pending in queues and handled) is
+ * limited by adaptive limit, and excess requests are shed when received: dropped, or rejected if their class is in
+ * <CODE>shedRejectClasses</CODE>. Start and end of overload are emitted as JMX notifications.
+ * </P>
+ * <P>
+ * Latency of request stages (receive to enqueue, wait in queue, handler by {@link RequestType} and encode with send of
+ * response) is recorded in histograms and reported by percentiles.
+ * </P>
+ * <P>
+ * Server implements {@link ServerLoad}, so channels can report its load to monitoring, for example in responses to
+ * Status-Server requests.
+ * </P>
  * 
  * @author Igor A Tarasov, &lt;java@dicr.org&gt;
  * @version 060616
  */
-public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServerMBean {
+public class DefaultRadiusServer extends NotificationBroadcasterSupport implements MBeanRegistration,
+        DefaultRadiusServerMBean, ServerLoad {
 	/** Logger */
 	protected static final Logger log = Logger.getLogger(DefaultRadiusServer.class);
 
 	/** Default MBean Name */
 	public static final String DEFAULT_MBEAN_NAME = "org.dicr:service=auth;type=radius;name=dicr";
 
+	/** Type of notification, emitted when server is overloaded and start to shed requests */
+	public static final String OVERLOAD_START_NOTIFICATION = "org.dicr.radius.overload.start";
+
+	/** Type of notification, emitted when overload is over */
+	public static final String OVERLOAD_END_NOTIFICATION = "org.dicr.radius.overload.end";
+
+	/** Interval of polling for requests of batch in nanoseconds */
+	private static final long BATCH_POLL_INTERVAL = 50000L;
+
+	/** Interval of checking timeouts of asynchronous handler in milliseconds */
+	private static final long ASYNC_CHECK_INTERVAL = 1000L;
+
+	/** Emitted notifications */
+	private static final MBeanNotificationInfo[] NOTIFICATIONS = {new MBeanNotificationInfo(new String[] {
+	        DefaultRadiusServer.OVERLOAD_START_NOTIFICATION, DefaultRadiusServer.OVERLOAD_END_NOTIFICATION },
+	        Notification.class.getName(), "overload of radius server")};
+
 	/** Channels */
 	private final Collection<ServerChannel> channels = new ArrayList<ServerChannel>();
 
@@ -33,11 +87,111 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 	/** Requests queue */
 	private RequestsQueue requestsQueue = null;
 
+	/** Configured lanes */
+	private final Map<RequestClass, RequestLane> lanes = new EnumMap<RequestClass, RequestLane>(RequestClass.class);
+
+	/** Lanes of running server by ordinal of request class */
+	private volatile RequestLane[] activeLanes = null;
+
 	/** Request handler */
 	private RequestHandler requestHandler = null;
 
-	/** Handler Thread */
-	private HandlerThread handlerThread = null;
+	/** Asynchronous request handler */
+	private AsyncRequestHandler asyncRequestHandler = null;
+
+	/** Batch request handler */
+	private BatchRequestHandler batchRequestHandler = null;
+
+	/** Number of handled batches */
+	private final AtomicLong batchesCount = new AtomicLong(0);
+
+	/** Number of requests, handled in batches */
+	private final AtomicLong batchedRequests = new AtomicLong(0);
+
+	/** Number of requests, waiting for asynchronous handler */
+	private final AtomicInteger pendingAsyncRequests = new AtomicInteger(0);
+
+	/** Deadlines of completions of asynchronous handler */
+	private final ConcurrentMap<Completion<ResponsePacket>, Long> asyncDeadlines = new ConcurrentHashMap<Completion<ResponsePacket>, Long>();
+
+	/** Timeout of asynchronous handler */
+	private volatile long asyncTimeout = 30000;
+
+	/** Timer of asynchronous handler timeouts */
+	private Timer asyncTimer = null;
+
+	/** Handler Threads */
+	private final List<HandlerThread> handlerThreads = new ArrayList<HandlerThread>();
+
+	/** Number of threads, handling requests */
+	private final AtomicInteger activeWorkers = new AtomicInteger(0);
+
+	/**
+	 * Number of admitted requests, not taken from queues by handlers. Queues drop overflowed and expired requests without
+	 * notice to server, so it is corrected by depth of queues periodically.
+	 */
+	private final AtomicInteger queuedRequests = new AtomicInteger(0);
+
+	/** Time to wait for handler threads on stop */
+	private long shutdownTimeout = 5000;
+
+	/** Handle each request in own thread */
+	private boolean threadPerRequest = false;
+
+	/** Maximum number of requests, handled concurrently in thread-per-request mode */
+	private int maxConcurrentRequests = 1000;
+
+	/** Factory of request threads */
+	private ThreadFactory requestThreadFactory = null;
+
+	/** Permits of concurrent requests of running server, null if thread-per-request mode is disabled */
+	private volatile Semaphore requestPermits = null;
+
+	/** Requests, expired while waiting for permit */
+	private final AtomicLong expiredRequests = new AtomicLong(0);
+
+	/** Adaptive limit of requests in server, null if load shedding is disabled */
+	private volatile ConcurrencyLimiter concurrencyLimiter = null;
+
+	/** Classes of requests, rejected on overload instead of drop */
+	private volatile Set<RequestClass> shedRejectClasses = EnumSet.noneOf(RequestClass.class);
+
+	/** Requests, dropped on overload */
+	private final AtomicLong shedDrops = new AtomicLong(0);
+
+	/** Requests, rejected on overload */
+	private final AtomicLong shedRejects = new AtomicLong(0);
+
+	/** Overload flag */
+	private final AtomicBoolean overloaded = new AtomicBoolean(false);
+
+	/** Sequence number of notifications */
+	private final AtomicLong notificationSequence = new AtomicLong(0);
+
+	/** Time of shed rate measurement */
+	private long shedRateTime = System.nanoTime();
+
+	/** Number of shed requests at time of shed rate measurement */
+	private long shedRateCount = 0;
+
+	/** Measured shed rate */
+	private double shedRate = 0;
+
+	/** Time of last progress of handlers (request taken or completed) */
+	private volatile long progressTime = System.nanoTime();
+
+	/** Latency from receive to enqueue */
+	private final LatencyHistogram receiveLatency = new LatencyHistogram();
+
+	/** Latency of waiting in queue */
+	private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+	/** Latency of handler by type of request */
+	private final Map<RequestType, LatencyHistogram> handlerLatency = new EnumMap<RequestType, LatencyHistogram>(
+	        RequestType.class);
+
+	/** Latency of encode and send of response */
+	private final LatencyHistogram sendLatency = new LatencyHistogram();
 
 	/** Running flag */
 	private boolean running = false;
@@ -46,7 +200,9 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 	 * Constructor
 	 */
 	public DefaultRadiusServer() {
-		super();
+		super(DefaultRadiusServer.NOTIFICATIONS);
+		for (final RequestType type : RequestType.values())
+			this.handlerLatency.put(type, new LatencyHistogram());
 	}
 
 	/**
@@ -120,6 +276,445 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 		}
 	}
 
+	/**
+	 * Set processing lanes.
+	 * <P>
+	 * Lanes are replaced by lanes with the same request class. For classes without configured lane, the lane with one
+	 * handler thread is created, and access lane use {@link #getRequestsQueue()}. Must restart to activate changes.
+	 * </P>
+	 * 
+	 * @param requestLanes lanes configuration
+	 */
+	public void setLanes(final Collection<RequestLane> requestLanes) {
+		if (requestLanes == null) throw new IllegalArgumentException("null lanes");
+		synchronized (this) {
+			for (final RequestLane lane : requestLanes) {
+				if (lane == null) throw new IllegalArgumentException("null lane");
+				this.lanes.put(lane.getRequestClass(), lane);
+			}
+		}
+		DefaultRadiusServer.log.debug("configured " + requestLanes.size() + " lanes");
+	}
+
+	/**
+	 * Return processing lane
+	 * 
+	 * @param requestClass class of requests
+	 * @return lane of requests class
+	 */
+	public RequestLane getLane(final RequestClass requestClass) {
+		if (requestClass == null) throw new IllegalArgumentException("null request class");
+		synchronized (this) {
+			RequestLane lane = this.lanes.get(requestClass);
+			if (lane == null) {
+				lane = new RequestLane(requestClass, requestClass == RequestClass.ACCESS ? this.getRequestsQueue()
+				        : new TrackingRequestsQueue(), 1);
+				this.lanes.put(requestClass, lane);
+			}
+			return lane;
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getLanesReport()
+	 */
+	@Override
+	public String[] getLanesReport() {
+		final RequestClass[] classes = RequestClass.values();
+		final String[] report = new String[classes.length];
+		for (int i = 0; i < classes.length; i++) {
+			final RequestLane lane = this.getLane(classes[i]);
+			report[i] = classes[i] + ": threads=" + lane.getThreadsCount() + ", pending="
+			        + lane.getRequestsQueue().getPendingCount() + ", expired=" + lane.getRequestsQueue().getExpiredCount();
+		}
+		return report;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getExpiredRequests()
+	 */
+	@Override
+	public long getExpiredRequests() {
+		long count = this.expiredRequests.get();
+		for (final RequestClass requestClass : RequestClass.values())
+			count += this.getLane(requestClass).getRequestsQueue().getExpiredCount();
+		return count;
+	}
+
+	/**
+	 * Set number of handler threads of lane.
+	 * <P>
+	 * If server is running, threads are started or stopped immediately. Stopped threads finish handling of current
+	 * request.
+	 * </P>
+	 * 
+	 * @param requestClass class of requests
+	 * @param count number of threads
+	 */
+	public void setThreadsCount(final RequestClass requestClass, final int count) {
+		if (requestClass == null) throw new IllegalArgumentException("null request class");
+		if (count < 1) throw new IllegalArgumentException("threadsCount: " + count);
+		synchronized (this) {
+			final RequestLane lane = this.getLane(requestClass);
+			lane.setThreadsCount(count);
+			final RequestLane[] active = this.activeLanes;
+			if (this.running && active != null && active[requestClass.ordinal()] == lane) {
+				// remove finished threads
+				final Iterator<HandlerThread> iterator = this.handlerThreads.iterator();
+				while (iterator.hasNext())
+					if (!iterator.next().isAlive()) iterator.remove();
+				// current threads of lane
+				final List<HandlerThread> threads = new ArrayList<HandlerThread>();
+				for (final HandlerThread thread : this.handlerThreads)
+					if (thread.lane == lane && !thread.isRetired()) threads.add(thread);
+				for (int i = threads.size(); i < count; i++) {
+					final HandlerThread thread = new HandlerThread(active, lane, i);
+					this.handlerThreads.add(thread);
+					thread.start();
+				}
+				for (int i = threads.size() - 1; i >= count; i--)
+					threads.get(i).retire();
+			}
+		}
+		DefaultRadiusServer.log.info("configured " + count + " handler threads of " + requestClass + " lane");
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#setAccessThreads(int)
+	 */
+	@Override
+	public void setAccessThreads(final int count) {
+		this.setThreadsCount(RequestClass.ACCESS, count);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getAccessThreads()
+	 */
+	@Override
+	public int getAccessThreads() {
+		return this.getLane(RequestClass.ACCESS).getThreadsCount();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#setStatusThreads(int)
+	 */
+	@Override
+	public void setStatusThreads(final int count) {
+		this.setThreadsCount(RequestClass.STATUS, count);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getStatusThreads()
+	 */
+	@Override
+	public int getStatusThreads() {
+		return this.getLane(RequestClass.STATUS).getThreadsCount();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#setAccountingThreads(int)
+	 */
+	@Override
+	public void setAccountingThreads(final int count) {
+		this.setThreadsCount(RequestClass.ACCOUNTING, count);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getAccountingThreads()
+	 */
+	@Override
+	public int getAccountingThreads() {
+		return this.getLane(RequestClass.ACCOUNTING).getThreadsCount();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getActiveWorkers()
+	 */
+	@Override
+	public int getActiveWorkers() {
+		return this.activeWorkers.get();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getIdleWorkers()
+	 */
+	@Override
+	public int getIdleWorkers() {
+		int count = 0;
+		synchronized (this) {
+			for (final HandlerThread thread : this.handlerThreads)
+				if (thread.isIdle()) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Set shutdown timeout.
+	 * <P>
+	 * On stop server wait for handler threads to finish current requests. Default is 5000 ms.
+	 * </P>
+	 * 
+	 * @param millis timeout in milliseconds
+	 */
+	public void setShutdownTimeout(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("shutdownTimeout: " + millis);
+		synchronized (this) {
+			this.shutdownTimeout = millis;
+		}
+	}
+
+	/**
+	 * Return shutdown timeout
+	 * 
+	 * @return time to wait for handler threads on stop in milliseconds
+	 */
+	public long getShutdownTimeout() {
+		synchronized (this) {
+			return this.shutdownTimeout;
+		}
+	}
+
+	/**
+	 * Set timeout of asynchronous handler.
+	 * <P>
+	 * Completion of asynchronous or batch handler, which is not completed in timeout, is failed, so request is dropped
+	 * and is not counted as in flight anymore. Timeouts are checked once per second. Default is 30000 ms.
+	 * </P>
+	 * 
+	 * @param millis timeout in milliseconds, 0 to wait for completion forever
+	 */
+	public void setAsyncTimeout(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("asyncTimeout: " + millis);
+		this.asyncTimeout = millis;
+	}
+
+	/**
+	 * Return timeout of asynchronous handler
+	 * 
+	 * @return timeout in milliseconds, 0 if not limited
+	 */
+	public long getAsyncTimeout() {
+		return this.asyncTimeout;
+	}
+
+	/**
+	 * Set thread-per-request mode.
+	 * <P>
+	 * When enabled, each request is handled in own thread. It is useful for modules, which block on I/O. Must restart
+	 * to activate changes.
+	 * </P>
+	 * 
+	 * @param enabled true to handle each request in own thread
+	 */
+	public void setThreadPerRequest(final boolean enabled) {
+		synchronized (this) {
+			this.threadPerRequest = enabled;
+		}
+		DefaultRadiusServer.log.debug("configured thread-per-request mode: " + enabled);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#isThreadPerRequest()
+	 */
+	@Override
+	public boolean isThreadPerRequest() {
+		synchronized (this) {
+			return this.threadPerRequest;
+		}
+	}
+
+	/**
+	 * Set maximum concurrent requests.
+	 * <P>
+	 * Limit number of requests, handled concurrently in thread-per-request mode. When limit is reached, handler threads
+	 * wait for finishing of requests. Default is 1000. Must restart to activate changes.
+	 * </P>
+	 * 
+	 * @param max maximum number of concurrent requests
+	 */
+	public void setMaxConcurrentRequests(final int max) {
+		if (max < 1) throw new IllegalArgumentException("maxConcurrentRequests: " + max);
+		synchronized (this) {
+			this.maxConcurrentRequests = max;
+		}
+		DefaultRadiusServer.log.debug("configured max concurrent requests: " + max);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getMaxConcurrentRequests()
+	 */
+	@Override
+	public int getMaxConcurrentRequests() {
+		synchronized (this) {
+			return this.maxConcurrentRequests;
+		}
+	}
+
+	/**
+	 * Set factory of request threads
+	 * 
+	 * @param factory factory of threads to handle requests in thread-per-request mode
+	 */
+	public void setRequestThreadFactory(final ThreadFactory factory) {
+		if (factory == null) throw new IllegalArgumentException("null factory");
+		synchronized (this) {
+			this.requestThreadFactory = factory;
+		}
+		DefaultRadiusServer.log.debug("configured request thread factory: " + factory);
+	}
+
+	/**
+	 * Return factory of request threads.
+	 * <P>
+	 * If not configured, {@link RequestThreadFactory} is created.
+	 * </P>
+	 * 
+	 * @return factory of threads to handle requests in thread-per-request mode
+	 */
+	public ThreadFactory getRequestThreadFactory() {
+		synchronized (this) {
+			if (this.requestThreadFactory == null) this.requestThreadFactory = new RequestThreadFactory();
+			return this.requestThreadFactory;
+		}
+	}
+
+	/**
+	 * Set concurrency limiter.
+	 * <P>
+	 * When number of requests in server reach limit of limiter, received requests are shed. Status requests are never
+	 * shed. Limit is adjusted by latency of request handler.
+	 * </P>
+	 * 
+	 * @param limiter adaptive limiter or null to disable load shedding
+	 */
+	public void setConcurrencyLimiter(final ConcurrencyLimiter limiter) {
+		synchronized (this) {
+			this.concurrencyLimiter = limiter;
+		}
+		DefaultRadiusServer.log.debug("configured concurrency limiter: " + limiter);
+	}
+
+	/**
+	 * Return concurrency limiter
+	 * 
+	 * @return adaptive limiter or null if load shedding is disabled
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return this.concurrencyLimiter;
+	}
+
+	/**
+	 * Set classes of requests, rejected on overload.
+	 * <P>
+	 * Access requests of these classes are answered by Access-Reject, so NAS does not retransmit them. Requests of other
+	 * classes are dropped silently. Default is empty.
+	 * </P>
+	 * 
+	 * @param classes classes of requests to reject
+	 */
+	public void setShedRejectClasses(final Collection<RequestClass> classes) {
+		if (classes == null) throw new IllegalArgumentException("null classes");
+		final Set<RequestClass> set = EnumSet.noneOf(RequestClass.class);
+		set.addAll(classes);
+		this.shedRejectClasses = set;
+		DefaultRadiusServer.log.debug("configured classes of rejected requests on overload: " + set);
+	}
+
+	/**
+	 * Return classes of requests, rejected on overload
+	 * 
+	 * @return classes of requests to reject
+	 */
+	public Set<RequestClass> getShedRejectClasses() {
+		return Collections.unmodifiableSet(this.shedRejectClasses);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getConcurrencyLimit()
+	 */
+	@Override
+	public int getConcurrencyLimit() {
+		final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		return limiter != null ? limiter.getLimit() : 0;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getInFlightRequests()
+	 */
+	@Override
+	public int getInFlightRequests() {
+		return this.activeWorkers.get() + this.pendingAsyncRequests.get() + Math.max(0, this.queuedRequests.get());
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getQueueDepth()
+	 */
+	@Override
+	public int getQueueDepth() {
+		int count = 0;
+		final RequestLane[] active = this.activeLanes;
+		if (active != null) for (final RequestLane lane : active)
+			count += lane.getRequestsQueue().getPendingCount();
+		return count;
+	}
+
+	/**
+	 * Return rate of shed requests.
+	 * <P>
+	 * Rate is measured between calls, but not more often than once per second. So monitoring, which poll rate
+	 * periodically, get average rate over polling interval.
+	 * </P>
+	 * 
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getShedRate()
+	 */
+	@Override
+	public double getShedRate() {
+		final long now = System.nanoTime();
+		synchronized (this.shedDrops) {
+			final long elapsed = now - this.shedRateTime;
+			if (elapsed >= 1000000000L) {
+				final long count = this.shedDrops.get() + this.shedRejects.get();
+				this.shedRate = (count - this.shedRateCount) * 1000000000.0 / elapsed;
+				this.shedRateCount = count;
+				this.shedRateTime = now;
+			}
+			return this.shedRate;
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getStallTime()
+	 */
+	@Override
+	public long getStallTime() {
+		if (this.getQueueDepth() == 0) return 0;
+		return Math.max(0, (System.nanoTime() - this.progressTime) / 1000000L);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getShedDrops()
+	 */
+	@Override
+	public long getShedDrops() {
+		return this.shedDrops.get();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getShedRejects()
+	 */
+	@Override
+	public long getShedRejects() {
+		return this.shedRejects.get();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#isOverloaded()
+	 */
+	@Override
+	public boolean isOverloaded() {
+		return this.overloaded.get();
+	}
+
 	/**
 	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#setRequestHandler(org.dicr.radius.handler.RequestHandler)
 	 */
@@ -142,13 +737,152 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 		}
 	}
 
+	/**
+	 * Set asynchronous request handler.
+	 * <P>
+	 * If asynchronous handler is set, it is used instead of synchronous <CODE>requestHandler</CODE>. If it is not set,
+	 * but <CODE>requestHandler</CODE> implements {@link AsyncRequestHandler}, the last is used asynchronously.
+	 * </P>
+	 * 
+	 * @param handler asynchronous handler or null to use <CODE>requestHandler</CODE>
+	 */
+	public void setAsyncRequestHandler(final AsyncRequestHandler handler) {
+		synchronized (this) {
+			this.asyncRequestHandler = handler;
+		}
+		DefaultRadiusServer.log.debug("configured asynchronous requests handler: " + handler);
+	}
+
+	/**
+	 * Return asynchronous request handler
+	 * 
+	 * @return configured asynchronous handler or <CODE>requestHandler</CODE> if it is asynchronous, or null
+	 */
+	public AsyncRequestHandler getAsyncRequestHandler() {
+		synchronized (this) {
+			if (this.asyncRequestHandler != null) return this.asyncRequestHandler;
+			if (this.requestHandler instanceof AsyncRequestHandler) return (AsyncRequestHandler) this.requestHandler;
+			return null;
+		}
+	}
+
+	/**
+	 * Set batch request handler.
+	 * <P>
+	 * Batch handler is used by lanes with <CODE>batchSize</CODE> greater than 1. If it is not set, but
+	 * <CODE>requestHandler</CODE> implements {@link BatchRequestHandler}, the last is used.
+	 * </P>
+	 * 
+	 * @param handler batch handler or null to use <CODE>requestHandler</CODE>
+	 */
+	public void setBatchRequestHandler(final BatchRequestHandler handler) {
+		synchronized (this) {
+			this.batchRequestHandler = handler;
+		}
+		DefaultRadiusServer.log.debug("configured batch requests handler: " + handler);
+	}
+
+	/**
+	 * Return batch request handler
+	 * 
+	 * @return configured batch handler or <CODE>requestHandler</CODE> if it handle batches, or null
+	 */
+	public BatchRequestHandler getBatchRequestHandler() {
+		synchronized (this) {
+			if (this.batchRequestHandler != null) return this.batchRequestHandler;
+			if (this.requestHandler instanceof BatchRequestHandler) return (BatchRequestHandler) this.requestHandler;
+			return null;
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getBatchesCount()
+	 */
+	@Override
+	public long getBatchesCount() {
+		return this.batchesCount.get();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getBatchedRequests()
+	 */
+	@Override
+	public long getBatchedRequests() {
+		return this.batchedRequests.get();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getPendingAsyncRequests()
+	 */
+	@Override
+	public int getPendingAsyncRequests() {
+		return this.pendingAsyncRequests.get();
+	}
+
+	/**
+	 * Return latency histogram of stage
+	 * 
+	 * @param stage <CODE>receive</CODE>, <CODE>queue</CODE>, <CODE>send</CODE> or name of {@link RequestType} for
+	 *            handler stage
+	 * @return histogram of latency
+	 */
+	public LatencyHistogram getLatencyHistogram(final String stage) {
+		if (stage == null) throw new IllegalArgumentException("null stage");
+		if (stage.equals("receive")) return this.receiveLatency;
+		if (stage.equals("queue")) return this.queueLatency;
+		if (stage.equals("send")) return this.sendLatency;
+		try {
+			return this.handlerLatency.get(RequestType.valueOf(stage));
+		} catch (final IllegalArgumentException ex) {
+			throw new IllegalArgumentException("stage: " + stage);
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getLatencyReport()
+	 */
+	@Override
+	public String[] getLatencyReport() {
+		final List<String> report = new ArrayList<String>();
+		report.add("receive: " + this.receiveLatency);
+		report.add("queue: " + this.queueLatency);
+		for (final Map.Entry<RequestType, LatencyHistogram> entry : this.handlerLatency.entrySet())
+			if (entry.getValue().getCount() > 0) report.add("handler " + entry.getKey() + ": " + entry.getValue());
+		report.add("send: " + this.sendLatency);
+		return report.toArray(new String[report.size()]);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#getLatencyPercentile(java.lang.String, double)
+	 */
+	@Override
+	public long getLatencyPercentile(final String stage, final double percentile) {
+		return this.getLatencyHistogram(stage).getPercentile(percentile) / 1000;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#resetLatencyStatistics()
+	 */
+	@Override
+	public void resetLatencyStatistics() {
+		this.receiveLatency.reset();
+		this.queueLatency.reset();
+		for (final LatencyHistogram histogram : this.handlerLatency.values())
+			histogram.reset();
+		this.sendLatency.reset();
+		DefaultRadiusServer.log.debug("latency statistics is reset");
+	}
+
 	/**
 	 * @see org.dicr.radius.server.impl.DefaultRadiusServerMBean#isRunning()
 	 */
 	@Override
     public final boolean isRunning() {
 		synchronized (this) {
-			return this.running && this.handlerThread != null && this.handlerThread.isAlive();
+			if (!this.running) return false;
+			for (final HandlerThread thread : this.handlerThreads)
+				if (thread.isAlive()) return true;
+			return false;
 		}
 	}
 
@@ -161,8 +895,27 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 			if (this.isRunning()) DefaultRadiusServer.log.debug("radius server already running");
 			else {
 				DefaultRadiusServer.log.info("starting Radius AAA Server...");
-				this.handlerThread = new HandlerThread();
-				this.handlerThread.start();
+				final RequestClass[] classes = RequestClass.values();
+				final RequestLane[] active = new RequestLane[classes.length];
+				for (int i = 0; i < classes.length; i++)
+					active[i] = this.getLane(classes[i]);
+				this.activeLanes = active;
+				this.requestPermits = this.threadPerRequest ? new Semaphore(this.maxConcurrentRequests) : null;
+				this.asyncTimer = new Timer("Radius Async Timeout", true);
+				this.asyncTimer.schedule(new TimerTask() {
+					@Override
+					public void run() {
+						DefaultRadiusServer.this.expireAsyncRequests();
+						// correct counter by requests, dropped by queues
+						DefaultRadiusServer.this.queuedRequests.set(DefaultRadiusServer.this.getQueueDepth());
+					}
+				}, DefaultRadiusServer.ASYNC_CHECK_INTERVAL, DefaultRadiusServer.ASYNC_CHECK_INTERVAL);
+				for (final RequestLane lane : active)
+					for (int i = 0; i < lane.getThreadsCount(); i++) {
+						final HandlerThread thread = new HandlerThread(active, lane, i);
+						this.handlerThreads.add(thread);
+						thread.start();
+					}
 				for (final ServerChannel channel : this.channels)
 					try {
 						channel.startChannel();
@@ -179,6 +932,11 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 	 */
 	@Override
     public final void stopServer() {
+		final List<HandlerThread> threads = new ArrayList<HandlerThread>();
+		long timeout = 0;
+		int permits = 0;
+		Semaphore semaphore = null;
+		RequestLane[] active = null;
 		synchronized (this) {
 			if (!this.isRunning()) DefaultRadiusServer.log.debug("radius server is already stopped");
 			else {
@@ -189,10 +947,481 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 					} catch (final Throwable th) {
 						DefaultRadiusServer.log.error("error stopping channel " + channel, th);
 					}
-				this.handlerThread.interrupt();
-				this.handlerThread = null;
+				for (final HandlerThread thread : this.handlerThreads)
+					thread.retire();
+				if (this.asyncTimer != null) {
+					this.asyncTimer.cancel();
+					this.asyncTimer = null;
+				}
+				threads.addAll(this.handlerThreads);
+				this.handlerThreads.clear();
+				// new requests are dropped by enqueue
+				active = this.activeLanes;
+				this.activeLanes = null;
 				this.running = false;
+				timeout = this.shutdownTimeout;
+				semaphore = this.requestPermits;
+				permits = this.maxConcurrentRequests;
+			}
+		}
+		// wait for current requests, outside of lock, because handlers use server
+		final long deadline = System.currentTimeMillis() + timeout;
+		for (final HandlerThread thread : threads)
+			try {
+				final long wait = deadline - System.currentTimeMillis();
+				if (wait > 0) thread.join(wait);
+				if (thread.isAlive()) {
+					DefaultRadiusServer.log.warn("interrupting handler thread " + thread.getName());
+					thread.interrupt();
+				}
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		// drop requests, which are not taken by handlers
+		if (active != null) {
+			int dropped = 0;
+			for (final RequestLane lane : active)
+				for (ClientRequest request = lane.getRequestsQueue().pollRequest(); request != null; request = lane
+				        .getRequestsQueue().pollRequest()) {
+					request.getServerChannel().requestDropped(request);
+					dropped++;
+				}
+			this.queuedRequests.set(0);
+			if (dropped > 0) DefaultRadiusServer.log.warn("stopped with " + dropped + " requests in queues");
+		}
+		if (Thread.currentThread().isInterrupted()) return;
+		// wait for requests, handled in own threads
+		if (semaphore != null) try {
+			final long wait = Math.max(0, deadline - System.currentTimeMillis());
+			if (semaphore.tryAcquire(permits, wait, TimeUnit.MILLISECONDS)) semaphore.release(permits);
+			else DefaultRadiusServer.log.warn("stopped with " + (permits - semaphore.availablePermits())
+			        + " requests in progress");
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Put request to queue of lane
+	 * 
+	 * @param request client request
+	 */
+	protected void enqueueRequest(final ClientRequest request) {
+		final RequestLane[] active = this.activeLanes;
+		if (active == null) {
+			DefaultRadiusServer.log.warn("server is not started, ignoring request: " + request);
+			request.getServerChannel().requestDropped(request);
+			return;
+		}
+		final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		if (limiter != null && !this.admitRequest(request, limiter.getLimit(), this.getInFlightRequests())) return;
+		final long enqueueTime = System.nanoTime();
+		request.setEnqueueTime(enqueueTime);
+		this.receiveLatency.record(enqueueTime - request.getReceiveTime());
+		this.queuedRequests.incrementAndGet();
+		active[RequestClass.forPacket(request.getRequestPacket()).ordinal()].getRequestsQueue().putRequest(request);
+	}
+
+	/**
+	 * Put several requests to queues of lanes
+	 * 
+	 * @param allRequests client requests
+	 */
+	protected void enqueueRequests(final List<ClientRequest> allRequests) {
+		final RequestLane[] active = this.activeLanes;
+		if (active == null) {
+			DefaultRadiusServer.log.warn("server is not started, ignoring " + allRequests.size() + " requests");
+			for (final ClientRequest request : allRequests)
+				request.getServerChannel().requestDropped(request);
+			return;
+		}
+		List<ClientRequest> requests = allRequests;
+		final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		if (limiter != null) {
+			final int limit = limiter.getLimit();
+			int inFlight = this.getInFlightRequests();
+			for (int i = 0; i < allRequests.size(); i++) {
+				final ClientRequest request = allRequests.get(i);
+				if (this.admitRequest(request, limit, inFlight)) {
+					inFlight++;
+					if (requests != allRequests) requests.add(request);
+				} else if (requests == allRequests) requests = new ArrayList<ClientRequest>(allRequests.subList(0, i));
+			}
+		}
+		if (requests.isEmpty()) return;
+		final long enqueueTime = System.nanoTime();
+		for (final ClientRequest request : requests) {
+			request.setEnqueueTime(enqueueTime);
+			this.receiveLatency.record(enqueueTime - request.getReceiveTime());
+		}
+		this.queuedRequests.addAndGet(requests.size());
+		// usually all requests from one port are of the same class
+		final RequestClass first = RequestClass.forPacket(requests.get(0).getRequestPacket());
+		boolean same = true;
+		for (int i = 1; i < requests.size() && same; i++)
+			same = RequestClass.forPacket(requests.get(i).getRequestPacket()) == first;
+		if (same) active[first.ordinal()].getRequestsQueue().putRequests(requests);
+		else {
+			final Map<RequestClass, List<ClientRequest>> split = new EnumMap<RequestClass, List<ClientRequest>>(
+			        RequestClass.class);
+			for (final ClientRequest request : requests) {
+				final RequestClass requestClass = RequestClass.forPacket(request.getRequestPacket());
+				List<ClientRequest> list = split.get(requestClass);
+				if (list == null) {
+					list = new ArrayList<ClientRequest>(requests.size());
+					split.put(requestClass, list);
+				}
+				list.add(request);
+			}
+			for (final Map.Entry<RequestClass, List<ClientRequest>> entry : split.entrySet())
+				active[entry.getKey().ordinal()].getRequestsQueue().putRequests(entry.getValue());
+		}
+	}
+
+	/**
+	 * Check request by concurrency limit and shed it, if limit is reached
+	 * 
+	 * @param request received request
+	 * @param limit current limit
+	 * @param inFlight number of requests in server
+	 * @return true if request is admitted, false if it is shed
+	 */
+	protected boolean admitRequest(final ClientRequest request, final int limit, final int inFlight) {
+		final RequestClass requestClass = RequestClass.forPacket(request.getRequestPacket());
+		if (inFlight < limit || requestClass == RequestClass.STATUS) {
+			// hysteresis, so state does not flap on each request
+			if (inFlight < limit * 0.9 && this.overloaded.compareAndSet(true, false)) this.sendOverloadNotification(
+			        false, limit, inFlight);
+			return true;
+		}
+		if (this.overloaded.compareAndSet(false, true)) this.sendOverloadNotification(true, limit, inFlight);
+		this.shedRequest(request, requestClass);
+		return false;
+	}
+
+	/**
+	 * Shed request on overload. Request is rejected if its class is in <CODE>shedRejectClasses</CODE>, or dropped.
+	 * 
+	 * @param request request to shed
+	 * @param requestClass class of request
+	 */
+	protected void shedRequest(final ClientRequest request, final RequestClass requestClass) {
+		if (this.shedRejectClasses.contains(requestClass)) {
+			final ResponsePacket response = this.createShedResponse(request.getRequestPacket());
+			if (response != null) {
+				this.shedRejects.incrementAndGet();
+				this.completeRequest(request, response, null);
+				return;
+			}
+		}
+		this.shedDrops.incrementAndGet();
+		request.getServerChannel().requestDropped(request);
+		if (DefaultRadiusServer.log.isDebugEnabled()) DefaultRadiusServer.log.debug("overload, dropping request: "
+		        + request.getRequestPacket());
+	}
+
+	/**
+	 * Create response to request, shed on overload
+	 * 
+	 * @param requestPacket shed request
+	 * @return Access-Reject for access request, or null to drop request
+	 */
+	protected ResponsePacket createShedResponse(final RequestPacket requestPacket) {
+		if (!(requestPacket instanceof AccessRequest)) return null;
+		final ResponsePacket response = new AccessReject();
+		response.getAttributes().add(new ReplyMessage("server is overloaded"));
+		return response;
+	}
+
+	/**
+	 * Log and emit notification of overload state
+	 * 
+	 * @param start true if overload is started, false if it is over
+	 * @param limit current limit
+	 * @param inFlight number of requests in server
+	 */
+	private void sendOverloadNotification(final boolean start, final int limit, final int inFlight) {
+		final String message = (start ? "server is overloaded: " : "overload is over: ") + inFlight
+		        + " requests in server, limit " + limit;
+		if (start) DefaultRadiusServer.log.warn(message);
+		else DefaultRadiusServer.log.info(message);
+		this.sendNotification(new Notification(start ? DefaultRadiusServer.OVERLOAD_START_NOTIFICATION
+		        : DefaultRadiusServer.OVERLOAD_END_NOTIFICATION, this, this.notificationSequence.incrementAndGet(),
+		        message));
+	}
+
+	/**
+	 * Record latency of queue
+	 * 
+	 * @param clientRequest request, taken from queue
+	 * @return time of handling start by {@link System#nanoTime()}
+	 */
+	private long startHandling(final ClientRequest clientRequest) {
+		final long startTime = System.nanoTime();
+		this.progressTime = startTime;
+		final long enqueueTime = clientRequest.getEnqueueTime();
+		if (enqueueTime != 0) this.queueLatency.record(startTime - enqueueTime);
+		return startTime;
+	}
+
+	/**
+	 * Record latency of handler and update concurrency limit
+	 * 
+	 * @param clientRequest handled request
+	 * @param startTime time of handling start by {@link System#nanoTime()}
+	 */
+	private void finishHandling(final ClientRequest clientRequest, final long startTime) {
+		final long finishTime = System.nanoTime();
+		this.progressTime = finishTime;
+		final long latency = finishTime - startTime;
+		this.handlerLatency.get(RequestType.forPacket(clientRequest.getRequestPacket())).record(latency);
+		final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		if (limiter != null) limiter.onSample(latency, this.getInFlightRequests());
+	}
+
+	/**
+	 * Handle client request and send response
+	 * 
+	 * @param clientRequest request to handle
+	 */
+	protected void handleRequest(final ClientRequest clientRequest) {
+		final RequestPacket requestPacket = clientRequest.getRequestPacket();
+
+		// asynchronous handler
+		final AsyncRequestHandler asyncHandler = this.getAsyncRequestHandler();
+		if (asyncHandler != null) {
+			this.handleRequestAsync(asyncHandler, clientRequest);
+			return;
+		}
+
+		// handle request
+		ResponsePacket responsePacket = null;
+		Throwable error = null;
+		final RequestHandler requestsHandler = this.getRequestHandler();
+		if (requestsHandler == null) {
+			DefaultRadiusServer.log.warn("request handler not configured");
+			clientRequest.getServerChannel().requestDropped(clientRequest);
+			return;
+		}
+		final long startTime = this.startHandling(clientRequest);
+		try {
+			responsePacket = requestsHandler.handleRequest(requestPacket);
+		} catch (final Throwable th) {
+			error = th;
+		}
+		this.finishHandling(clientRequest, startTime);
+		this.completeRequest(clientRequest, responsePacket, error);
+	}
+
+	/**
+	 * Handle client request by asynchronous handler. Response is sent when handling is completed.
+	 * 
+	 * @param asyncHandler handler
+	 * @param clientRequest request to handle
+	 */
+	protected void handleRequestAsync(final AsyncRequestHandler asyncHandler, final ClientRequest clientRequest) {
+		final long startTime = this.startHandling(clientRequest);
+		Completion<ResponsePacket> completion = null;
+		try {
+			completion = asyncHandler.handleRequestAsync(clientRequest.getRequestPacket());
+			if (completion == null) completion = Completion.completed(null);
+		} catch (final Throwable th) {
+			completion = Completion.failed(th);
+		}
+		this.completeAsync(clientRequest, startTime, completion);
+	}
+
+	/**
+	 * Handle batch of client requests. Response to each request is sent when its handling is completed.
+	 * 
+	 * @param batchHandler handler
+	 * @param clientRequests requests to handle
+	 */
+	protected void handleBatch(final BatchRequestHandler batchHandler, final List<ClientRequest> clientRequests) {
+		final int count = clientRequests.size();
+		final long[] startTimes = new long[count];
+		final List<RequestPacket> requestPackets = new ArrayList<RequestPacket>(count);
+		for (int i = 0; i < count; i++) {
+			final ClientRequest clientRequest = clientRequests.get(i);
+			startTimes[i] = this.startHandling(clientRequest);
+			requestPackets.add(clientRequest.getRequestPacket());
+		}
+		this.batchesCount.incrementAndGet();
+		this.batchedRequests.addAndGet(count);
+		List<Completion<ResponsePacket>> completions = null;
+		Throwable error = null;
+		try {
+			completions = batchHandler.handleRequests(requestPackets);
+			if (completions == null || completions.size() != count) throw new IllegalStateException(
+			        "batch handler returned " + (completions == null ? null : Integer.valueOf(completions.size()))
+			                + " responses of " + count + " requests");
+		} catch (final Throwable th) {
+			error = th;
+		}
+		for (int i = 0; i < count; i++) {
+			Completion<ResponsePacket> completion = null;
+			if (error != null) completion = Completion.failed(error);
+			else {
+				completion = completions.get(i);
+				if (completion == null) completion = Completion.completed(null);
 			}
+			this.completeAsync(clientRequests.get(i), startTimes[i], completion);
+		}
+	}
+
+	/**
+	 * Send response, when asynchronous handling of request is completed
+	 * 
+	 * @param clientRequest handled request
+	 * @param startTime time of handling start by {@link System#nanoTime()}
+	 * @param completion completion of response
+	 */
+	private void completeAsync(final ClientRequest clientRequest, final long startTime,
+	        final Completion<ResponsePacket> completion) {
+		this.pendingAsyncRequests.incrementAndGet();
+		final long timeout = this.asyncTimeout;
+		if (timeout > 0 && !completion.isDone()) this.asyncDeadlines.put(completion, Long.valueOf(System
+		        .currentTimeMillis() + timeout));
+		completion.whenComplete(new CompletionListener<ResponsePacket>() {
+			@Override
+			public void completed(final ResponsePacket result, final Throwable error) {
+				DefaultRadiusServer.this.asyncDeadlines.remove(completion);
+				try {
+					DefaultRadiusServer.this.finishHandling(clientRequest, startTime);
+					DefaultRadiusServer.this.completeRequest(clientRequest, result, error);
+				} finally {
+					DefaultRadiusServer.this.pendingAsyncRequests.decrementAndGet();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Fail completions of asynchronous handler, which are not completed before deadline. Called by timer.
+	 */
+	protected void expireAsyncRequests() {
+		final long time = System.currentTimeMillis();
+		for (final Map.Entry<Completion<ResponsePacket>, Long> entry : this.asyncDeadlines.entrySet())
+			if (entry.getValue().longValue() < time) entry.getKey().fail(
+			        new TimeoutException("asynchronous handler timeout"));
+	}
+
+	/**
+	 * Send response of handled request. If response is not sent, request is reported to channel as dropped.
+	 * 
+	 * @param clientRequest handled request
+	 * @param responsePacket response of handler or null
+	 * @param error error of handler or null
+	 */
+	protected void completeRequest(final ClientRequest clientRequest, final ResponsePacket responsePacket,
+	        final Throwable error) {
+		boolean sent = false;
+		try {
+			if (error != null) throw error;
+			final RequestPacket requestPacket = clientRequest.getRequestPacket();
+			if (responsePacket == null) DefaultRadiusServer.log.warn("no handler response for request: " + requestPacket);
+			else {
+				// set id and authenticator
+				responsePacket.setId(requestPacket.getId());
+				responsePacket.setAuthenticator(requestPacket.getAuthenticator());
+
+				// send response
+				final long sendTime = System.nanoTime();
+				clientRequest.sendResponse(responsePacket);
+				this.sendLatency.record(System.nanoTime() - sendTime);
+				sent = true;
+			}
+		} catch (final ChannelException ex) {
+			DefaultRadiusServer.log.error("error sending response " + responsePacket, ex);
+		} catch (final TimeoutException ex) {
+			DefaultRadiusServer.log.warn("dropping request: " + clientRequest.getRequestPacket() + ", "
+			        + ex.getLocalizedMessage());
+		} catch (final IncorrectRequestException ex) {
+			DefaultRadiusServer.log.debug("incorrect request: " + ex.getLocalizedMessage());
+		} catch (final MalformedAttributeException ex) {
+			DefaultRadiusServer.log.debug("malformed request: " + ex.getLocalizedMessage());
+		} catch (final RequestHandlerException ex) {
+			DefaultRadiusServer.log.error("handler error", ex);
+		} catch (final Throwable th) {
+			DefaultRadiusServer.log.fatal("unexpected error", th);
+		} finally {
+			if (!sent) clientRequest.getServerChannel().requestDropped(clientRequest);
+		}
+	}
+
+	/**
+	 * Dispatch request to handling.
+	 * <P>
+	 * In thread-per-request mode, request is handled in new thread after permit is acquired. Otherwise request is
+	 * handled in current thread.
+	 * </P>
+	 * 
+	 * @param clientRequest request to handle
+	 * @throws InterruptedException if interrupted while waiting for permit. Request is reported as dropped.
+	 */
+	protected void dispatchRequest(final ClientRequest clientRequest) throws InterruptedException {
+		final Semaphore permits = this.requestPermits;
+		if (permits == null) {
+			this.activeWorkers.incrementAndGet();
+			try {
+				this.handleRequest(clientRequest);
+			} finally {
+				this.activeWorkers.decrementAndGet();
+			}
+			return;
+		}
+		try {
+			permits.acquire();
+		} catch (final InterruptedException ex) {
+			// thread is stopped, request is already taken from queue
+			clientRequest.getServerChannel().requestDropped(clientRequest);
+			throw ex;
+		}
+		// client may stop waiting, while all permits are in use
+		final long deadline = clientRequest.getDeadline();
+		if (deadline != 0 && System.currentTimeMillis() > deadline) {
+			permits.release();
+			this.expiredRequests.incrementAndGet();
+			clientRequest.getServerChannel().requestDropped(clientRequest);
+			DefaultRadiusServer.log.debug("dropping expired request: " + clientRequest.getRequestPacket());
+			return;
+		}
+		try {
+			this.getRequestThreadFactory().newThread(new Runnable() {
+				@Override
+				public void run() {
+					DefaultRadiusServer.this.activeWorkers.incrementAndGet();
+					try {
+						DefaultRadiusServer.this.handleRequest(clientRequest);
+					} finally {
+						DefaultRadiusServer.this.activeWorkers.decrementAndGet();
+						permits.release();
+					}
+				}
+			}).start();
+		} catch (final RuntimeException ex) {
+			permits.release();
+			throw ex;
+		} catch (final Error ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Dispatch batch of requests to handling. Batch is handled in current thread also in thread-per-request mode, because
+	 * batch handler does not wait for completion of requests.
+	 * 
+	 * @param batchHandler handler
+	 * @param clientRequests requests to handle
+	 */
+	protected void dispatchBatch(final BatchRequestHandler batchHandler, final List<ClientRequest> clientRequests) {
+		this.activeWorkers.incrementAndGet();
+		try {
+			this.handleBatch(batchHandler, clientRequests);
+		} finally {
+			this.activeWorkers.decrementAndGet();
 		}
 	}
 
@@ -206,7 +1435,16 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 		@Override
         public void requestReceived(final ClientRequest request) {
 			if (request == null) throw new IllegalArgumentException("null request");
-			DefaultRadiusServer.this.getRequestsQueue().putRequest(request);
+			DefaultRadiusServer.this.enqueueRequest(request);
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ServerChannelListener#requestsReceived(java.util.List)
+		 */
+		@Override
+		public void requestsReceived(final List<ClientRequest> requests) {
+			if (requests == null) throw new IllegalArgumentException("null requests");
+			DefaultRadiusServer.this.enqueueRequests(requests);
 		}
 	}
 
@@ -214,59 +1452,137 @@ public class DefaultRadiusServer implements MBeanRegistration, DefaultRadiusServ
 	 * Requests handler thread. handle requests from queue and send replies
 	 ******************************************************************************************************************/
 	protected final class HandlerThread extends Thread {
-		/** Constructor. */
-		protected HandlerThread() {
-			super("Radius Request Handler");
+		/** Lanes of server */
+		private final RequestLane[] serverLanes;
+
+		/** Own lane */
+		protected final RequestLane lane;
+
+		/** Waiting for request */
+		private boolean idle = false;
+
+		/** Thread must finish */
+		private boolean retired = false;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param active lanes of server, by priority
+		 * @param own lane of thread
+		 * @param index number of thread in lane
+		 */
+		protected HandlerThread(final RequestLane[] active, final RequestLane own, final int index) {
+			super("Radius Request Handler " + own.getRequestClass() + " #" + index);
+			this.serverLanes = active;
+			this.lane = own;
 			this.setDaemon(false);
 			this.setPriority(Thread.MAX_PRIORITY - 1);
 		}
 
+		/**
+		 * Stop thread after current request. Idle thread is interrupted.
+		 */
+		protected synchronized void retire() {
+			this.retired = true;
+			if (this.idle) this.interrupt();
+		}
+
+		/**
+		 * Check if thread is retired
+		 * 
+		 * @return true if thread must finish
+		 */
+		protected synchronized boolean isRetired() {
+			return this.retired;
+		}
+
+		/**
+		 * Check if thread is idle
+		 * 
+		 * @return true if thread is alive and waiting for request
+		 */
+		protected synchronized boolean isIdle() {
+			return this.idle && this.isAlive();
+		}
+
+		/**
+		 * Collect batch of requests of own lane. Requests are waited no more than batch window of lane.
+		 * 
+		 * @param first the first request of batch
+		 * @param batchSize maximum number of requests
+		 * @return batch of requests
+		 */
+		private List<ClientRequest> collectBatch(final ClientRequest first, final int batchSize) {
+			final List<ClientRequest> batch = new ArrayList<ClientRequest>(batchSize);
+			batch.add(first);
+			final RequestsQueue queue = this.lane.getRequestsQueue();
+			final long deadline = System.nanoTime() + this.lane.getBatchWindow() * 1000L;
+			while (batch.size() < batchSize) {
+				final ClientRequest clientRequest = queue.pollRequest();
+				if (clientRequest != null) {
+					DefaultRadiusServer.this.queuedRequests.decrementAndGet();
+					batch.add(clientRequest);
+					continue;
+				}
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || this.isInterrupted()) break;
+				LockSupport.parkNanos(Math.min(remaining, DefaultRadiusServer.BATCH_POLL_INTERVAL));
+			}
+			return batch;
+		}
+
 		/** Handle client requests. */
 		@Override
 		public final void run() {
-			DefaultRadiusServer.log.debug("starting radius requests handler thread...");
+			DefaultRadiusServer.log.debug("starting radius requests handler thread " + this.getName());
+			final int priority = this.lane.getRequestClass().ordinal();
 
 			// do work
-			while (!this.isInterrupted()) {
-				ResponsePacket responsePacket = null;
+			while (!this.isInterrupted())
 				try {
-					// get next request
-					final ClientRequest clientRequest = DefaultRadiusServer.this.getRequestsQueue().takeRequest();
-					final RequestPacket requestPacket = clientRequest.getRequestPacket();
-
-					// handle request
-					final RequestHandler requestsHandler = DefaultRadiusServer.this.getRequestHandler();
-					if (requestsHandler == null) DefaultRadiusServer.log.warn("request handler not configured");
-					else {
-						responsePacket = requestsHandler.handleRequest(requestPacket);
-						if (responsePacket == null) DefaultRadiusServer.log.warn("no handler response for request: "
-						        + requestPacket);
+					ClientRequest clientRequest = null;
+					boolean own = false;
+					synchronized (this) {
+						if (this.retired) break;
+						this.idle = true;
 					}
+					try {
+						// get next request, requests of higher priority lanes first
+						for (int i = 0; i < priority && clientRequest == null; i++)
+							clientRequest = this.serverLanes[i].getRequestsQueue().pollRequest();
+						if (clientRequest == null) {
+							clientRequest = this.lane.getRequestsQueue().takeRequest();
+							own = true;
+						}
+					} finally {
+						synchronized (this) {
+							this.idle = false;
+							// clear interrupt of retire, request must be handled
+							if (this.retired) Thread.interrupted();
+						}
+					}
+					DefaultRadiusServer.this.queuedRequests.decrementAndGet();
 
-					// send response
-					if (responsePacket != null) {
-						// set id and authenticator
-						responsePacket.setId(requestPacket.getId());
-						responsePacket.setAuthenticator(requestPacket.getAuthenticator());
-
-						// send response
-						clientRequest.sendResponse(responsePacket);
+					// handle batch of own lane
+					final int batchSize = this.lane.getBatchSize();
+					if (own && batchSize > 1) {
+						final BatchRequestHandler batchHandler = DefaultRadiusServer.this.getBatchRequestHandler();
+						if (batchHandler != null) {
+							DefaultRadiusServer.this.dispatchBatch(batchHandler, this.collectBatch(clientRequest,
+							        batchSize));
+							continue;
+						}
 					}
 
-				} catch (final ChannelException ex) {
-					DefaultRadiusServer.log.error("error sending response " + responsePacket, ex);
-				} catch (final IncorrectRequestException ex) {
-					DefaultRadiusServer.log.debug("incorrect request: " + ex.getLocalizedMessage());
-				} catch (final RequestHandlerException ex) {
-					DefaultRadiusServer.log.error("handler error", ex);
+					// handle request
+					DefaultRadiusServer.this.dispatchRequest(clientRequest);
 				} catch (final InterruptedException e) {
 					DefaultRadiusServer.log.debug("radius requests handler thread interrupted");
 					break;
 				} catch (final Throwable th) {
 					DefaultRadiusServer.log.fatal("unexpected error", th);
 				}
-			}
-			DefaultRadiusServer.log.debug("radius request handler thread finished");
+			DefaultRadiusServer.log.debug("radius request handler thread " + this.getName() + " finished");
 		}
 	}
 
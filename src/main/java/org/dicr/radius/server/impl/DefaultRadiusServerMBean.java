@@ -50,6 +50,190 @@ public interface DefaultRadiusServerMBean extends RadiusServer {
 	@Override
     public RequestHandler getRequestHandler();
 
+	/**
+     * Return state of processing lanes
+     * 
+     * @return report of lanes, one line for each request class
+     */
+	public String[] getLanesReport();
+
+	/**
+     * Return number of expired requests
+     * 
+     * @return number of requests, dropped without handling, because client does not wait for response anymore
+     */
+	public long getExpiredRequests();
+
+	/**
+     * Set number of access handler threads
+     * 
+     * @param count number of threads
+     */
+	public void setAccessThreads(int count);
+
+	/**
+     * Return number of access handler threads
+     * 
+     * @return number of threads
+     */
+	public int getAccessThreads();
+
+	/**
+     * Set number of status handler threads
+     * 
+     * @param count number of threads
+     */
+	public void setStatusThreads(int count);
+
+	/**
+     * Return number of status handler threads
+     * 
+     * @return number of threads
+     */
+	public int getStatusThreads();
+
+	/**
+     * Set number of accounting handler threads
+     * 
+     * @param count number of threads
+     */
+	public void setAccountingThreads(int count);
+
+	/**
+     * Return number of accounting handler threads
+     * 
+     * @return number of threads
+     */
+	public int getAccountingThreads();
+
+	/**
+     * Return number of active workers
+     * 
+     * @return number of handler threads, handling requests
+     */
+	public int getActiveWorkers();
+
+	/**
+     * Return number of idle workers
+     * 
+     * @return number of handler threads, waiting for requests
+     */
+	public int getIdleWorkers();
+
+	/**
+     * Return number of pending asynchronous requests
+     * 
+     * @return number of requests, waiting for asynchronous handler
+     */
+	public int getPendingAsyncRequests();
+
+	/**
+     * Check thread-per-request mode
+     * 
+     * @return true if each request is handled in own thread
+     */
+	public boolean isThreadPerRequest();
+
+	/**
+     * Return maximum concurrent requests
+     * 
+     * @return maximum number of requests, handled concurrently in thread-per-request mode
+     */
+	public int getMaxConcurrentRequests();
+
+	/**
+     * Return concurrency limit
+     * 
+     * @return current adaptive limit of requests in server, or 0 if load shedding is disabled
+     */
+	public int getConcurrencyLimit();
+
+	/**
+     * Return number of requests in server
+     * 
+     * @return number of requests, pending in queues and handled
+     */
+	public int getInFlightRequests();
+
+	/**
+     * Return number of queued requests
+     * 
+     * @return number of requests, pending in queues
+     */
+	public int getQueueDepth();
+
+	/**
+     * Return number of handled batches
+     * 
+     * @return number of batches, passed to batch request handler
+     */
+	public long getBatchesCount();
+
+	/**
+     * Return number of requests in batches
+     * 
+     * @return number of requests, handled in batches
+     */
+	public long getBatchedRequests();
+
+	/**
+     * Return rate of shed requests
+     * 
+     * @return number of requests per second, dropped or rejected by concurrency limit
+     */
+	public double getShedRate();
+
+	/**
+     * Return stall time of handlers
+     * 
+     * @return time in milliseconds, while requests are pending without progress of handlers, or 0
+     */
+	public long getStallTime();
+
+	/**
+     * Return number of dropped requests on overload
+     * 
+     * @return number of requests, dropped by concurrency limit
+     */
+	public long getShedDrops();
+
+	/**
+     * Return number of rejected requests on overload
+     * 
+     * @return number of requests, rejected by concurrency limit
+     */
+	public long getShedRejects();
+
+	/**
+     * Check overload
+     * 
+     * @return true if server is overloaded and shed requests
+     */
+	public boolean isOverloaded();
+
+	/**
+     * Return latency report
+     * 
+     * @return percentiles of latency of each stage: receive to enqueue, wait in queue, handler by type of request and
+     *         send of response
+     */
+	public String[] getLatencyReport();
+
+	/**
+     * Return percentile of latency
+     * 
+     * @param stage <CODE>receive</CODE>, <CODE>queue</CODE>, <CODE>send</CODE> or type of request (<CODE>PAP</CODE>,
+     *            <CODE>ACCOUNTING</CODE>, ...) for handler stage
+     * @param percentile percentile between 0 and 100, for example 99.9
+     * @return latency of stage in microseconds
+     */
+	public long getLatencyPercentile(String stage, double percentile);
+
+	/**
+     * Reset latency statistics
+     */
+	public void resetLatencyStatistics();
+
 	/**
      * @see org.dicr.radius.server.RadiusServer#isRunning()
      */
@@ -0,0 +1,290 @@
+/**
+ * FairRequestsQueue.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import java.net.*;
+import java.util.*;
+
+import org.apache.log4j.*;
+import org.dicr.radius.channel.*;
+import org.dicr.radius.server.*;
+
+/**
+ * Fair requests queue.
+ * <P>
+ * Requests are queued separately for each client host (NAS address) and taken by deficit round robin: in each round
+ * every backlogged client get <CODE>weight</CODE> requests ({@link ClientRequest#getWeight()}, configured by
+ * {@link org.dicr.radius.channel.impl.ClientSecret#setWeight(int)}). So burst of one client add to latency of other
+ * clients no more than its weight per round, instead of whole burst.
+ * </P>
+ * <P>
+ * Number of pending requests of each client is limited by <CODE>maxClientRequests</CODE> and number of all pending
+ * requests is limited by <CODE>capacity</CODE>. Requests over limits are dropped. Pending requests with expired
+ * deadline are dropped, when dequeued.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class FairRequestsQueue implements RequestsQueue {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(FairRequestsQueue.class);
+
+	/** Backlogged clients by address */
+	private final Map<InetAddress, Flow> flows = new HashMap<InetAddress, Flow>();
+
+	/** Round of backlogged clients */
+	private final ArrayDeque<Flow> round = new ArrayDeque<Flow>();
+
+	/** Number of pending requests */
+	private int pendingCount = 0;
+
+	/** Limit of pending requests */
+	private int capacity = 65536;
+
+	/** Limit of pending requests of each client */
+	private int maxClientRequests = 1024;
+
+	/** Number of requests, dropped by overflow */
+	private long overflowCount = 0;
+
+	/** Number of expired requests */
+	private long expiredCount = 0;
+
+	/**
+	 * Constructor
+	 */
+	public FairRequestsQueue() {
+		super();
+	}
+
+	/**
+	 * Set capacity
+	 * 
+	 * @param count maximum number of pending requests. Default 65536.
+	 */
+	public void setCapacity(final int count) {
+		if (count < 1) throw new IllegalArgumentException("capacity: " + count);
+		synchronized (this) {
+			this.capacity = count;
+		}
+	}
+
+	/**
+	 * Return capacity
+	 * 
+	 * @return maximum number of pending requests
+	 */
+	public synchronized int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Set maximum pending requests of client
+	 * 
+	 * @param count maximum number of pending requests of each client host. Default 1024.
+	 */
+	public void setMaxClientRequests(final int count) {
+		if (count < 1) throw new IllegalArgumentException("maxClientRequests: " + count);
+		synchronized (this) {
+			this.maxClientRequests = count;
+		}
+	}
+
+	/**
+	 * Return maximum pending requests of client
+	 * 
+	 * @return maximum number of pending requests of each client host
+	 */
+	public synchronized int getMaxClientRequests() {
+		return this.maxClientRequests;
+	}
+
+	/**
+	 * Return number of backlogged clients
+	 * 
+	 * @return number of client hosts with pending requests
+	 */
+	public synchronized int getClientsCount() {
+		return this.flows.size();
+	}
+
+	/**
+	 * Return overflow count
+	 * 
+	 * @return number of requests, dropped because of limits
+	 */
+	public synchronized long getOverflowCount() {
+		return this.overflowCount;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#putRequest(org.dicr.radius.channel.ClientRequest)
+	 */
+	@Override
+	public synchronized void putRequest(final ClientRequest request) {
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (this.enqueue(request)) this.notify();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#putRequests(java.util.Collection)
+	 */
+	@Override
+	public synchronized void putRequests(final Collection<ClientRequest> requests) {
+		if (requests == null) throw new IllegalArgumentException("null requests");
+		int count = 0;
+		for (final ClientRequest request : requests) {
+			if (request == null) throw new IllegalArgumentException("null request");
+			if (this.enqueue(request)) count++;
+		}
+		if (count == 1) this.notify();
+		else if (count > 1) this.notifyAll();
+	}
+
+	/**
+	 * Enqueue request. Must be called in synchronized block.
+	 * 
+	 * @param request request to enqueue
+	 * @return true if request is enqueued
+	 */
+	private boolean enqueue(final ClientRequest request) {
+		final InetAddress address = FairRequestsQueue.getHost(request);
+		Flow flow = this.flows.get(address);
+		if (this.pendingCount >= this.capacity || (flow != null && flow.requests.size() >= this.maxClientRequests)) {
+			this.overflowCount++;
+			request.getServerChannel().requestDropped(request);
+			FairRequestsQueue.log.warn("requests overflow, dropping request id=" + request.getRequestPacket().getId()
+			        + " from client " + request.getClientAddress());
+			return false;
+		}
+		if (flow == null) {
+			flow = new Flow(address);
+			this.flows.put(address, flow);
+			this.round.addLast(flow);
+		}
+		// weight of the last request is used, so reconfiguration is applied in next round
+		flow.quantum = request.getWeight();
+		flow.requests.addLast(request);
+		this.pendingCount++;
+		return true;
+	}
+
+	/**
+	 * Return host of client
+	 * 
+	 * @param request request
+	 * @return address of client host
+	 */
+	private static InetAddress getHost(final ClientRequest request) {
+		final SocketAddress address = request.getClientAddress();
+		if (address instanceof InetSocketAddress) return ((InetSocketAddress) address).getAddress();
+		throw new IllegalArgumentException("unsupported client address: " + address);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#takeRequest()
+	 */
+	@Override
+	public synchronized ClientRequest takeRequest() throws InterruptedException {
+		ClientRequest request = null;
+		while ((request = this.dequeue()) == null)
+			this.wait();
+		return request;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#pollRequest()
+	 */
+	@Override
+	public synchronized ClientRequest pollRequest() {
+		return this.dequeue();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getPendingCount()
+	 */
+	@Override
+	public synchronized int getPendingCount() {
+		return this.pendingCount;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getExpiredCount()
+	 */
+	@Override
+	public synchronized long getExpiredCount() {
+		return this.expiredCount;
+	}
+
+	/**
+	 * Dequeue request by deficit round robin. Must be called in synchronized block.
+	 * <P>
+	 * Client at head of round get quantum, when its turn begin, and is moved to the end of round, when deficit is spent.
+	 * Client without pending requests leave the round and lose its deficit.
+	 * </P>
+	 * 
+	 * @return pending request or null
+	 */
+	private ClientRequest dequeue() {
+		final long currentTime = System.currentTimeMillis();
+		while (!this.round.isEmpty()) {
+			final Flow flow = this.round.getFirst();
+			if (flow.deficit < 1) {
+				if (flow.turn) {
+					// turn is over
+					flow.turn = false;
+					this.round.addLast(this.round.removeFirst());
+					continue;
+				}
+				flow.deficit += flow.quantum;
+				flow.turn = true;
+			}
+			final ClientRequest request = flow.requests.removeFirst();
+			flow.deficit--;
+			this.pendingCount--;
+			if (flow.requests.isEmpty()) {
+				this.round.removeFirst();
+				this.flows.remove(flow.address);
+			}
+			final long deadline = request.getDeadline();
+			if (deadline == 0 || currentTime <= deadline) return request;
+			// client does not wait for response
+			this.expiredCount++;
+			request.getServerChannel().requestDropped(request);
+			if (FairRequestsQueue.log.isDebugEnabled()) FairRequestsQueue.log.debug("dropping expired request id="
+			        + request.getRequestPacket().getId() + " from client " + request.getClientAddress());
+		}
+		return null;
+	}
+
+	/*******************************************************************************************************************
+	 * Pending requests of client host
+	 ******************************************************************************************************************/
+	private static final class Flow {
+		/** Client host */
+		protected final InetAddress address;
+
+		/** Pending requests */
+		protected final ArrayDeque<ClientRequest> requests = new ArrayDeque<ClientRequest>();
+
+		/** Requests per round */
+		protected int quantum = 1;
+
+		/** Requests, which may be taken in current turn */
+		protected int deficit = 0;
+
+		/** Flag of current turn */
+		protected boolean turn = false;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param clientAddress client host
+		 */
+		protected Flow(final InetAddress clientAddress) {
+			this.address = clientAddress;
+		}
+	}
+}
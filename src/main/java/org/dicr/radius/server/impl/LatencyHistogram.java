@@ -0,0 +1,152 @@
+/**
+ * LatencyHistogram.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Histogram of latency.
+ * <P>
+ * Values are counted in log-linear buckets: each power of 2 is divided to 32 linear sub-buckets, so percentiles are
+ * returned with relative error less then 3% in whole range from nanoseconds to hour, and histogram has fixed size. Values
+ * are recorded by atomic increment of bucket counter, without locks, so histogram may be updated by many threads.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class LatencyHistogram {
+	/** Bits of sub-bucket */
+	private static final int SUB_BITS = 5;
+
+	/** Number of sub-buckets in power of 2 */
+	private static final int SUB_COUNT = 1 << LatencyHistogram.SUB_BITS;
+
+	/** Maximum tracked value bit (about 73 minutes in nanoseconds) */
+	private static final int MAX_BIT = 42;
+
+	/** Counters of buckets */
+	private final AtomicLongArray counts = new AtomicLongArray(
+	        (LatencyHistogram.MAX_BIT - LatencyHistogram.SUB_BITS + 2) * LatencyHistogram.SUB_COUNT);
+
+	/** Number of values */
+	private final AtomicLong totalCount = new AtomicLong(0);
+
+	/** Maximum value */
+	private final AtomicLong maxValue = new AtomicLong(0);
+
+	/**
+	 * Constructor
+	 */
+	public LatencyHistogram() {
+		super();
+	}
+
+	/**
+	 * Return index of bucket
+	 * 
+	 * @param value value
+	 * @return index of bucket
+	 */
+	private static int indexOf(final long value) {
+		final int bit = 63 - Long.numberOfLeadingZeros(value);
+		if (bit > LatencyHistogram.MAX_BIT) return (LatencyHistogram.MAX_BIT - LatencyHistogram.SUB_BITS + 2)
+		        * LatencyHistogram.SUB_COUNT - 1;
+		final int shift = Math.max(0, bit - LatencyHistogram.SUB_BITS);
+		return (shift << LatencyHistogram.SUB_BITS) + (int) (value >>> shift);
+	}
+
+	/**
+	 * Return highest value of bucket
+	 * 
+	 * @param index index of bucket
+	 * @return highest value, counted in bucket
+	 */
+	private static long valueOf(final int index) {
+		final int shift = Math.max(0, (index >> LatencyHistogram.SUB_BITS) - 1);
+		final long top = index - (shift << LatencyHistogram.SUB_BITS);
+		return ((top + 1) << shift) - 1;
+	}
+
+	/**
+	 * Record value
+	 * 
+	 * @param value latency in nanoseconds
+	 */
+	public void record(final long value) {
+		final long latency = Math.max(0, value);
+		this.counts.incrementAndGet(LatencyHistogram.indexOf(latency));
+		this.totalCount.incrementAndGet();
+		long max = this.maxValue.get();
+		while (latency > max && !this.maxValue.compareAndSet(max, latency))
+			max = this.maxValue.get();
+	}
+
+	/**
+	 * Return number of values
+	 * 
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return this.totalCount.get();
+	}
+
+	/**
+	 * Return maximum value
+	 * 
+	 * @return maximum recorded latency in nanoseconds
+	 */
+	public long getMax() {
+		return this.maxValue.get();
+	}
+
+	/**
+	 * Return percentile.
+	 * <P>
+	 * Histogram is not locked while reading, so values, recorded concurrently, may be counted partially.
+	 * </P>
+	 * 
+	 * @param percentile percentile between 0 and 100, for example 99.9
+	 * @return latency in nanoseconds, which is not exceeded by <CODE>percentile</CODE> of values, or 0 if histogram
+	 *         is empty
+	 */
+	public long getPercentile(final double percentile) {
+		if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile: " + percentile);
+		final int length = this.counts.length();
+		final long[] snapshot = new long[length];
+		long total = 0;
+		for (int i = 0; i < length; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) return 0;
+		final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long count = 0;
+		for (int i = 0; i < length; i++) {
+			count += snapshot[i];
+			if (count >= rank) return Math.min(LatencyHistogram.valueOf(i), this.maxValue.get());
+		}
+		return this.maxValue.get();
+	}
+
+	/**
+	 * Clear histogram
+	 */
+	public void reset() {
+		for (int i = 0; i < this.counts.length(); i++)
+			this.counts.set(i, 0);
+		this.totalCount.set(0);
+		this.maxValue.set(0);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "count=" + this.getCount() + ", p50=" + this.getPercentile(50) / 1000 + "us, p99="
+		        + this.getPercentile(99) / 1000 + "us, p999=" + this.getPercentile(99.9) / 1000 + "us, max="
+		        + this.getMax() / 1000 + "us";
+	}
+}
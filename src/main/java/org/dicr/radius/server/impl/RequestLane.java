@@ -0,0 +1,188 @@
+/**
+ * RequestLane.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import org.dicr.radius.server.*;
+
+/**
+ * Processing lane of server.
+ * <P>
+ * Lane has own queue and handler threads for requests of one {@link RequestClass}, so storm of requests of one class
+ * does not delay requests of other classes. Capacity of lane is limited by queue.
+ * </P>
+ * <P>
+ * If <CODE>batchSize</CODE> is greater than 1 and server has {@link org.dicr.radius.handler.BatchRequestHandler},
+ * handler threads of lane collect up to <CODE>batchSize</CODE> requests of lane, waiting for them no more than
+ * <CODE>batchWindow</CODE>, and pass them to handler at once.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class RequestLane {
+	/** Class of requests */
+	private RequestClass requestClass = RequestClass.ACCESS;
+
+	/** Queue of requests */
+	private RequestsQueue requestsQueue = null;
+
+	/** Number of handler threads */
+	private int threadsCount = 1;
+
+	/** Maximum number of requests in batch */
+	private int batchSize = 1;
+
+	/** Time to collect batch in microseconds */
+	private long batchWindow = 0;
+
+	/**
+	 * Constructor
+	 */
+	public RequestLane() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param aclass class of requests
+	 * @param queue queue of requests
+	 * @param threads number of handler threads
+	 */
+	public RequestLane(final RequestClass aclass, final RequestsQueue queue, final int threads) {
+		super();
+		this.setRequestClass(aclass);
+		this.setRequestsQueue(queue);
+		this.setThreadsCount(threads);
+	}
+
+	/**
+	 * Set class of requests
+	 *
+	 * @param aclass class of requests, handled by lane
+	 */
+	public void setRequestClass(final RequestClass aclass) {
+		if (aclass == null) throw new IllegalArgumentException("null request class");
+		synchronized (this) {
+			this.requestClass = aclass;
+		}
+	}
+
+	/**
+	 * Return class of requests
+	 *
+	 * @return class of requests, handled by lane
+	 */
+	public RequestClass getRequestClass() {
+		synchronized (this) {
+			return this.requestClass;
+		}
+	}
+
+	/**
+	 * Set requests queue
+	 *
+	 * @param queue queue of requests
+	 */
+	public void setRequestsQueue(final RequestsQueue queue) {
+		if (queue == null) throw new IllegalArgumentException("null queue");
+		synchronized (this) {
+			this.requestsQueue = queue;
+		}
+	}
+
+	/**
+	 * Return requests queue
+	 * <P>
+	 * If queue is not configured, {@link TrackingRequestsQueue} is created.
+	 * </P>
+	 *
+	 * @return queue of requests
+	 */
+	public RequestsQueue getRequestsQueue() {
+		synchronized (this) {
+			if (this.requestsQueue == null) this.requestsQueue = new TrackingRequestsQueue();
+			return this.requestsQueue;
+		}
+	}
+
+	/**
+	 * Set number of handler threads. Default is 1.
+	 *
+	 * @param threads number of threads
+	 */
+	public void setThreadsCount(final int threads) {
+		if (threads < 1) throw new IllegalArgumentException("threadsCount: " + threads);
+		synchronized (this) {
+			this.threadsCount = threads;
+		}
+	}
+
+	/**
+	 * Return number of handler threads
+	 *
+	 * @return number of threads
+	 */
+	public int getThreadsCount() {
+		synchronized (this) {
+			return this.threadsCount;
+		}
+	}
+
+	/**
+	 * Set batch size
+	 *
+	 * @param size maximum number of requests, passed to batch handler at once, or 1 to handle requests one by one.
+	 *            Default is 1.
+	 */
+	public void setBatchSize(final int size) {
+		if (size < 1) throw new IllegalArgumentException("batchSize: " + size);
+		synchronized (this) {
+			this.batchSize = size;
+		}
+	}
+
+	/**
+	 * Return batch size
+	 *
+	 * @return maximum number of requests in batch
+	 */
+	public int getBatchSize() {
+		synchronized (this) {
+			return this.batchSize;
+		}
+	}
+
+	/**
+	 * Set batch window
+	 *
+	 * @param micros time in microseconds to wait for requests, when batch is not full, or 0 to take only pending
+	 *            requests. Default is 0.
+	 */
+	public void setBatchWindow(final long micros) {
+		if (micros < 0) throw new IllegalArgumentException("batchWindow: " + micros);
+		synchronized (this) {
+			this.batchWindow = micros;
+		}
+	}
+
+	/**
+	 * Return batch window
+	 *
+	 * @return time in microseconds to collect batch
+	 */
+	public long getBatchWindow() {
+		synchronized (this) {
+			return this.batchWindow;
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.getRequestClass() + " lane";
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * RequestThreadFactory.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import java.lang.reflect.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.apache.log4j.*;
+
+/**
+ * Factory of threads for requests handling.
+ * <P>
+ * If Java runtime support virtual threads, factory create virtual threads, so thousands of requests can wait for I/O
+ * of blocking modules without thousands of system threads. On older runtime daemon platform threads are created.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class RequestThreadFactory implements ThreadFactory {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(RequestThreadFactory.class);
+
+	/** Name prefix of threads */
+	private static final String NAME = "Radius Request #";
+
+	/** Factory of virtual threads or null if not supported */
+	private final ThreadFactory virtualFactory;
+
+	/** Number of created platform threads */
+	private final AtomicLong counter = new AtomicLong(0);
+
+	/**
+	 * Constructor
+	 */
+	public RequestThreadFactory() {
+		super();
+		this.virtualFactory = RequestThreadFactory.createVirtualFactory();
+		RequestThreadFactory.log.debug("requests will be handled by " + (this.isVirtual() ? "virtual" : "platform")
+		        + " threads");
+	}
+
+	/**
+	 * Create factory of virtual threads.
+	 * <P>
+	 * Factory is created by reflection, because it is available on newer runtime only.
+	 * </P>
+	 *
+	 * @return factory of virtual threads or null if not supported
+	 */
+	private static ThreadFactory createVirtualFactory() {
+		try {
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, RequestThreadFactory.NAME,
+			        Long.valueOf(0));
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (final ClassNotFoundException ex) {
+			return null;
+		} catch (final NoSuchMethodException ex) {
+			return null;
+		} catch (final IllegalAccessException ex) {
+			return null;
+		} catch (final InvocationTargetException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check if virtual threads are created
+	 *
+	 * @return true if factory create virtual threads
+	 */
+	public boolean isVirtual() {
+		return this.virtualFactory != null;
+	}
+
+	/**
+	 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+	 */
+	@Override
+	public Thread newThread(final Runnable runnable) {
+		if (this.virtualFactory != null) return this.virtualFactory.newThread(runnable);
+		final Thread thread = new Thread(runnable, RequestThreadFactory.NAME + this.counter.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
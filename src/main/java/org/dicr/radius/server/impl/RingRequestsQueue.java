@@ -0,0 +1,368 @@
+/**
+ * RingRequestsQueue.java 18.10.2026
+ */
+package org.dicr.radius.server.impl;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import org.apache.log4j.*;
+import org.dicr.radius.channel.*;
+import org.dicr.radius.server.*;
+
+/**
+ * Lock-free requests queue.
+ * <P>
+ * Queue is bounded ring buffer of pre-allocated slots for many producers (channel reactors) and many consumers
+ * (handler threads). Each slot has sequence number, so producers and consumers claim slots by compare-and-set of head
+ * and tail sequences and do not take any lock. Head and tail sequences are padded to separate cache lines, so producers
+ * and consumers do not slow down each other by false sharing.
+ * </P>
+ * <P>
+ * When queue is full, new requests are dropped and counted. Unlike {@link TrackingRequestsQueue}, queue does not track
+ * clients. Pending requests with expired deadline are dropped, when dequeued.
+ * </P>
+ * <P>
+ * Empty queue is waited by {@link WaitStrategy}: busy-spin and yield give the lowest latency, but consume CPU by idle
+ * handler threads, park (default) sleep idle threads until requests are received.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class RingRequestsQueue implements RequestsQueue {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(RingRequestsQueue.class);
+
+	/** Default capacity */
+	public static final int DEFAULT_CAPACITY = 65536;
+
+	/** Number of longs in cache line */
+	private static final int PAD = 8;
+
+	/** Index of head sequence in cursors */
+	private static final int HEAD = RingRequestsQueue.PAD;
+
+	/** Index of tail sequence in cursors */
+	private static final int TAIL = RingRequestsQueue.PAD * 2;
+
+	/** Number of tries before wait of park strategy */
+	private static final int SPIN_TRIES = 100;
+
+	/** Head (next to take) and tail (next to put) sequences, each in own cache line */
+	private final AtomicLongArray cursors = new AtomicLongArray(RingRequestsQueue.PAD * 3);
+
+	/** Slots */
+	private final AtomicReferenceArray<ClientRequest> slots;
+
+	/** Sequences of slots */
+	private final AtomicLongArray sequences;
+
+	/** Mask of slot index */
+	private final int mask;
+
+	/** Wait strategy */
+	private volatile WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+	/** Lock of parked consumers */
+	private final Lock lock = new ReentrantLock();
+
+	/** Condition of parked consumers */
+	private final Condition notEmpty = this.lock.newCondition();
+
+	/** Number of parked consumers */
+	private final AtomicInteger waiters = new AtomicInteger(0);
+
+	/** Number of requests, dropped by overflow */
+	private final AtomicLong overflowCount = new AtomicLong(0);
+
+	/** Number of expired requests */
+	private final AtomicLong expiredCount = new AtomicLong(0);
+
+	/**
+	 * Constructor
+	 */
+	public RingRequestsQueue() {
+		this(RingRequestsQueue.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity maximum number of pending requests, rounded up to power of 2
+	 */
+	public RingRequestsQueue(final int capacity) {
+		super();
+		if (capacity < 2 || capacity > 1 << 30) throw new IllegalArgumentException("capacity: " + capacity);
+		final int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.slots = new AtomicReferenceArray<ClientRequest>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			this.sequences.set(i, i);
+		this.mask = size - 1;
+		RingRequestsQueue.log.debug("created requests ring of capacity: " + size);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity maximum number of pending requests, rounded up to power of 2
+	 * @param strategy strategy of waiting for requests
+	 */
+	public RingRequestsQueue(final int capacity, final WaitStrategy strategy) {
+		this(capacity);
+		this.setWaitStrategy(strategy);
+	}
+
+	/**
+	 * Return capacity
+	 * 
+	 * @return maximum number of pending requests
+	 */
+	public int getCapacity() {
+		return this.mask + 1;
+	}
+
+	/**
+	 * Set wait strategy
+	 * 
+	 * @param strategy strategy of waiting for requests. Default is {@link WaitStrategy#PARK}.
+	 */
+	public void setWaitStrategy(final WaitStrategy strategy) {
+		if (strategy == null) throw new IllegalArgumentException("null strategy");
+		this.waitStrategy = strategy;
+		RingRequestsQueue.log.debug("configured wait strategy: " + strategy);
+		// parked consumers must continue with new strategy
+		this.signalWaiters(true);
+	}
+
+	/**
+	 * Return wait strategy
+	 * 
+	 * @return strategy of waiting for requests
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	/**
+	 * Return overflow count
+	 * 
+	 * @return number of requests, dropped because queue was full
+	 */
+	public long getOverflowCount() {
+		return this.overflowCount.get();
+	}
+
+	/**
+	 * Put request to ring.
+	 * <P>
+	 * Slot of previous lap can be claimed by consumer, which is not yet released it. Ring is full only if all slots are
+	 * claimed by producers and not taken by consumers, otherwise producer waits for release of slot.
+	 * </P>
+	 * 
+	 * @param request request
+	 * @return true if request is put, false if ring is full
+	 */
+	private boolean offer(final ClientRequest request) {
+		long pos = this.cursors.get(RingRequestsQueue.TAIL);
+		while (true) {
+			final int index = (int) pos & this.mask;
+			final long diff = this.sequences.get(index) - pos;
+			if (diff == 0) {
+				if (this.cursors.compareAndSet(RingRequestsQueue.TAIL, pos, pos + 1)) {
+					this.slots.set(index, request);
+					this.sequences.set(index, pos + 1);
+					return true;
+				}
+			} else if (diff < 0) {
+				if (pos - this.cursors.get(RingRequestsQueue.HEAD) > this.mask) return false;
+				// slot is taken, but not released by consumer
+				Thread.yield();
+			}
+			pos = this.cursors.get(RingRequestsQueue.TAIL);
+		}
+	}
+
+	/**
+	 * Take request from ring
+	 * 
+	 * @return request or null if ring is empty
+	 */
+	private ClientRequest poll() {
+		long pos = this.cursors.get(RingRequestsQueue.HEAD);
+		while (true) {
+			final int index = (int) pos & this.mask;
+			final long diff = this.sequences.get(index) - (pos + 1);
+			if (diff == 0) {
+				if (this.cursors.compareAndSet(RingRequestsQueue.HEAD, pos, pos + 1)) {
+					final ClientRequest request = this.slots.get(index);
+					this.slots.set(index, null);
+					this.sequences.set(index, pos + this.mask + 1);
+					return request;
+				}
+			} else if (diff < 0) return null;
+			pos = this.cursors.get(RingRequestsQueue.HEAD);
+		}
+	}
+
+	/**
+	 * Check if ring is empty
+	 * 
+	 * @return true if ring has no published requests
+	 */
+	private boolean isEmpty() {
+		final long pos = this.cursors.get(RingRequestsQueue.HEAD);
+		return this.sequences.get((int) pos & this.mask) - (pos + 1) < 0;
+	}
+
+	/**
+	 * Wake up parked consumers
+	 * 
+	 * @param all wake up all consumers, or only one
+	 */
+	private void signalWaiters(final boolean all) {
+		if (this.waiters.get() == 0) return;
+		this.lock.lock();
+		try {
+			if (all) this.notEmpty.signalAll();
+			else this.notEmpty.signal();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#putRequest(org.dicr.radius.channel.ClientRequest)
+	 */
+	@Override
+	public void putRequest(final ClientRequest request) {
+		if (request == null) throw new IllegalArgumentException("null request");
+		if (this.offer(request)) this.signalWaiters(false);
+		else this.overflow(request);
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#putRequests(java.util.Collection)
+	 */
+	@Override
+	public void putRequests(final Collection<ClientRequest> requests) {
+		if (requests == null) throw new IllegalArgumentException("null requests");
+		int count = 0;
+		for (final ClientRequest request : requests) {
+			if (request == null) throw new IllegalArgumentException("null request");
+			if (this.offer(request)) count++;
+			else this.overflow(request);
+		}
+		if (count > 0) this.signalWaiters(count > 1);
+	}
+
+	/**
+	 * Drop request because ring is full
+	 * 
+	 * @param request dropped request
+	 */
+	private void overflow(final ClientRequest request) {
+		this.overflowCount.incrementAndGet();
+		request.getServerChannel().requestDropped(request);
+		RingRequestsQueue.log.warn("requests overflow, dropping request id=" + request.getRequestPacket().getId()
+		        + " from client " + request.getClientAddress());
+	}
+
+	/**
+	 * Dequeue request, which is not expired
+	 * 
+	 * @return request or null if queue is empty
+	 */
+	private ClientRequest dequeue() {
+		ClientRequest request = null;
+		while ((request = this.poll()) != null) {
+			final long deadline = request.getDeadline();
+			if (deadline == 0 || System.currentTimeMillis() <= deadline) return request;
+			// client does not wait for response
+			this.expiredCount.incrementAndGet();
+			request.getServerChannel().requestDropped(request);
+			if (RingRequestsQueue.log.isDebugEnabled()) RingRequestsQueue.log.debug("dropping expired request id="
+			        + request.getRequestPacket().getId() + " from client " + request.getClientAddress());
+		}
+		return null;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#takeRequest()
+	 */
+	@Override
+	public ClientRequest takeRequest() throws InterruptedException {
+		int tries = 0;
+		while (true) {
+			final ClientRequest request = this.dequeue();
+			if (request != null) return request;
+			if (Thread.interrupted()) throw new InterruptedException();
+			switch (this.waitStrategy) {
+				case BUSY_SPIN:
+					break;
+				case YIELD:
+					Thread.yield();
+					break;
+				default:
+					if (tries < RingRequestsQueue.SPIN_TRIES) {
+						tries++;
+						Thread.yield();
+						break;
+					}
+					this.lock.lockInterruptibly();
+					try {
+						this.waiters.incrementAndGet();
+						try {
+							if (this.isEmpty() && this.waitStrategy == WaitStrategy.PARK) this.notEmpty.await();
+						} finally {
+							this.waiters.decrementAndGet();
+						}
+					} finally {
+						this.lock.unlock();
+					}
+			}
+		}
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#pollRequest()
+	 */
+	@Override
+	public ClientRequest pollRequest() {
+		return this.dequeue();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getPendingCount()
+	 */
+	@Override
+	public int getPendingCount() {
+		final long head = this.cursors.get(RingRequestsQueue.HEAD);
+		final long tail = this.cursors.get(RingRequestsQueue.TAIL);
+		return (int) Math.max(0, Math.min(tail - head, this.mask + 1));
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getExpiredCount()
+	 */
+	@Override
+	public long getExpiredCount() {
+		return this.expiredCount.get();
+	}
+
+	/*******************************************************************************************************************
+	 * Strategy of waiting for requests by handler threads
+	 ******************************************************************************************************************/
+	public static enum WaitStrategy {
+		/** Spin in loop. The lowest latency, but each idle thread consume whole CPU. */
+		BUSY_SPIN,
+
+		/** Yield processor to other threads. Low latency, idle threads consume CPU if processor is not busy. */
+		YIELD,
+
+		/** Spin shortly, then park thread until requests are received. */
+		PARK
+	}
+}
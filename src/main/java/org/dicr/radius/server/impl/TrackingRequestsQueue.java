@@ -13,13 +13,22 @@ import org.dicr.radius.server.*;
 /**
  * Requests Queue.
  * <P>
- * This queue hold only last request per active client. It track last request id from client and filter requests from
- * client, with incorrect id (accept requests with id > last id only).
+ * This queue track pending requests of active clients by packet id. Client can send many requests at once (up to
+ * <CODE>maxClientRequests</CODE>, 256 by default), each with own id. When client send new request with id of pending
+ * request, pending request is replaced.
  * </P>
  * <P>
  * Client is identificated by it socket address. Client is active upon <CODE>sessionTimeout</CODE>. Maximal number of
  * active clients is <CODE>maxClients</CODE>.
  * </P>
+ * <P>
+ * Pending requests with expired deadline are dropped, when dequeued.
+ * </P>
+ * <P>
+ * Sessions are found by hash of client address, pending requests are linked in ready list in order of arrival, and
+ * inactive sessions are expired by hashed timing wheel, so put and take of request does not depend on number of
+ * active clients.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 061109
@@ -27,14 +36,44 @@ import org.dicr.radius.server.*;
 public class TrackingRequestsQueue implements RequestsQueue {
 	private static final Logger log = Logger.getLogger(TrackingRequestsQueue.class);
 
-	/** Clients list */
-	private final List<ClientSession> list = new LinkedList<ClientSession>();
+	/** Duration of timing wheel tick in milliseconds */
+	private static final long TICK = 100;
+
+	/** Number of timing wheel slots, power of 2 */
+	private static final int WHEEL_SIZE = 512;
+
+	/** Number of packet ids */
+	private static final int IDS_COUNT = 256;
+
+	/** Active sessions by client address */
+	private final Map<SocketAddress, ClientSession> sessions = new HashMap<SocketAddress, ClientSession>();
+
+	/** First request in ready list */
+	private PendingRequest readyHead = null;
+
+	/** Last request in ready list */
+	private PendingRequest readyTail = null;
+
+	/** Number of requests in ready list */
+	private int readyCount = 0;
+
+	/** Slots of timing wheel */
+	private final ClientSession[] wheel = new ClientSession[TrackingRequestsQueue.WHEEL_SIZE];
+
+	/** Last processed tick of timing wheel */
+	private long wheelTick = System.currentTimeMillis() / TrackingRequestsQueue.TICK - 1;
 
 	/** Session timeout */
 	private long sessionTimeout = 30000;
 
 	/** Limit queue maxClients */
-	private int maxClients = 1000;
+	private int maxClients = 100000;
+
+	/** Limit of pending requests of each client */
+	private int maxClientRequests = TrackingRequestsQueue.IDS_COUNT;
+
+	/** Number of expired requests */
+	private long expiredCount = 0;
 
 	/**
 	 * Constructor
@@ -60,7 +99,14 @@ public class TrackingRequestsQueue implements RequestsQueue {
 	 */
 	public void setSessionTimeout(final long millis) {
 		if (millis < 0) throw new IllegalArgumentException("sessionTimeout: " + millis);
-		this.sessionTimeout = millis;
+		synchronized (this) {
+			this.sessionTimeout = millis;
+			// move active sessions to slots of new expiration time
+			for (final ClientSession session : this.sessions.values()) {
+				this.unschedule(session);
+				this.schedule(session);
+			}
+		}
 		TrackingRequestsQueue.log.debug("configured session timeout: " + millis);
 	}
 
@@ -70,13 +116,15 @@ public class TrackingRequestsQueue implements RequestsQueue {
 	 * @return session timeout
 	 */
 	public long getSessionTimeout() {
-		return this.sessionTimeout;
+		synchronized (this) {
+			return this.sessionTimeout;
+		}
 	}
 
 	/**
 	 * Set maximum active clients limit
 	 * <P>
-	 * Limit maximal count of active clients, holds in queue. Default 1000
+	 * Limit maximal count of active clients, holds in queue. Default 100000
 	 * </P>
 	 * 
 	 * @param acapacity maximum capacity
@@ -99,67 +147,127 @@ public class TrackingRequestsQueue implements RequestsQueue {
 		}
 	}
 
+	/**
+	 * Set maximum pending requests of client
+	 * <P>
+	 * Limit number of requests, which one client can send without waiting for responses. Default 256, which is the
+	 * number of packet ids.
+	 * </P>
+	 * 
+	 * @param count maximum number of pending requests of each client, 1 to 256
+	 */
+	public void setMaxClientRequests(final int count) {
+		if (count < 1 || count > TrackingRequestsQueue.IDS_COUNT) throw new IllegalArgumentException(
+		        "maxClientRequests: " + count);
+		synchronized (this) {
+			this.maxClientRequests = count;
+		}
+	}
+
+	/**
+	 * Return maximum pending requests of client
+	 * 
+	 * @return maximum number of pending requests of each client
+	 */
+	public int getMaxClientRequests() {
+		synchronized (this) {
+			return this.maxClientRequests;
+		}
+	}
+
+	/**
+	 * Return number of active clients
+	 * 
+	 * @return number of client sessions
+	 */
+	public synchronized int getClientsCount() {
+		return this.sessions.size();
+	}
+
 	/**
 	 * @see org.dicr.radius.server.RequestsQueue#putRequest(org.dicr.radius.channel.ClientRequest)
 	 */
 	@Override
     public synchronized void putRequest(final ClientRequest request) {
 		if (request == null) throw new IllegalArgumentException("null request");
-		ClientSession activeSession = null;
+		if (this.enqueue(request, System.currentTimeMillis())) this.notify();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#putRequests(java.util.Collection)
+	 */
+	@Override
+	public synchronized void putRequests(final Collection<ClientRequest> requests) {
+		if (requests == null) throw new IllegalArgumentException("null requests");
 		final long currentTime = System.currentTimeMillis();
+		int count = 0;
+		for (final ClientRequest request : requests) {
+			if (request == null) throw new IllegalArgumentException("null request");
+			if (this.enqueue(request, currentTime)) count++;
+		}
+		if (count == 1) this.notify();
+		else if (count > 1) this.notifyAll();
+	}
+
+	/**
+	 * Enqueue request. Must be called in synchronized block.
+	 * 
+	 * @param request request to enqueue
+	 * @param currentTime current time
+	 * @return true if new request is added to ready list
+	 */
+	private boolean enqueue(final ClientRequest request, final long currentTime) {
+		this.advanceWheel(currentTime);
 		final SocketAddress address = request.getClientAddress();
+		ClientSession activeSession = this.sessions.get(address);
 
-		// check all sessions
-		final Iterator<ClientSession> iterator = this.list.iterator();
-		while (iterator.hasNext()) {
-			final ClientSession session = iterator.next();
-			// expiring
-			if (currentTime - session.request.getTimeStamp() > this.sessionTimeout) {
-				//TrackingRequestsQueue.log.trace("stopping client session " + session.request.getClientAddress());
-				iterator.remove();
-			} else if (session.request.getClientAddress().equals(address)) {
-				activeSession = session;
-				break;
-			}
+		// expiring
+		if (activeSession != null && this.isExpired(activeSession, currentTime)) {
+			//TrackingRequestsQueue.log.trace("stopping client session " + address);
+			this.removeSession(activeSession);
+			activeSession = null;
 		}
 
-		// need enqueue request
-		boolean needEnqueue = false;
-
 		// check active session
 		if (activeSession == null) {
-			if (this.list.size() >= this.maxClients) TrackingRequestsQueue.log.error("requests overflow. To many active clients: "
-			        + this.list.size());
-			else {
-				activeSession = new ClientSession(request);
-				this.list.add(activeSession);
-				//TrackingRequestsQueue.log.trace("started client session: " + address);
-				needEnqueue = true;
-			}
-		} else {
-			final int newid = request.getRequestPacket().getId();
-			final int lastid = activeSession.request.getRequestPacket().getId();
-			
-			// check old packet
-			if ((newid < lastid) && (newid > 1) && (lastid < 255)) TrackingRequestsQueue.log.warn("ignoring old request id="
-			        + newid + " from client " + address + ", last id=" + lastid);
-			else {
-				// check request overflow
-				if (newid == lastid) TrackingRequestsQueue.log.warn("client " + address + " repeat last request, id=" + newid);
-				// check request duplicate
-				else if (activeSession.pending) TrackingRequestsQueue.log.warn("request overflow from client address "
-				        + address + ", id=" + newid + ", lastid=" + lastid);
-				needEnqueue = true;
+			if (this.sessions.size() >= this.maxClients) {
+				TrackingRequestsQueue.log.error("requests overflow. To many active clients: " + this.sessions.size());
+				request.getServerChannel().requestDropped(request);
+				return false;
 			}
+			activeSession = new ClientSession(address);
+			this.sessions.put(address, activeSession);
+			//TrackingRequestsQueue.log.trace("started client session: " + address);
 		}
 
-		// chage new request
-		if (needEnqueue && activeSession != null) {
-			activeSession.request = request;
-			activeSession.pending = true;
-			//TrackingRequestsQueue.log.trace("enqueued request id=" + request.getRequestPacket().getId() + " from client session " + address);
-			this.notify();
+		// update activity of session
+		activeSession.timestamp = request.getTimeStamp();
+		this.unschedule(activeSession);
+		this.schedule(activeSession);
+
+		final int id = request.getRequestPacket().getId();
+		final PendingRequest pending = activeSession.find(id);
+		if (pending != null) {
+			// new request with id of pending request
+			TrackingRequestsQueue.log.warn("client " + address + " repeat pending request, id=" + id);
+			pending.request.getServerChannel().requestDropped(pending.request);
+			pending.request = request;
+			return false;
+		}
+
+		// check request overflow
+		if (activeSession.count >= this.maxClientRequests) {
+			TrackingRequestsQueue.log.warn("request overflow from client address " + address + ", id=" + id
+			        + ", pending requests=" + activeSession.count);
+			request.getServerChannel().requestDropped(request);
+			return false;
 		}
+
+		final PendingRequest added = new PendingRequest(activeSession, request);
+		activeSession.add(added);
+		this.linkReady(added);
+		//TrackingRequestsQueue.log.trace("enqueued request id=" + id + " from client session " + address);
+		return true;
 	}
 
 	/**
@@ -167,45 +275,292 @@ public class TrackingRequestsQueue implements RequestsQueue {
 	 */
 	@Override
     public synchronized ClientRequest takeRequest() throws InterruptedException {
-		ClientSession activeSession = null;
-		while (activeSession == null) {
-			final long currentTime = System.currentTimeMillis();
-			final Iterator<ClientSession> iterator = this.list.iterator();
-			while (iterator.hasNext()) {
-				final ClientSession session = iterator.next();
-				if (currentTime - session.request.getTimeStamp() > this.sessionTimeout) {
-					// TrackingRequestsQueue.log.trace("stopping client session " + session.request.getClientAddress());
-					iterator.remove();
-				} else if (session.pending == true) {
-					activeSession = session;
-					break;
-				}
+		ClientRequest request = null;
+		while ((request = this.dequeue()) == null)
+			this.wait();
+		return request;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#pollRequest()
+	 */
+	@Override
+	public synchronized ClientRequest pollRequest() {
+		return this.dequeue();
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getPendingCount()
+	 */
+	@Override
+	public synchronized int getPendingCount() {
+		return this.readyCount;
+	}
+
+	/**
+	 * @see org.dicr.radius.server.RequestsQueue#getExpiredCount()
+	 */
+	@Override
+	public synchronized long getExpiredCount() {
+		return this.expiredCount;
+	}
+
+	/**
+	 * Dequeue pending request. Must be called in synchronized block.
+	 * 
+	 * @return pending request or null
+	 */
+	private ClientRequest dequeue() {
+		final long currentTime = System.currentTimeMillis();
+		this.advanceWheel(currentTime);
+		while (this.readyHead != null) {
+			final PendingRequest pending = this.readyHead;
+			this.unlinkReady(pending);
+			pending.session.remove(pending);
+			if (this.isExpired(pending.session, currentTime)) {
+				// TrackingRequestsQueue.log.trace("stopping client session " + pending.session.address);
+				pending.request.getServerChannel().requestDropped(pending.request);
+				this.removeSession(pending.session);
+				continue;
+			}
+			final long deadline = pending.request.getDeadline();
+			if (deadline == 0 || currentTime <= deadline) {
+				// TrackingRequestsQueue.log.trace("dequeued request id=" + pending.id + " from client session: " + pending.session.address);
+				return pending.request;
 			}
-			if (activeSession == null) this.wait();
+			// client does not wait for response
+			this.expiredCount++;
+			pending.request.getServerChannel().requestDropped(pending.request);
+			if (TrackingRequestsQueue.log.isDebugEnabled()) TrackingRequestsQueue.log.debug("dropping expired request id="
+			        + pending.id + " from client " + pending.session.address);
+		}
+		return null;
+	}
+
+	/**
+	 * Check if session is expired
+	 * 
+	 * @param session session
+	 * @param currentTime current time
+	 * @return true if last request of session is older than session timeout
+	 */
+	private boolean isExpired(final ClientSession session, final long currentTime) {
+		return currentTime - session.timestamp > this.sessionTimeout;
+	}
+
+	/**
+	 * Remove session and its pending requests from queue. Must be called in synchronized block.
+	 * 
+	 * @param session session to remove
+	 */
+	private void removeSession(final ClientSession session) {
+		this.sessions.remove(session.address);
+		while (session.first != null) {
+			final PendingRequest pending = session.first;
+			session.remove(pending);
+			this.unlinkReady(pending);
+			pending.request.getServerChannel().requestDropped(pending.request);
 		}
-		activeSession.pending = false;
-		// TrackingRequestsQueue.log.trace("dequeued request id=" + activeSession.request.getRequestPacket().getId() + " from client session: " + activeSession.request.getClientAddress());
-		return activeSession.request;
+		this.unschedule(session);
+	}
+
+	/**
+	 * Add request to the end of ready list
+	 * 
+	 * @param pending pending request
+	 */
+	private void linkReady(final PendingRequest pending) {
+		pending.readyPrev = this.readyTail;
+		pending.readyNext = null;
+		if (this.readyTail == null) this.readyHead = pending;
+		else this.readyTail.readyNext = pending;
+		this.readyTail = pending;
+		this.readyCount++;
+	}
+
+	/**
+	 * Remove request from ready list
+	 * 
+	 * @param pending request in ready list
+	 */
+	private void unlinkReady(final PendingRequest pending) {
+		if (pending.readyPrev == null) this.readyHead = pending.readyNext;
+		else pending.readyPrev.readyNext = pending.readyNext;
+		if (pending.readyNext == null) this.readyTail = pending.readyPrev;
+		else pending.readyNext.readyPrev = pending.readyPrev;
+		pending.readyPrev = null;
+		pending.readyNext = null;
+		this.readyCount--;
+	}
+
+	/**
+	 * Add session to timing wheel slot of its expiration time
+	 * 
+	 * @param session session
+	 */
+	private void schedule(final ClientSession session) {
+		final long expireTick = Math.max((session.timestamp + this.sessionTimeout) / TrackingRequestsQueue.TICK,
+		        this.wheelTick + 1);
+		final int slot = (int) (expireTick & (TrackingRequestsQueue.WHEEL_SIZE - 1));
+		session.slot = slot;
+		session.wheelPrev = null;
+		session.wheelNext = this.wheel[slot];
+		if (session.wheelNext != null) session.wheelNext.wheelPrev = session;
+		this.wheel[slot] = session;
+	}
+
+	/**
+	 * Remove session from timing wheel
+	 * 
+	 * @param session session
+	 */
+	private void unschedule(final ClientSession session) {
+		if (session.wheelPrev == null) {
+			if (this.wheel[session.slot] == session) this.wheel[session.slot] = session.wheelNext;
+		} else session.wheelPrev.wheelNext = session.wheelNext;
+		if (session.wheelNext != null) session.wheelNext.wheelPrev = session.wheelPrev;
+		session.wheelPrev = null;
+		session.wheelNext = null;
+	}
+
+	/**
+	 * Expire sessions of passed timing wheel ticks. Sessions, which expire in later rounds of wheel, are left in slot.
+	 * 
+	 * @param currentTime current time
+	 */
+	private void advanceWheel(final long currentTime) {
+		final long tick = currentTime / TrackingRequestsQueue.TICK - 1;
+		if (tick <= this.wheelTick) return;
+		final long from = Math.max(this.wheelTick + 1, tick - TrackingRequestsQueue.WHEEL_SIZE + 1);
+		for (long t = from; t <= tick; t++) {
+			ClientSession session = this.wheel[(int) (t & (TrackingRequestsQueue.WHEEL_SIZE - 1))];
+			while (session != null) {
+				final ClientSession next = session.wheelNext;
+				if (this.isExpired(session, currentTime)) this.removeSession(session);
+				session = next;
+			}
+		}
+		this.wheelTick = tick;
 	}
 
 	/*******************************************************************************************************************
 	 * Information about active Client Session
 	 ******************************************************************************************************************/
 	protected static class ClientSession {
+		/** Client address */
+		protected final SocketAddress address;
+
+		/** Time of last request */
+		protected long timestamp = 0;
+
+		/** Bitmap of pending request ids */
+		protected final long[] ids = new long[TrackingRequestsQueue.IDS_COUNT / 64];
+
+		/** First pending request */
+		protected PendingRequest first = null;
+
+		/** Number of pending requests */
+		protected int count = 0;
+
+		/** Slot of timing wheel */
+		protected int slot = 0;
+
+		/** Previous session in timing wheel slot */
+		protected ClientSession wheelPrev = null;
+
+		/** Next session in timing wheel slot */
+		protected ClientSession wheelNext = null;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param clientAddress client address
+		 */
+		protected ClientSession(final SocketAddress clientAddress) {
+			if (clientAddress == null) throw new IllegalArgumentException("null client address");
+			this.address = clientAddress;
+		}
+
+		/**
+		 * Find pending request
+		 * 
+		 * @param id packet id
+		 * @return pending request with id or null
+		 */
+		protected PendingRequest find(final int id) {
+			if ((this.ids[id >> 6] & (1L << id)) == 0) return null;
+			for (PendingRequest pending = this.first; pending != null; pending = pending.sessionNext)
+				if (pending.id == id) return pending;
+			return null;
+		}
+
+		/**
+		 * Add pending request
+		 * 
+		 * @param pending request with id, which is not pending
+		 */
+		protected void add(final PendingRequest pending) {
+			pending.sessionPrev = null;
+			pending.sessionNext = this.first;
+			if (this.first != null) this.first.sessionPrev = pending;
+			this.first = pending;
+			this.ids[pending.id >> 6] |= 1L << pending.id;
+			this.count++;
+		}
+
+		/**
+		 * Remove pending request
+		 * 
+		 * @param pending request of this session
+		 */
+		protected void remove(final PendingRequest pending) {
+			if (pending.sessionPrev == null) this.first = pending.sessionNext;
+			else pending.sessionPrev.sessionNext = pending.sessionNext;
+			if (pending.sessionNext != null) pending.sessionNext.sessionPrev = pending.sessionPrev;
+			pending.sessionPrev = null;
+			pending.sessionNext = null;
+			this.ids[pending.id >> 6] &= ~(1L << pending.id);
+			this.count--;
+		}
+	}
+
+	/*******************************************************************************************************************
+	 * Pending request of client
+	 ******************************************************************************************************************/
+	protected static class PendingRequest {
+		/** Session of client */
+		protected final ClientSession session;
+
+		/** Packet id */
+		protected final int id;
+
 		/** Request */
 		protected ClientRequest request = null;
 
-		/** Pending request flag */
-		protected boolean pending = true;
+		/** Previous request in ready list */
+		protected PendingRequest readyPrev = null;
+
+		/** Next request in ready list */
+		protected PendingRequest readyNext = null;
+
+		/** Previous request of session */
+		protected PendingRequest sessionPrev = null;
+
+		/** Next request of session */
+		protected PendingRequest sessionNext = null;
 
 		/**
 		 * Constructor
 		 * 
-		 * @param clientRequest initial client request
+		 * @param clientSession session of client
+		 * @param clientRequest client request
 		 */
-		protected ClientSession(final ClientRequest clientRequest) {
+		protected PendingRequest(final ClientSession clientSession, final ClientRequest clientRequest) {
+			if (clientSession == null) throw new IllegalArgumentException("null client session");
 			if (clientRequest == null) throw new IllegalArgumentException("null client request");
+			this.session = clientSession;
 			this.request = clientRequest;
+			this.id = clientRequest.getRequestPacket().getId();
 		}
 	}
 }
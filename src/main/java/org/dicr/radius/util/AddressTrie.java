@@ -0,0 +1,148 @@
+/**
+ * AddressTrie.java 18.10.2026
+ */
+package org.dicr.radius.util;
+
+import java.net.*;
+import java.util.*;
+
+/**
+ * Immutable table of network prefixes.
+ * <P>
+ * Table map IPv4 and IPv6 prefixes (<CODE>address/length</CODE>) to values and find value of the longest prefix
+ * matching address. Prefixes are stored in binary trie, one for each address family. Table is never changed after
+ * creation, so it can be read by many threads without locking. To change table, the new one is created and published.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ * @param <V> type of values
+ */
+public final class AddressTrie<V> {
+	/** Root of IPv4 prefixes */
+	private final Node<V> root4 = new Node<V>();
+
+	/** Root of IPv6 prefixes */
+	private final Node<V> root6 = new Node<V>();
+
+	/** Number of prefixes */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 * <P>
+	 * Prefixes are added in iteration order of map, so when the same prefix is configured twice, the last value is used.
+	 * </P>
+	 *
+	 * @param prefixes map of prefixes to values. Prefix is host name or address with optional prefix length, for example
+	 *            <CODE>radius.dicr.org</CODE>, <CODE>10.0.0.0/8</CODE> or <CODE>2001:db8::/32</CODE>.
+	 * @throws UnknownHostException if host of prefix is unknown
+	 */
+	public AddressTrie(final Map<String, V> prefixes) throws UnknownHostException {
+		if (prefixes == null) throw new IllegalArgumentException("null prefixes");
+		for (final Map.Entry<String, V> entry : prefixes.entrySet()) {
+			if (entry.getKey() == null) throw new IllegalArgumentException("null prefix");
+			if (entry.getValue() == null) throw new IllegalArgumentException("null value of prefix: " + entry.getKey());
+			this.add(entry.getKey().trim(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Constructor of empty table
+	 */
+	public AddressTrie() {
+		super();
+	}
+
+	/**
+	 * Add prefix
+	 *
+	 * @param prefix prefix string
+	 * @param value value
+	 * @throws UnknownHostException if host is unknown
+	 */
+	private void add(final String prefix, final V value) throws UnknownHostException {
+		final int pos = prefix.indexOf('/');
+		final byte[] addr = InetAddress.getByName(pos < 0 ? prefix : prefix.substring(0, pos)).getAddress();
+		final int bits = addr.length * 8;
+		int length = bits;
+		if (pos >= 0) try {
+			length = Integer.parseInt(prefix.substring(pos + 1));
+		} catch (final NumberFormatException ex) {
+			throw new IllegalArgumentException("incorrect prefix length: " + prefix);
+		}
+		if (length < 0 || length > bits) throw new IllegalArgumentException("incorrect prefix length: " + prefix);
+		Node<V> node = addr.length == 4 ? this.root4 : this.root6;
+		for (int i = 0; i < length; i++)
+			if (AddressTrie.bit(addr, i) == 0) {
+				if (node.zero == null) node.zero = new Node<V>();
+				node = node.zero;
+			} else {
+				if (node.one == null) node.one = new Node<V>();
+				node = node.one;
+			}
+		if (node.value == null) this.size++;
+		node.value = value;
+	}
+
+	/**
+	 * Return bit of address
+	 *
+	 * @param addr address
+	 * @param index index of bit, starting from most significant
+	 * @return value of bit
+	 */
+	private static int bit(final byte[] addr, final int index) {
+		return (addr[index >> 3] >> (7 - (index & 7))) & 1;
+	}
+
+	/**
+	 * Find value of the longest prefix matching address
+	 *
+	 * @param address address to find
+	 * @return value or null if no prefix match address
+	 */
+	public V get(final InetAddress address) {
+		if (address == null) throw new IllegalArgumentException("null address");
+		final byte[] addr = address.getAddress();
+		Node<V> node = addr.length == 4 ? this.root4 : this.root6;
+		V value = node.value;
+		final int bits = addr.length * 8;
+		for (int i = 0; i < bits; i++) {
+			node = AddressTrie.bit(addr, i) == 0 ? node.zero : node.one;
+			if (node == null) break;
+			if (node.value != null) value = node.value;
+		}
+		return value;
+	}
+
+	/**
+	 * Return size
+	 *
+	 * @return number of prefixes in table
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/*******************************************************************************************************************
+	 * Trie node
+	 ******************************************************************************************************************/
+	private static final class Node<V> {
+		/** Child for zero bit */
+		protected Node<V> zero = null;
+
+		/** Child for one bit */
+		protected Node<V> one = null;
+
+		/** Value of prefix, ending at this node */
+		protected V value = null;
+
+		/**
+		 * Constructor
+		 */
+		protected Node() {
+			super();
+		}
+	}
+}
@@ -5,6 +5,9 @@ package org.dicr.radius.util;
 
 import java.security.*;
 
+import javax.crypto.*;
+import javax.crypto.spec.*;
+
 /**
  * Radius Utils.
  * 
@@ -31,6 +34,25 @@ public final class MD5 {
 		return digest;
 	}
 
+	/**
+     * Return HMAC-MD5 (RFC 2104), initialized by key
+     * 
+     * @param key secret key
+     * @return HmacMD5 Mac
+     * @throws Error if HmacMD5 Algorythm not available
+     */
+	public final static Mac getHmacMD5(byte[] key) throws Error {
+		if (key == null || key.length < 1) throw new IllegalArgumentException("empty key");
+		Mac mac = null;
+		try {
+			mac = Mac.getInstance("HmacMD5");
+			mac.init(new SecretKeySpec(key, "HmacMD5"));
+		} catch (GeneralSecurityException ex) {
+			throw new Error("hmac-md5 algorythm not available", ex);
+		}
+		return mac;
+	}
+
 	/**
      * Generate random 16-byte digest data
      * 
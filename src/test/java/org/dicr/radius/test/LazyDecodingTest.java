@@ -0,0 +1,205 @@
+/**
+ * LazyDecodingTest.java 18.10.2026
+ */
+package org.dicr.radius.test;
+
+import java.nio.*;
+import java.util.*;
+
+import org.dicr.radius.attribute.*;
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.codec.impl.*;
+import org.dicr.radius.exc.*;
+import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
+
+/**
+ * Check of lazy decoding of attributes.
+ * <P>
+ * Packet, decoded lazily, must have the same attributes as packet, decoded with attributes, and both must be encoded
+ * to the same bytes: when attributes are not accessed, partially accessed and modified. Incorrect value of attribute
+ * must fail eager decoding and access to attribute of lazy list.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class LazyDecodingTest {
+
+	/** Shared secret */
+	private static final String SECRET = "radsecret";
+
+	/** Number of errors */
+	private static int errors = 0;
+
+	/**
+	 * @param args
+	 * @throws Exception error
+	 */
+	public static void main(final String[] args) throws Exception {
+		final RFCCodec lazyCodec = new RFCCodec();
+		final RFCCodec eagerCodec = new RFCCodec();
+		eagerCodec.setLazyDecoding(false);
+
+		final AccessRequest access = new AccessRequest();
+		access.getAttributes().add(new UserName("user1"));
+		access.getAttributes().add(new UserPassword("password"));
+		access.getAttributes().add(new NASIPAddress(0x0A000001));
+		access.getAttributes().add(new NASPort(12));
+		access.getAttributes().add(new CallerID("00:11:22:33:44:55"));
+		access.getAttributes().add(new NASIdentifier("nas1"));
+
+		final AccountingRequest accounting = new AccountingRequest();
+		accounting.getAttributes().add(new UserName("user1"));
+		accounting.getAttributes().add(new AcctStatusType(3));
+		accounting.getAttributes().add(new AcctSessionId("0123456789"));
+		accounting.getAttributes().add(new AcctInputOctets(1000));
+		accounting.getAttributes().add(new AcctOutputOctets(2000));
+		accounting.getAttributes().add(new AcctSessionTime(60));
+		accounting.getAttributes().add(new FramedIPAddress(0x0A010101));
+
+		for (final RequestPacket request : new RequestPacket[] { access, accounting }) {
+			final byte[] data = eagerCodec.encodeRequest(request, LazyDecodingTest.SECRET);
+			final String name = request.getClass().getSimpleName();
+
+			// not accessed attributes
+			RequestPacket lazy = lazyCodec.decodeRequest(data, LazyDecodingTest.SECRET);
+			LazyDecodingTest.check(name + " not accessed", Arrays.equals(lazyCodec.encodeRequest(lazy,
+			        LazyDecodingTest.SECRET), data));
+
+			// partially accessed attributes
+			lazy = lazyCodec.decodeRequest(data, LazyDecodingTest.SECRET);
+			final UserName userName = lazy.getAttributes().getFirst(UserName.TYPE);
+			LazyDecodingTest.check(name + " accessed attribute", userName != null
+			        && "user1".equals(userName.getValue()));
+			LazyDecodingTest.check(name + " partially accessed", Arrays.equals(lazyCodec.encodeRequest(lazy,
+			        LazyDecodingTest.SECRET), data));
+
+			// all attributes
+			final RequestPacket eager = eagerCodec.decodeRequest(data, LazyDecodingTest.SECRET);
+			LazyDecodingTest.check(name + " eager", Arrays.equals(eagerCodec.encodeRequest(eager,
+			        LazyDecodingTest.SECRET), data));
+			LazyDecodingTest.check(name + " attributes", LazyDecodingTest.equalAttributes(lazy, eager));
+
+			// modified attributes
+			lazy = lazyCodec.decodeRequest(data, LazyDecodingTest.SECRET);
+			lazy.getAttributes().add(new ReplyMessage("modified"));
+			eager.getAttributes().add(new ReplyMessage("modified"));
+			LazyDecodingTest.check(name + " modified", Arrays.equals(lazyCodec.encodeRequest(lazy,
+			        LazyDecodingTest.SECRET), eagerCodec.encodeRequest(eager, LazyDecodingTest.SECRET)));
+		}
+
+		LazyDecodingTest.checkMalformed(lazyCodec, eagerCodec);
+		LazyDecodingTest.checkEquals(lazyCodec, eagerCodec.encodeRequest(accounting, LazyDecodingTest.SECRET));
+
+		if (LazyDecodingTest.errors > 0) throw new IllegalStateException("lazy decoding check failed: "
+		        + LazyDecodingTest.errors + " errors");
+		System.out.println("OK");
+	}
+
+	/**
+	 * Compare types and values of attributes of packets
+	 *
+	 * @param lazy packet, decoded lazily
+	 * @param eager packet, decoded with attributes
+	 * @return true if attributes are equal
+	 * @throws CodecException error
+	 */
+	private static boolean equalAttributes(final RequestPacket lazy, final RequestPacket eager) throws CodecException {
+		final List<RadiusAttribute> lazyAttributes = lazy.getAttributes().toList();
+		final List<RadiusAttribute> eagerAttributes = eager.getAttributes().toList();
+		if (lazyAttributes.size() != eagerAttributes.size()) return false;
+		for (int i = 0; i < lazyAttributes.size(); i++) {
+			final RadiusAttribute lazyAttribute = lazyAttributes.get(i);
+			final RadiusAttribute eagerAttribute = eagerAttributes.get(i);
+			if (!lazyAttribute.getType().equals(eagerAttribute.getType())
+			        || !Arrays.equals(lazyAttribute.encodeValue(LazyDecodingTest.SECRET, lazy.getAuthenticator()),
+			                eagerAttribute.encodeValue(LazyDecodingTest.SECRET, eager.getAuthenticator()))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check packet with incorrect value of attribute
+	 *
+	 * @param lazyCodec codec with lazy decoding
+	 * @param eagerCodec codec without lazy decoding
+	 * @throws CodecException error
+	 */
+	private static void checkMalformed(final RFCCodec lazyCodec, final RFCCodec eagerCodec) throws CodecException {
+		final AccessRequest request = new AccessRequest();
+		request.getAttributes().add(new UserName("user1"));
+		final byte[] data = eagerCodec.encodeRequest(request, LazyDecodingTest.SECRET);
+		// NAS-IP-Address with 3 octets value
+		final byte[] malformed = Arrays.copyOf(data, data.length + 5);
+		malformed[data.length] = (byte) NASIPAddress.TYPE.getTypeCode();
+		malformed[data.length + 1] = 5;
+		malformed[3] = (byte) malformed.length;
+
+		boolean failed = false;
+		try {
+			eagerCodec.decodeRequest(malformed, LazyDecodingTest.SECRET);
+		} catch (final CodecException ex) {
+			failed = true;
+		}
+		LazyDecodingTest.check("malformed eager", failed);
+
+		final RequestPacket lazy = lazyCodec.decodeRequest(ByteBuffer.wrap(malformed), LazyDecodingTest.SECRET);
+		LazyDecodingTest.check("malformed correct attribute", lazy.getAttributes().getFirst(UserName.TYPE) != null);
+		for (int i = 0; i < 2; i++) {
+			failed = false;
+			try {
+				lazy.getAttributes().getFirst(NASIPAddress.TYPE);
+			} catch (final MalformedAttributeException ex) {
+				failed = true;
+			}
+			LazyDecodingTest.check("malformed lazy, access " + i, failed);
+		}
+		LazyDecodingTest.check("malformed flag", ((LazyAttributesList) lazy.getAttributes()).isMalformed());
+		LazyDecodingTest.check("malformed string", lazy.toString() != null);
+	}
+
+	/**
+	 * Compare lazy lists from different threads
+	 *
+	 * @param lazyCodec codec with lazy decoding
+	 * @param data encoded packet
+	 * @throws Exception error
+	 */
+	private static void checkEquals(final RFCCodec lazyCodec, final byte[] data) throws Exception {
+		final AttributesList first = lazyCodec.decodeRequest(data, LazyDecodingTest.SECRET).getAttributes();
+		final AttributesList second = lazyCodec.decodeRequest(data, LazyDecodingTest.SECRET).getAttributes();
+		final Thread[] threads = new Thread[] { new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100000; i++)
+					first.equals(second);
+			}
+		}, new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100000; i++)
+					second.equals(first);
+			}
+		} };
+		for (final Thread thread : threads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+		for (final Thread thread : threads)
+			thread.join(10000);
+		LazyDecodingTest.check("equals without deadlock", !threads[0].isAlive() && !threads[1].isAlive());
+		LazyDecodingTest.check("equals", first.equals(second) && first.hashCode() == second.hashCode());
+	}
+
+	/**
+	 * Print result of check
+	 *
+	 * @param name name of check
+	 * @param result result
+	 */
+	private static void check(final String name, final boolean result) {
+		System.out.println(name + ": " + (result ? "ok" : "FAILED"));
+		if (!result) LazyDecodingTest.errors++;
+	}
+}
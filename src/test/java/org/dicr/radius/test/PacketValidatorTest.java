@@ -0,0 +1,209 @@
+/**
+ * PacketValidatorTest.java 18.10.2026
+ */
+package org.dicr.radius.test;
+
+import java.nio.*;
+import java.security.*;
+import java.util.*;
+
+import org.dicr.radius.attribute.impl.*;
+import org.dicr.radius.codec.*;
+import org.dicr.radius.codec.impl.*;
+import org.dicr.radius.exc.*;
+import org.dicr.radius.packet.*;
+import org.dicr.radius.packet.impl.*;
+import org.dicr.radius.util.*;
+import org.dicr.util.data.*;
+
+/**
+ * Check of packet validator against codec.
+ * <P>
+ * Padded datagrams must be accepted by validator and decoded by codec, authenticators must be checked over Length
+ * field of packet, and decoded packets, including Status-Server with Message-Authenticator, must be encoded to the
+ * original. For damaged datagrams validator must not reject packet, which codec decodes, and codec must reject
+ * damaged packet only by {@link CodecException}.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class PacketValidatorTest {
+
+	/** Shared secret */
+	private static final String SECRET = "radsecret";
+
+	/** Number of damaged datagrams */
+	private static final int DAMAGED = 200000;
+
+	/**
+	 * @param args
+	 * @throws Exception error
+	 */
+	public static void main(final String[] args) throws Exception {
+		final List<byte[]> packets = PacketValidatorTest.createPackets();
+		final PacketValidator validator = new RFCPacketValidator();
+		final RFCCodec lazyCodec = new RFCCodec();
+		final RFCCodec eagerCodec = new RFCCodec();
+		eagerCodec.setLazyDecoding(false);
+		final Random random = new Random(1);
+		int errors = 0;
+
+		// padded datagrams
+		for (final byte[] packet : packets) {
+			for (int padding = 1; padding <= 64; padding++) {
+				final byte[] data = Arrays.copyOf(packet, packet.length + padding);
+				for (int i = packet.length; i < data.length; i++)
+					data[i] = (byte) random.nextInt();
+				final ByteBuffer buf = ByteBuffer.wrap(data);
+				if (validator.validateRequest(buf) != PacketValidator.VALID) {
+					System.out.println("validator rejected padded packet: " + validator.getReasonText(validator
+					        .validateRequest(buf)));
+					errors++;
+				}
+				if (RFCCodec.getPacketLength(buf) != packet.length) {
+					System.out.println("incorrect length of padded packet: " + RFCCodec.getPacketLength(buf));
+					errors++;
+				}
+				if ((data[0] & 0xFF) == AccountingRequest.CODE
+				        && !RFCCodec.checkAccountingAuthenticator(buf, RFCCodec.getPacketLength(buf),
+				                PacketValidatorTest.SECRET)) {
+					System.out.println("bad authenticator of padded accounting request");
+					errors++;
+				}
+				final RequestPacket lazy = lazyCodec.decodeRequest(buf, PacketValidatorTest.SECRET);
+				final RequestPacket eager = eagerCodec.decodeRequest(buf, PacketValidatorTest.SECRET);
+				if (!Arrays.equals(lazyCodec.encodeRequest(lazy, PacketValidatorTest.SECRET), packet)
+				        || !Arrays.equals(eagerCodec.encodeRequest(eager, PacketValidatorTest.SECRET), packet)) {
+					System.out.println("padded packet is not encoded to original: " + eager);
+					errors++;
+				}
+			}
+		}
+		System.out.println("padded: packets=" + packets.size() * 64 + ", errors=" + errors);
+
+		// damaged datagrams
+		int rejected = 0;
+		int decoded = 0;
+		int invalidValues = 0;
+		for (int n = 0; n < PacketValidatorTest.DAMAGED; n++) {
+			final byte[] data = PacketValidatorTest.damage(packets.get(random.nextInt(packets.size())), random);
+			final ByteBuffer buf = ByteBuffer.wrap(data);
+			final boolean valid = validator.validateRequest(buf) == PacketValidator.VALID;
+			if (!valid) rejected++;
+			boolean eagerDecoded = false;
+			try {
+				eagerCodec.decodeRequest(buf, PacketValidatorTest.SECRET);
+				eagerDecoded = true;
+				decoded++;
+			} catch (final CodecException ex) {
+				if (valid) invalidValues++;
+			} catch (final RuntimeException ex) {
+				System.out.println("codec failed with unchecked exception: " + ex + ", data: "
+				        + Arrays.toString(data));
+				errors++;
+			}
+			if (eagerDecoded && !valid) {
+				System.out.println("validator rejected decodable packet: " + Arrays.toString(data));
+				errors++;
+			}
+			if (valid) {
+				try {
+					lazyCodec.decodeRequest(buf, PacketValidatorTest.SECRET);
+				} catch (final Exception ex) {
+					System.out.println("lazy codec rejected valid packet: " + ex + ", data: " + Arrays.toString(data));
+					errors++;
+				}
+			}
+		}
+		System.out.println("damaged: packets=" + PacketValidatorTest.DAMAGED + ", rejected by validator=" + rejected
+		        + ", decoded=" + decoded + ", valid with incorrect values=" + invalidValues + ", errors=" + errors);
+		if (errors > 0) throw new IllegalStateException("packet validator check failed: " + errors + " errors");
+		System.out.println("OK");
+	}
+
+	/**
+	 * Create encoded requests
+	 *
+	 * @return encoded requests
+	 * @throws CodecException encoding error
+	 */
+	private static List<byte[]> createPackets() throws CodecException {
+		final RFCCodec codec = new RFCCodec();
+		final List<byte[]> packets = new ArrayList<byte[]>();
+
+		final AccessRequest access = new AccessRequest();
+		access.getAttributes().add(new UserName("user1"));
+		access.getAttributes().add(new UserPassword("password"));
+		access.getAttributes().add(new NASIPAddress(0x0A000001));
+		access.getAttributes().add(new NASPort(12));
+		access.getAttributes().add(new CallerID("00:11:22:33:44:55"));
+		access.getAttributes().add(new NASIdentifier("nas1"));
+		packets.add(codec.encodeRequest(access, PacketValidatorTest.SECRET));
+
+		final AccountingRequest accounting = new AccountingRequest();
+		accounting.getAttributes().add(new UserName("user1"));
+		accounting.getAttributes().add(new AcctStatusType(3));
+		accounting.getAttributes().add(new AcctSessionId("0123456789"));
+		accounting.getAttributes().add(new AcctInputOctets(1000));
+		accounting.getAttributes().add(new AcctOutputOctets(2000));
+		accounting.getAttributes().add(new AcctSessionTime(60));
+		accounting.getAttributes().add(new FramedIPAddress(0x0A010101));
+		packets.add(PacketValidatorTest.signAccounting(codec.encodeRequest(accounting, PacketValidatorTest.SECRET)));
+
+		packets.add(codec.encodeRequest(new StatusServer(), PacketValidatorTest.SECRET));
+		return packets;
+	}
+
+	/**
+	 * Set authenticator of Accounting-Request (RFC 2866)
+	 *
+	 * @param packet encoded accounting request
+	 * @return packet with authenticator
+	 */
+	private static byte[] signAccounting(final byte[] packet) {
+		Arrays.fill(packet, 4, RFCCodec.PACKET_HEADER_LENGTH, (byte) 0);
+		final MessageDigest md5 = MD5.getMD5Digest();
+		md5.update(packet);
+		md5.update(ByteUtils.toBytes(PacketValidatorTest.SECRET));
+		System.arraycopy(md5.digest(), 0, packet, 4, 16);
+		return packet;
+	}
+
+	/**
+	 * Damage copy of packet
+	 *
+	 * @param packet encoded packet
+	 * @param random random generator
+	 * @return damaged datagram
+	 */
+	private static byte[] damage(final byte[] packet, final Random random) {
+		byte[] data = Arrays.copyOf(packet, packet.length + random.nextInt(16));
+		switch (random.nextInt(4)) {
+			case 0:
+				// truncate
+				data = Arrays.copyOf(data, random.nextInt(data.length));
+				break;
+			case 1:
+				// change Length field
+				data[2] = (byte) random.nextInt(2);
+				data[3] = (byte) random.nextInt();
+				break;
+			case 2:
+				// change length of attribute
+				int pos = RFCCodec.PACKET_HEADER_LENGTH;
+				final int skip = random.nextInt(4);
+				for (int i = 0; i < skip && pos + 1 < packet.length; i++)
+					pos += Math.max(1, data[pos + 1] & 0xFF);
+				if (pos + 1 < data.length) data[pos + 1] = (byte) random.nextInt();
+				break;
+			default:
+				// change random octets of attributes
+				final int count = 1 + random.nextInt(4);
+				for (int i = 0; i < count; i++)
+					data[RFCCodec.PACKET_HEADER_LENGTH + random.nextInt(data.length - RFCCodec.PACKET_HEADER_LENGTH)] = (byte) random
+					        .nextInt();
+		}
+		return data;
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * RingQueueTest.java 18.10.2026
+ */
+package org.dicr.radius.test;
+
+import java.net.*;
+import java.util.concurrent.atomic.*;
+
+import org.dicr.radius.channel.*;
+import org.dicr.radius.exc.*;
+import org.dicr.radius.packet.*;
+import org.dicr.radius.server.impl.*;
+
+/**
+ * Check of ring requests queue with many producers and consumers.
+ * <P>
+ * Each request is put by producers and taken by consumers exactly once, for each wait strategy. Producers do not
+ * overflow ring, so no requests may be dropped.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261018
+ */
+public class RingQueueTest {
+
+	/** Number of producer threads */
+	private static final int PRODUCERS = 4;
+
+	/** Number of consumer threads */
+	private static final int CONSUMERS = 4;
+
+	/** Number of requests of each producer */
+	private static final int REQUESTS = 200000;
+
+	/** Capacity of ring */
+	private static final int CAPACITY = 1024;
+
+	/**
+	 * @param args
+	 * @throws Exception error
+	 */
+	public static void main(final String[] args) throws Exception {
+		for (final RingRequestsQueue.WaitStrategy strategy : RingRequestsQueue.WaitStrategy.values())
+			RingQueueTest.check(strategy);
+		System.out.println("OK");
+	}
+
+	/**
+	 * Check queue with wait strategy
+	 *
+	 * @param strategy wait strategy of consumers
+	 * @throws InterruptedException if interrupted
+	 */
+	private static void check(final RingRequestsQueue.WaitStrategy strategy) throws InterruptedException {
+		final RingRequestsQueue queue = new RingRequestsQueue(RingQueueTest.CAPACITY, strategy);
+		final int total = RingQueueTest.PRODUCERS * RingQueueTest.REQUESTS;
+		final AtomicIntegerArray taken = new AtomicIntegerArray(total);
+		final AtomicInteger count = new AtomicInteger(0);
+
+		// consumers
+		final Thread[] consumers = new Thread[RingQueueTest.CONSUMERS];
+		for (int i = 0; i < consumers.length; i++) {
+			consumers[i] = new Thread("consumer-" + i) {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							final TestRequest request = (TestRequest) queue.takeRequest();
+							taken.incrementAndGet(request.number);
+							count.incrementAndGet();
+						}
+					} catch (final InterruptedException ex) {
+						// stopped
+					}
+				}
+			};
+			consumers[i].start();
+		}
+
+		// producers
+		final long startTime = System.currentTimeMillis();
+		final Thread[] producers = new Thread[RingQueueTest.PRODUCERS];
+		for (int i = 0; i < producers.length; i++) {
+			final int producer = i;
+			producers[i] = new Thread("producer-" + i) {
+				@Override
+				public void run() {
+					for (int n = 0; n < RingQueueTest.REQUESTS; n++) {
+						// leave place for requests of other producers
+						while (queue.getPendingCount() >= RingQueueTest.CAPACITY - RingQueueTest.PRODUCERS)
+							Thread.yield();
+						queue.putRequest(new TestRequest(producer * RingQueueTest.REQUESTS + n));
+					}
+				}
+			};
+			producers[i].start();
+		}
+		for (final Thread producer : producers)
+			producer.join();
+		while (count.get() < total && System.currentTimeMillis() - startTime < 60000)
+			Thread.sleep(10);
+		final long time = System.currentTimeMillis() - startTime;
+		for (final Thread consumer : consumers)
+			consumer.interrupt();
+		for (final Thread consumer : consumers)
+			consumer.join(5000);
+
+		// check
+		int lost = 0;
+		int duplicated = 0;
+		for (int i = 0; i < total; i++) {
+			final int times = taken.get(i);
+			if (times == 0) lost++;
+			else if (times > 1) duplicated++;
+		}
+		System.out.println(strategy + ": requests=" + total + ", taken=" + count.get() + ", lost=" + lost
+		        + ", duplicated=" + duplicated + ", overflow=" + queue.getOverflowCount() + ", time=" + time + "ms");
+		if (lost > 0 || duplicated > 0 || queue.getOverflowCount() > 0) throw new IllegalStateException(
+		        "ring queue check failed for wait strategy " + strategy);
+		for (final Thread consumer : consumers)
+			if (consumer.isAlive()) throw new IllegalStateException("consumer is not stopped: " + consumer.getName());
+	}
+
+	/*******************************************************************************************************************
+	 * Numbered request without packet
+	 ******************************************************************************************************************/
+	private static class TestRequest implements ClientRequest {
+		/** Number of request */
+		protected final int number;
+
+		/**
+		 * Constructor
+		 *
+		 * @param requestNumber number of request
+		 */
+		protected TestRequest(final int requestNumber) {
+			this.number = requestNumber;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getServerChannel()
+		 */
+		@Override
+		public ServerChannel getServerChannel() {
+			throw new IllegalStateException("request " + this.number + " is dropped");
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getRequestPacket()
+		 */
+		@Override
+		public RequestPacket getRequestPacket() {
+			return null;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getClientAddress()
+		 */
+		@Override
+		public SocketAddress getClientAddress() {
+			return null;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getTimeStamp()
+		 */
+		@Override
+		public long getTimeStamp() {
+			return 0;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getDeadline()
+		 */
+		@Override
+		public long getDeadline() {
+			return 0;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getWeight()
+		 */
+		@Override
+		public int getWeight() {
+			return 1;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getReceiveTime()
+		 */
+		@Override
+		public long getReceiveTime() {
+			return 0;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#getEnqueueTime()
+		 */
+		@Override
+		public long getEnqueueTime() {
+			return 0;
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#setEnqueueTime(long)
+		 */
+		@Override
+		public void setEnqueueTime(final long time) {
+			// not used
+		}
+
+		/**
+		 * @see org.dicr.radius.channel.ClientRequest#sendResponse(org.dicr.radius.packet.ResponsePacket)
+		 */
+		@Override
+		public void sendResponse(final ResponsePacket response) throws ChannelException {
+			throw new ChannelException("not supported");
+		}
+	}
+}